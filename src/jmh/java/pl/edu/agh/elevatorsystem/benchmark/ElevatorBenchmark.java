@@ -0,0 +1,61 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.agh.elevatorsystem.elevator.Direction;
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PickupRequest;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
+
+/**
+ * Cost of Elevator.makeStep with the given number of pickup requests. The elevator travels between the ground and
+ * the top floor, and is loaded with a new set of requests every time it turns around.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevatorBenchmark {
+
+    private static final int TOP_FLOOR = MAX_FLOORS - 1;
+
+    @Param({"1", "16", "256"})
+    private int pickupRequests;
+
+    private Elevator elevator;
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        elevator = new Elevator(0);
+        random = new Random(42);
+        loadRequests(Direction.UP);
+    }
+
+    @Benchmark
+    public void makeStep() {
+        elevator.makeStep();
+
+        int currentFloor = elevator.getElevatorStatus().getCurrentFloor();
+        if (currentFloor == TOP_FLOOR) {
+            loadRequests(Direction.DOWN);
+        } else if (currentFloor == 0) {
+            loadRequests(Direction.UP);
+        }
+    }
+
+    private void loadRequests(Direction direction) {
+        for (int i = 0; i < pickupRequests; i++) {
+            int currentFloor = 1 + random.nextInt(TOP_FLOOR - 1);
+            int destinationFloor = direction.equals(Direction.UP) ? TOP_FLOOR : 0;
+            elevator.handlePickupRequest(new PickupRequest(currentFloor, direction, destinationFloor),
+                    PickupRequest.NO_TICK);
+        }
+
+        elevator.setDirection(direction);
+    }
+}
@@ -0,0 +1,76 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ScalarElevatorCandidateScan;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.VectorElevatorCandidateScan;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
+
+/**
+ * Cost of finding the closest elevator for a pickup request with the scalar and the vector candidate scan, used to
+ * find the number of elevators from which checking several of them at once pays off. Every elevator is idle, moving
+ * up, moving down or unavailable at random, and the requests are called from random floors.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevatorCandidateScanBenchmark {
+
+    private static final int REQUESTS = 1024;
+    private static final int[] STATES = {
+            ElevatorCandidateScan.IDLE, ElevatorCandidateScan.UP, ElevatorCandidateScan.DOWN,
+            ElevatorCandidateScan.UNAVAILABLE
+    };
+
+    @Param({"4", "8", "16", "32", "64", "256", "1024", "4096"})
+    private int elevators;
+
+    private int[] floors;
+    private int[] states;
+    private int[] requestFloors;
+    private int[] requestDirections;
+    private int request = 0;
+
+    private final ElevatorCandidateScan scalarScan = new ScalarElevatorCandidateScan();
+    private final ElevatorCandidateScan vectorScan = new VectorElevatorCandidateScan();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        floors = new int[elevators];
+        states = new int[elevators];
+
+        for (int elevatorId = 0; elevatorId < elevators; elevatorId++) {
+            floors[elevatorId] = random.nextInt(MAX_FLOORS);
+            states[elevatorId] = STATES[random.nextInt(STATES.length)];
+        }
+
+        requestFloors = new int[REQUESTS];
+        requestDirections = new int[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            requestFloors[i] = random.nextInt(MAX_FLOORS);
+            requestDirections[i] = random.nextBoolean() ? ElevatorCandidateScan.UP : ElevatorCandidateScan.DOWN;
+        }
+    }
+
+    @Benchmark
+    public int scalar() {
+        return findClosestElevator(scalarScan);
+    }
+
+    @Benchmark
+    public int vector() {
+        return findClosestElevator(vectorScan);
+    }
+
+    private int findClosestElevator(ElevatorCandidateScan scan) {
+        int i = request++ & (REQUESTS - 1);
+        return scan.findClosestElevator(floors, states, elevators, requestFloors[i], requestDirections[i]);
+    }
+}
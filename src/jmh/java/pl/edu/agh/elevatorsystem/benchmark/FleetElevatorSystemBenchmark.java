@@ -0,0 +1,88 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.agh.elevatorsystem.elevator_system.FleetElevatorSystem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the FleetElevatorSystem pickup and step paths for fleets above the MyElevatorSystem limit
+ *
+ * pickup steps the elevator system after every pickupsPerStep requests, as in MyElevatorSystemBenchmark.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetElevatorSystemBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"16", "256", "4096"})
+    private int elevators;
+
+    @Param({"64", "1024"})
+    private int floors;
+
+    @Param({"0", "10000"})
+    private int pendingPickups;
+
+    @Param({"UP_PEAK", "INTERFLOOR"})
+    private TrafficPattern trafficPattern;
+
+    @Param({"16"})
+    private int pickupsPerStep;
+
+    // threads of the parallel step, 0 for the sequential step
+    @Param({"0", "4"})
+    private int stepThreads;
+
+    private FleetElevatorSystem elevatorSystem;
+    private Traffic traffic;
+    // pickups sent by pickup since the last step
+    private int pickupsSinceStep;
+    private ForkJoinPool stepPool;
+
+    @Setup(Level.Trial)
+    public void setUpStepPool() {
+        stepPool = stepThreads > 0 ? new ForkJoinPool(stepThreads) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void shutDownStepPool() {
+        if (stepPool != null) stepPool.shutdown();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        elevatorSystem = new FleetElevatorSystem(elevators, floors, stepPool);
+        traffic = new Traffic(trafficPattern, floors, SEED);
+        Traffic.queueUpPendingPickups(elevatorSystem, elevators, floors, pendingPickups, SEED);
+        pickupsSinceStep = 0;
+    }
+
+    @Benchmark
+    public void pickup() {
+        traffic.pickupNext(elevatorSystem);
+
+        if (++pickupsSinceStep == pickupsPerStep) {
+            pickupsSinceStep = 0;
+            elevatorSystem.step();
+        }
+    }
+
+    @Benchmark
+    public void step() {
+        elevatorSystem.step();
+    }
+
+    @Benchmark
+    public void stepWithTraffic() {
+        for (int i = 0; i < pickupsPerStep; i++) {
+            traffic.pickupNext(elevatorSystem);
+        }
+        elevatorSystem.step();
+    }
+}
@@ -0,0 +1,87 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the MyElevatorSystem pickup and step paths. findBestElevator is private, it is measured through pickup,
+ * which runs it once per call.
+ *
+ * State is recreated before every iteration, with pendingPickups requests queued up that no elevator can handle
+ * until it reaches the top floor.
+ *
+ * pickup steps the elevator system after every pickupsPerStep requests, so the elevators keep handling the requests
+ * and the queues stay as long as in stepWithTraffic instead of growing for the whole iteration. Its score includes
+ * 1/pickupsPerStep of a step.
+ *
+ * stepWithBatchTraffic sends the same requests as stepWithTraffic through pickupBatch.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MyElevatorSystemBenchmark {
+
+    private static final long SEED = 42;
+
+    @Param({"1", "4", "16"})
+    private int elevators;
+
+    @Param({"16", "256"})
+    private int floors;
+
+    @Param({"0", "1000"})
+    private int pendingPickups;
+
+    @Param({"UP_PEAK", "DOWN_PEAK", "INTERFLOOR"})
+    private TrafficPattern trafficPattern;
+
+    // pickup requests sent before every step in pickup, stepWithTraffic and stepWithBatchTraffic
+    @Param({"1", "16"})
+    private int pickupsPerStep;
+
+    private MyElevatorSystem elevatorSystem;
+    private Traffic traffic;
+    // pickups sent by pickup since the last step
+    private int pickupsSinceStep;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        elevatorSystem = new MyElevatorSystem(elevators);
+        traffic = new Traffic(trafficPattern, floors, SEED);
+        Traffic.queueUpPendingPickups(elevatorSystem, elevators, floors, pendingPickups, SEED);
+        pickupsSinceStep = 0;
+    }
+
+    @Benchmark
+    public void pickup() {
+        traffic.pickupNext(elevatorSystem);
+
+        if (++pickupsSinceStep == pickupsPerStep) {
+            pickupsSinceStep = 0;
+            elevatorSystem.step();
+        }
+    }
+
+    @Benchmark
+    public void step() {
+        elevatorSystem.step();
+    }
+
+    @Benchmark
+    public void stepWithTraffic() {
+        for (int i = 0; i < pickupsPerStep; i++) {
+            traffic.pickupNext(elevatorSystem);
+        }
+        elevatorSystem.step();
+    }
+
+    @Benchmark
+    public void stepWithBatchTraffic() {
+        traffic.pickupNextBatch(elevatorSystem, pickupsPerStep);
+        elevatorSystem.step();
+    }
+}
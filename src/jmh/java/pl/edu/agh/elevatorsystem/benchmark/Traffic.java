@@ -0,0 +1,128 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+import pl.edu.agh.elevatorsystem.elevator_system.IElevatorSystem;
+
+import java.util.Random;
+
+/**
+ * Pregenerated, repeating sequence of pickup requests following the given traffic pattern, so the benchmarks do not
+ * measure the random number generator
+ */
+public class Traffic {
+
+    private static final int SIZE = 1 << 16;
+    // every STARVATION_PERIOD-th request of the STARVATION pattern is a trip down, the others are trips up of at most
+    // STARVATION_TRIP_FLOORS floors
+    private static final int STARVATION_PERIOD = 8;
+    private static final int STARVATION_TRIP_FLOORS = 3;
+
+    private final int[] currentFloors = new int[SIZE];
+    private final int[] directions = new int[SIZE];
+    private final int[] destinationFloors = new int[SIZE];
+    private int next = 0;
+
+    // reused by pickupNextBatch
+    private int[] batchCurrentFloors = new int[0];
+    private int[] batchDirections = new int[0];
+    private int[] batchDestinationFloors = new int[0];
+
+    /**
+     * @param trafficPattern - pattern of the generated requests
+     * @param floors         - number of floors [minimum 2]
+     * @param seed           - seed of the generated sequence
+     */
+    public Traffic(TrafficPattern trafficPattern, int floors, long seed) {
+        Random random = new Random(seed);
+
+        for (int i = 0; i < SIZE; i++) {
+            int currentFloor;
+            int destinationFloor;
+
+            switch (trafficPattern) {
+                case UP_PEAK -> {
+                    currentFloor = 0;
+                    destinationFloor = 1 + random.nextInt(floors - 1);
+                }
+                case DOWN_PEAK -> {
+                    currentFloor = 1 + random.nextInt(floors - 1);
+                    destinationFloor = 0;
+                }
+                case STARVATION -> {
+                    if (i % STARVATION_PERIOD == 0) {
+                        currentFloor = 1 + random.nextInt(floors - 1);
+                        destinationFloor = random.nextInt(currentFloor);
+                    } else {
+                        currentFloor = i % (floors - 1);
+                        destinationFloor = currentFloor + 1
+                                + random.nextInt(Math.min(STARVATION_TRIP_FLOORS, floors - 1 - currentFloor));
+                    }
+                }
+                default -> {
+                    currentFloor = random.nextInt(floors);
+                    destinationFloor = (currentFloor + 1 + random.nextInt(floors - 1)) % floors;
+                }
+            }
+
+            currentFloors[i] = currentFloor;
+            directions[i] = Integer.signum(destinationFloor - currentFloor);
+            destinationFloors[i] = destinationFloor;
+        }
+    }
+
+    /**
+     * Sends the next request of the sequence to the elevator system
+     * @param elevatorSystem - elevator system handling the request
+     */
+    public void pickupNext(IElevatorSystem elevatorSystem) {
+        int i = next;
+        next = (i + 1) & (SIZE - 1);
+        elevatorSystem.pickup(currentFloors[i], directions[i], destinationFloors[i]);
+    }
+
+    /**
+     * Sends the next batchSize requests of the sequence to the elevator system as one batch
+     * @param elevatorSystem - elevator system handling the requests
+     * @param batchSize      - number of requests in the batch
+     */
+    public void pickupNextBatch(IElevatorSystem elevatorSystem, int batchSize) {
+        if (batchCurrentFloors.length != batchSize) {
+            batchCurrentFloors = new int[batchSize];
+            batchDirections = new int[batchSize];
+            batchDestinationFloors = new int[batchSize];
+        }
+
+        for (int b = 0; b < batchSize; b++) {
+            int i = next;
+            next = (i + 1) & (SIZE - 1);
+            batchCurrentFloors[b] = currentFloors[i];
+            batchDirections[b] = directions[i];
+            batchDestinationFloors[b] = destinationFloors[i];
+        }
+
+        elevatorSystem.pickupBatch(batchCurrentFloors, batchDirections, batchDestinationFloors);
+    }
+
+    /**
+     * Makes every elevator busy going up to the top floor and then sends pickup requests down to the ground floor,
+     * which none of the elevators can handle, so they are all queued up as pending pickups
+     *
+     * @param elevatorSystem    - elevator system with all elevators idle on the ground floor
+     * @param elevators         - number of elevators in the system
+     * @param floors            - number of floors
+     * @param pendingPickups    - number of pending pickups to be queued up
+     * @param seed              - seed of the generated requests
+     */
+    public static void queueUpPendingPickups(IElevatorSystem elevatorSystem, int elevators, int floors,
+                                             int pendingPickups, long seed) {
+        if (pendingPickups == 0) return;
+
+        for (int elevatorId = 0; elevatorId < elevators; elevatorId++) {
+            elevatorSystem.update(elevatorId, 0, floors - 1);
+        }
+
+        Random random = new Random(seed);
+        for (int i = 0; i < pendingPickups; i++) {
+            elevatorSystem.pickup(1 + random.nextInt(floors - 1), -1, 0);
+        }
+    }
+}
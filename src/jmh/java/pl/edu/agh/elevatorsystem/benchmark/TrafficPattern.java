@@ -0,0 +1,16 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+/**
+ * Kinds of traffic generated for the benchmarks
+ */
+public enum TrafficPattern {
+    // everyone enters on the ground floor and goes up
+    UP_PEAK,
+    // everyone leaves to the ground floor
+    DOWN_PEAK,
+    // random trips between floors
+    INTERFLOOR,
+    // sustained stream of short trips up called from every floor in turn, one floor higher with every request, so the
+    // calls keep coming on the way of the elevators going up, and every 8th request is a trip down
+    STARVATION
+}
@@ -0,0 +1,94 @@
+package pl.edu.agh.elevatorsystem.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.ClosestElevatorDispatchStrategy;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.EtaDispatchStrategy;
+import pl.edu.agh.elevatorsystem.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wait times of the MyElevatorSystem pickup requests under sustained traffic, with and without the elevators reserved
+ * for the starving requests, for the closest elevator and the ETA dispatch strategies. Every invocation simulates
+ * TICKS ticks with a pickup request sent every ticksPerPickup ticks, and reports the p50, p99 and max wait (in ticks)
+ * of the delivered requests and the number of requests still pending as the auxiliary counters, the time of the
+ * invocation being only a side result.
+ *
+ * starvationThreshold = 0 disables the reservations. The STARVATION traffic keeps the elevators going up with the
+ * calls on their way while the calls down wait, the case the reservations are meant for. With ticksPerPickup = 1 the
+ * calls come as fast as the elevators move, and the taller building makes the sweeps up longer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WaitTimeBenchmark {
+
+    private static final long SEED = 42;
+    private static final int TICKS = 100_000;
+
+    @Param({"4", "16"})
+    private int elevators;
+
+    @Param({"16", "64"})
+    private int floors;
+
+    @Param({"UP_PEAK", "INTERFLOOR", "STARVATION"})
+    private TrafficPattern trafficPattern;
+
+    @Param({"1", "3", "5"})
+    private int ticksPerPickup;
+
+    @Param({"0", "20", "100"})
+    private long starvationThreshold;
+
+    @Param({"CLOSEST", "ETA"})
+    private String dispatchStrategy;
+
+    private MyElevatorSystem elevatorSystem;
+    private Traffic traffic;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WaitTimes {
+        public long waitP50;
+        public long waitP99;
+        public long waitMax;
+        public long pending;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            waitP50 = 0;
+            waitP99 = 0;
+            waitMax = 0;
+            pending = 0;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        elevatorSystem = new MyElevatorSystem(elevators, null, dispatchStrategy.equals("ETA")
+                ? new EtaDispatchStrategy() : new ClosestElevatorDispatchStrategy());
+        elevatorSystem.setStarvationThreshold(starvationThreshold);
+        traffic = new Traffic(trafficPattern, floors, SEED);
+    }
+
+    @Benchmark
+    public void sustainedTraffic(WaitTimes waitTimes) {
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick % ticksPerPickup == 0) {
+                traffic.pickupNext(elevatorSystem);
+            }
+            elevatorSystem.step();
+        }
+
+        LatencyHistogram histogram = elevatorSystem.getLatencyMetrics().getWaitTimes();
+        waitTimes.waitP50 = histogram.getPercentile(50);
+        waitTimes.waitP99 = histogram.getPercentile(99);
+        waitTimes.waitMax = histogram.getPercentile(100);
+        waitTimes.pending = elevatorSystem.getElevatorSystemCounters().getPendingPickups();
+    }
+}
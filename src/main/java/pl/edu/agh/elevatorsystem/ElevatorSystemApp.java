@@ -1,14 +1,29 @@
 package pl.edu.agh.elevatorsystem;
 
+import pl.edu.agh.elevatorsystem.batch.BatchResult;
+import pl.edu.agh.elevatorsystem.batch.BatchRunner;
 import pl.edu.agh.elevatorsystem.elevator_system.IElevatorSystem;
 import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
-
+import pl.edu.agh.elevatorsystem.management.ElevatorSystemMBeans;
+import pl.edu.agh.elevatorsystem.trace.TraceConverter;
+import pl.edu.agh.elevatorsystem.trace.TraceReplayer;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Scanner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Runs the simulation of the elevator system with I/O operations on the CLI
+ *
+ * Started with "--batch [commandsPath | -] [numberOfElevators]" runs the commands from the file (or the standard
+ * input for "-") without the interactive prompt, see BatchRunner, and exits with the BatchResult exit code.
  */
 public class ElevatorSystemApp {
 
@@ -18,7 +33,17 @@ public class ElevatorSystemApp {
     public static final Pattern UPDATE_PATTERN =
             Pattern.compile("(update)\\s+([1][0-6]|[0-9])\\s+([0]|[1-9]+[0-9]*)\\s+([0]|[1-9]+[0-9]*)");
 
+    public static final Pattern CONVERT_PATTERN = Pattern.compile("(convert)\\s+(\\S+)\\s+(\\S+)");
+
+    public static final Pattern REPLAY_PATTERN = Pattern.compile("(replay)\\s+(\\S+)");
+
+    public static final String BATCH_OPTION = "--batch";
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(BATCH_OPTION)) {
+            System.exit(runBatch(args));
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         System.out.println("Elevator system simulation");
@@ -27,6 +52,12 @@ public class ElevatorSystemApp {
         int numberOfElevators = scanner.nextInt();
         IElevatorSystem IElevatorSystem = new MyElevatorSystem(numberOfElevators);
 
+        try {
+            ElevatorSystemMBeans.register(IElevatorSystem, "ElevatorSystemApp");
+        } catch (JMException e) {
+            System.out.println("Could not register the elevator system MBeans: " + e.getMessage());
+        }
+
         scanner.nextLine();
 
         printHelp();
@@ -44,12 +75,49 @@ public class ElevatorSystemApp {
                 case "update" -> updateElevatorIfInputValid(line, IElevatorSystem);
                 case "step" -> IElevatorSystem.step();
                 case "status" -> IElevatorSystem.status();
+                case "metrics" -> {
+                    System.out.print(IElevatorSystem.getLatencyMetrics());
+                    System.out.print(IElevatorSystem.getStepPhaseCounters());
+                }
+                case "convert" -> convertTraceIfInputValid(line);
+                case "replay" -> replayTraceIfInputValid(line, IElevatorSystem);
                 case "quit" -> keepLooping = false;
                 default -> System.out.println("Invalid input");
             }
         }
     }
 
+    /**
+     * Runs the commands in the batch mode and prints the buffered output once they are done
+     * @param args - program arguments: BATCH_OPTION, path of the file with the commands or "-" for the standard input
+     *             and the number of elevators
+     * @return exit code of the batch
+     */
+    public static int runBatch(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: " + BATCH_OPTION + " [commandsPath | -] [numberOfElevators]");
+            return BatchResult.EXIT_INVALID_INPUT;
+        }
+
+        int numberOfElevators;
+        try {
+            numberOfElevators = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of elevators: " + args[2]);
+            return BatchResult.EXIT_INVALID_INPUT;
+        }
+
+        IElevatorSystem elevatorSystem = new MyElevatorSystem(numberOfElevators);
+
+        try (ReadableByteChannel input = args[1].equals("-") ? Channels.newChannel(System.in)
+                : FileChannel.open(Path.of(args[1]), StandardOpenOption.READ)) {
+            return BatchRunner.run(input, elevatorSystem, System.out).getExitCode();
+        } catch (IOException e) {
+            System.out.println("Could not run the batch: " + e.getMessage());
+            return BatchResult.EXIT_IO_ERROR;
+        }
+    }
+
     public static void printHelp() {
         String help = """
                 help -> shows commands list
@@ -59,6 +127,11 @@ public class ElevatorSystemApp {
                     immediately updates status of elevator with chosen elevatorId
                 step -> performs one step of the simulation
                 status -> shows list of elevators with their status
+                metrics -> shows p50, p90, p99 and max of the wait and ride times of the delivered requests and
+                    the time spent in every phase of the simulation step
+                convert [textTracePath] [binaryTracePath] ->
+                    converts the file with the commands above into the binary trace
+                replay [binaryTracePath] -> replays the binary trace on the elevator system
                 quit -> ends the simulation
                 """;
 
@@ -102,4 +175,44 @@ public class ElevatorSystemApp {
             System.out.println("Invalid input");
         }
     }
+
+    /**
+     * Validates the convert request and converts the text trace into the binary one if it's correct
+     * @param inputLine - input line from the user where the first word is "convert"
+     */
+    public static void convertTraceIfInputValid(String inputLine) {
+        Matcher matcher = CONVERT_PATTERN.matcher(inputLine);
+
+        if (matcher.find()) {
+            try {
+                long records = TraceConverter.convert(Path.of(matcher.group(2)), Path.of(matcher.group(3)),
+                        System.out);
+                System.out.println("Converted " + records + " records");
+            } catch (IOException e) {
+                System.out.println("Could not convert the trace: " + e.getMessage());
+            }
+        } else {
+            System.out.println("Invalid input");
+        }
+    }
+
+    /**
+     * Validates the replay request and replays the binary trace if it's correct
+     * @param inputLine      - input line from the user where the first word is "replay"
+     * @param elevatorSystem - elevatorSystem that the trace is replayed on
+     */
+    public static void replayTraceIfInputValid(String inputLine, IElevatorSystem elevatorSystem) {
+        Matcher matcher = REPLAY_PATTERN.matcher(inputLine);
+
+        if (matcher.find()) {
+            try {
+                long records = TraceReplayer.replay(Path.of(matcher.group(2)), elevatorSystem);
+                System.out.println("Replayed " + records + " records");
+            } catch (IOException e) {
+                System.out.println("Could not replay the trace: " + e.getMessage());
+            }
+        } else {
+            System.out.println("Invalid input");
+        }
+    }
 }
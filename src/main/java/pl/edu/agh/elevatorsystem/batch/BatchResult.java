@@ -0,0 +1,133 @@
+package pl.edu.agh.elevatorsystem.batch;
+
+import pl.edu.agh.elevatorsystem.elevator_system.PickupResult;
+import pl.edu.agh.elevatorsystem.elevator_system.UpdateResult;
+
+import java.util.Arrays;
+
+/**
+ * Summary of the batch run: the number of commands executed, the results of the pickup and update requests and the
+ * invalid lines, which are collected here instead of being printed one by one. Only the first MAX_REPORTED_LINES invalid line
+ * numbers are kept, the rest are only counted.
+ */
+public class BatchResult {
+
+    public static final int EXIT_SUCCESS = 0;
+    public static final int EXIT_INVALID_INPUT = 1;
+    public static final int EXIT_IO_ERROR = 2;
+
+    public static final int MAX_REPORTED_LINES = 100;
+
+    private static final PickupResult[] PICKUP_RESULTS = PickupResult.values();
+    private static final UpdateResult[] UPDATE_RESULTS = UpdateResult.values();
+
+    private long lines = 0;
+    private long commands = 0;
+    private long invalidLines = 0;
+    private boolean quit = false;
+    private final long[] pickupResults = new long[PICKUP_RESULTS.length];
+    private final long[] updateResults = new long[UPDATE_RESULTS.length];
+    private final long[] reportedInvalidLines = new long[MAX_REPORTED_LINES];
+
+    void line() {
+        lines++;
+    }
+
+    void command() {
+        commands++;
+    }
+
+    void pickup(PickupResult pickupResult) {
+        pickupResults[pickupResult.ordinal()]++;
+    }
+
+    void update(UpdateResult updateResult) {
+        updateResults[updateResult.ordinal()]++;
+    }
+
+    void quit() {
+        quit = true;
+    }
+
+    /**
+     * @param line - number of the invalid line, starting from 1
+     */
+    void invalidLine(long line) {
+        if (invalidLines < MAX_REPORTED_LINES) {
+            reportedInvalidLines[(int) invalidLines] = line;
+        }
+        invalidLines++;
+    }
+
+    /**
+     * @return EXIT_SUCCESS if every line was valid, EXIT_INVALID_INPUT otherwise
+     */
+    public int getExitCode() {
+        return invalidLines == 0 ? EXIT_SUCCESS : EXIT_INVALID_INPUT;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public long getInvalidLines() {
+        return invalidLines;
+    }
+
+    /**
+     * @return numbers of the first MAX_REPORTED_LINES invalid lines
+     */
+    public long[] getReportedInvalidLines() {
+        return Arrays.copyOf(reportedInvalidLines, (int) Math.min(invalidLines, MAX_REPORTED_LINES));
+    }
+
+    public long getPickups(PickupResult pickupResult) {
+        return pickupResults[pickupResult.ordinal()];
+    }
+
+    public long getUpdates(UpdateResult updateResult) {
+        return updateResults[updateResult.ordinal()];
+    }
+
+    /**
+     * @return true if the batch was ended with the quit command before the end of the input
+     */
+    public boolean isQuit() {
+        return quit;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Executed ").append(commands).append(" commands from ").append(lines).append(" lines\n");
+        summary.append("Pickup requests:");
+
+        for (PickupResult pickupResult : PICKUP_RESULTS) {
+            summary.append(' ').append(pickupResult).append('=').append(pickupResults[pickupResult.ordinal()]);
+        }
+        summary.append('\n');
+        summary.append("Update requests:");
+
+        for (UpdateResult updateResult : UPDATE_RESULTS) {
+            summary.append(' ').append(updateResult).append('=').append(updateResults[updateResult.ordinal()]);
+        }
+        summary.append('\n');
+
+        if (invalidLines > 0) {
+            summary.append("Invalid input in ").append(invalidLines).append(" lines:");
+            for (long line : getReportedInvalidLines()) {
+                summary.append(' ').append(line);
+            }
+            if (invalidLines > MAX_REPORTED_LINES) {
+                summary.append(" ...");
+            }
+            summary.append('\n');
+        }
+
+        return summary.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package pl.edu.agh.elevatorsystem.batch;
+
+import pl.edu.agh.elevatorsystem.elevator_system.IElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.PickupResult;
+import pl.edu.agh.elevatorsystem.elevator_system.UpdateResult;
+import pl.edu.agh.elevatorsystem.event.ConsoleEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static pl.edu.agh.elevatorsystem.batch.CommandParser.*;
+
+/**
+ * Runs the commands of the ElevatorSystemApp text syntax (one per line) on the elevator system without any console
+ * I/O per command
+ *
+ * The input is read through a large buffer and every line is parsed straight from its bytes by the CommandParser.
+ * Invalid lines are collected in the BatchResult instead of being printed. Everything that would be printed during
+ * the run, the output of the status and metrics commands and the diagnostics of the elevator system included, is
+ * buffered and written to the output once, after the summary of the run.
+ *
+ * For the duration of the run the elevator system reports its events to a ConsoleEventSink printing the diagnostics
+ * to the buffered output, which passes the events on to the sink the elevator system had, unless it was the
+ * ElevatorEventSink.CONSOLE. System.out is left untouched. The help command is ignored, the convert and replay
+ * commands are invalid lines and the quit command ends the run before the end of the input.
+ */
+public final class BatchRunner {
+
+    private BatchRunner() { }
+
+    // lines longer than the buffer are invalid
+    static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * @param input          - channel with the commands, e.g. a FileChannel or Channels.newChannel(System.in)
+     * @param elevatorSystem - elevator system that the commands are run on
+     * @param output         - stream that the buffered output is written to at the end of the run
+     * @return summary of the run
+     * @throws IOException if the input could not be read or the output could not be written
+     */
+    public static BatchResult run(ReadableByteChannel input, IElevatorSystem elevatorSystem, OutputStream output)
+            throws IOException {
+        ByteArrayOutputStream bufferedOutput = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bufferedOutput, false, StandardCharsets.UTF_8);
+        BatchResult result = new BatchResult();
+
+        ElevatorEventSink eventSink = elevatorSystem.getEventSink();
+        ElevatorEventSink bufferingSink = new ConsoleEventSink(out);
+        elevatorSystem.setEventSink(eventSink == ElevatorEventSink.CONSOLE ? bufferingSink
+                : (type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) -> {
+                    bufferingSink.onEvent(type, tick, elevatorId, firstArgument, secondArgument, thirdArgument);
+                    eventSink.onEvent(type, tick, elevatorId, firstArgument, secondArgument, thirdArgument);
+                });
+        try {
+            runCommands(input, elevatorSystem, out, result);
+        } finally {
+            elevatorSystem.setEventSink(eventSink);
+        }
+
+        out.print(result);
+        out.flush();
+        bufferedOutput.writeTo(output);
+        output.flush();
+
+        return result;
+    }
+
+    private static void runCommands(ReadableByteChannel input, IElevatorSystem elevatorSystem, PrintStream out,
+                                    BatchResult result) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CommandParser parser = new CommandParser();
+        boolean endOfInput = false;
+        boolean skippingLongLine = false;
+
+        while (!endOfInput) {
+            endOfInput = input.read(buffer) < 0;
+
+            int end = buffer.position();
+            int lineStart = 0;
+
+            for (int i = 0; i < end; i++) {
+                if (buffer.get(i) != '\n') continue;
+
+                if (skippingLongLine) {
+                    skippingLongLine = false;
+                } else if (!runLine(buffer, lineStart, i, parser, elevatorSystem, out, result)) {
+                    return;
+                }
+                lineStart = i + 1;
+            }
+
+            if (endOfInput) {
+                if (lineStart < end && !skippingLongLine) {
+                    runLine(buffer, lineStart, end, parser, elevatorSystem, out, result);
+                }
+            } else if (lineStart == 0 && end == buffer.capacity()) {
+                // the whole buffer is a part of one line, which is invalid, the rest of it is skipped
+                if (!skippingLongLine) {
+                    result.line();
+                    result.invalidLine(result.getLines());
+                    skippingLongLine = true;
+                }
+                buffer.clear();
+            } else {
+                buffer.limit(end).position(lineStart);
+                buffer.compact();
+            }
+        }
+    }
+
+    /**
+     * @return false if the line is the quit command
+     */
+    private static boolean runLine(ByteBuffer buffer, int start, int end, CommandParser parser,
+                                   IElevatorSystem elevatorSystem, PrintStream out, BatchResult result) {
+        result.line();
+        int command = parser.parse(buffer, start, end);
+
+        if (command == INVALID) {
+            result.invalidLine(result.getLines());
+            return true;
+        }
+        if (command == EMPTY) return true;
+
+        result.command();
+
+        switch (command) {
+            case PICKUP -> {
+                PickupResult pickupResult = elevatorSystem.pickup(parser.getArgument(0), parser.getArgument(1),
+                        parser.getArgument(2));
+                result.pickup(pickupResult);
+
+                if (pickupResult == PickupResult.INVALID) {
+                    result.invalidLine(result.getLines());
+                }
+            }
+            case UPDATE -> {
+                UpdateResult updateResult = elevatorSystem.update(parser.getArgument(0), parser.getArgument(1),
+                        parser.getArgument(2));
+                result.update(updateResult);
+
+                if (!updateResult.isUpdated()) {
+                    result.invalidLine(result.getLines());
+                }
+            }
+            case STEP -> elevatorSystem.step();
+            case STATUS -> elevatorSystem.status(out);
+            case METRICS -> {
+                out.print(elevatorSystem.getLatencyMetrics());
+                out.print(elevatorSystem.getStepPhaseCounters());
+            }
+            case QUIT -> {
+                result.quit();
+                return false;
+            }
+            // the traces are only converted and replayed by the interactive mode
+            case CONVERT, REPLAY -> result.invalidLine(result.getLines());
+            default -> { }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package pl.edu.agh.elevatorsystem.batch;
+
+import pl.edu.agh.elevatorsystem.trace.TraceFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the commands of the ElevatorSystemApp text syntax straight from the bytes of a buffer
+ *
+ * Every line is parsed in place, without being decoded into a String, split or matched against the regular
+ * expressions of the interactive mode. Command words are case-insensitive and the words of a line are separated by
+ * spaces or tabs. Empty lines and lines starting with '#' are skipped. The parsed command and its arguments are kept
+ * in the parser until the next line is parsed, so parsing does not allocate anything.
+ */
+public class CommandParser {
+
+    public static final int INVALID = 0;
+    public static final int PICKUP = TraceFormat.PICKUP;
+    public static final int UPDATE = TraceFormat.UPDATE;
+    public static final int STEP = TraceFormat.STEP;
+    public static final int STATUS = 4;
+    public static final int METRICS = 5;
+    public static final int HELP = 6;
+    public static final int QUIT = 7;
+    public static final int EMPTY = 8;
+    public static final int CONVERT = 9;
+    public static final int REPLAY = 10;
+
+    private static final int ARGUMENTS = 3;
+    // longer numbers could overflow an int, no floor or elevatorId is that large
+    private static final int MAX_DIGITS = 9;
+
+    private static final byte[] PICKUP_WORD = word("pickup");
+    private static final byte[] UPDATE_WORD = word("update");
+    private static final byte[] STEP_WORD = word("step");
+    private static final byte[] STATUS_WORD = word("status");
+    private static final byte[] METRICS_WORD = word("metrics");
+    private static final byte[] HELP_WORD = word("help");
+    private static final byte[] QUIT_WORD = word("quit");
+    private static final byte[] CONVERT_WORD = word("convert");
+    private static final byte[] REPLAY_WORD = word("replay");
+
+    private final int[] arguments = new int[ARGUMENTS];
+    private int position;
+
+    /**
+     * @param buffer - buffer with the line, read with absolute gets, so its position and limit are not changed
+     * @param start  - index of the first byte of the line
+     * @param end    - index after the last byte of the line, without the line separator
+     * @return parsed command: PICKUP, UPDATE, STEP, STATUS, METRICS, HELP, QUIT, CONVERT, REPLAY, EMPTY or INVALID,
+     * the paths of CONVERT and REPLAY are only checked to be there
+     */
+    public int parse(ByteBuffer buffer, int start, int end) {
+        position = start;
+        skipBlanks(buffer, end);
+        if (position == end || buffer.get(position) == '#') return EMPTY;
+
+        int wordStart = position;
+        skipWord(buffer, end);
+
+        int command = command(buffer, wordStart, position);
+        int expectedArguments = command == PICKUP || command == UPDATE ? ARGUMENTS : 0;
+
+        for (int argument = 0; argument < expectedArguments; argument++) {
+            skipBlanks(buffer, end);
+            if (!parseArgument(buffer, end, argument)) return INVALID;
+        }
+
+        int expectedPaths = command == CONVERT ? 2 : command == REPLAY ? 1 : 0;
+
+        for (int path = 0; path < expectedPaths; path++) {
+            skipBlanks(buffer, end);
+            if (!skipWord(buffer, end)) return INVALID;
+        }
+
+        skipBlanks(buffer, end);
+        return position == end ? command : INVALID;
+    }
+
+    /**
+     * @param argument - index of the argument [0, 2]
+     * @return argument of the last parsed PICKUP or UPDATE command, in the order of the text syntax
+     */
+    public int getArgument(int argument) {
+        return arguments[argument];
+    }
+
+    private int command(ByteBuffer buffer, int start, int end) {
+        if (matches(buffer, start, end, PICKUP_WORD)) return PICKUP;
+        if (matches(buffer, start, end, UPDATE_WORD)) return UPDATE;
+        if (matches(buffer, start, end, STEP_WORD)) return STEP;
+        if (matches(buffer, start, end, STATUS_WORD)) return STATUS;
+        if (matches(buffer, start, end, METRICS_WORD)) return METRICS;
+        if (matches(buffer, start, end, HELP_WORD)) return HELP;
+        if (matches(buffer, start, end, QUIT_WORD)) return QUIT;
+        if (matches(buffer, start, end, CONVERT_WORD)) return CONVERT;
+        if (matches(buffer, start, end, REPLAY_WORD)) return REPLAY;
+        return INVALID;
+    }
+
+    /**
+     * Parses an optionally negative decimal number ending with a blank or the end of the line
+     * @return true if the number is valid
+     */
+    private boolean parseArgument(ByteBuffer buffer, int end, int argument) {
+        boolean negative = position < end && buffer.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+
+        int digitsStart = position;
+        int value = 0;
+
+        while (position < end && !isBlank(buffer.get(position))) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9 || position - digitsStart == MAX_DIGITS) return false;
+
+            value = value * 10 + digit;
+            position++;
+        }
+
+        arguments[argument] = negative ? -value : value;
+        return position > digitsStart;
+    }
+
+    /**
+     * @return true if there was a word to skip
+     */
+    private boolean skipWord(ByteBuffer buffer, int end) {
+        int wordStart = position;
+        while (position < end && !isBlank(buffer.get(position))) {
+            position++;
+        }
+        return position > wordStart;
+    }
+
+    private void skipBlanks(ByteBuffer buffer, int end) {
+        while (position < end && isBlank(buffer.get(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, byte[] word) {
+        if (end - start != word.length) return false;
+
+        for (int i = 0; i < word.length; i++) {
+            // ASCII letters differ from their upper case only by the 0x20 bit
+            if ((buffer.get(start + i) | 0x20) != word[i]) return false;
+        }
+        return true;
+    }
+
+    private static byte[] word(String word) {
+        return word.getBytes(StandardCharsets.US_ASCII);
+    }
+}
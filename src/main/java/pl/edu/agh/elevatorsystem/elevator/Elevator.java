@@ -1,8 +1,14 @@
 package pl.edu.agh.elevatorsystem.elevator;
 
+import pl.edu.agh.elevatorsystem.elevator_system.PickupResult;
+import pl.edu.agh.elevatorsystem.elevator_system.UpdateResult;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PackedPickupRequest;
 import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PickupRequest;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
@@ -10,15 +16,47 @@ import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
 /**
  * Representation of the elevator used in the elevator system
  * It is elevator system's responsibility to update elevator's status and direction after every step and pickup request
+ *
+ * Pickup requests are packed into longs (see PackedPickupRequest) and kept in the pickupRequests array in the order
+ * they were added, together with the ticks on which they were assigned and boarded. PickupRequest objects are only
+ * created by the getPickupRequests view and taken by the handlePickupRequest(PickupRequest, long) wrapper.
+ *
+ * Besides the pickupRequests array, the elevator keeps its stops as floor bitsets (one bit per floor, MAX_FLOORS bits
+ * in long words): car calls are destination floors of the people in the elevator, hall calls are floors of the people
+ * waiting for the elevator, both split by the request direction. Every request on a given floor is boarded or
+ * delivered at once, so the bits can be cleared per floor without counting the requests. The number of floors with
+ * any stop is counted as the bits are set and cleared, for the dispatch strategies scoring the elevators.
+ *
+ * Requests delivered during a step made with the simulation tick are kept in the deliveredPickupRequests array,
+ * together with their boarded ticks, until the elevator system records their latencies.
+ *
+ * Every stop and every boarded and delivered request is reported to the eventSink. Invalid update and pickup
+ * requests are only reported by the returned result codes, the elevator system reports them to its sink.
  */
 public class Elevator {
 
     public static final int IDLE = -1;
 
+    private static final int STOP_WORDS = (MAX_FLOORS + Long.SIZE - 1) / Long.SIZE;
+
     private final ElevatorStatus elevatorStatus;
     // elevator is idle after being created
     private Direction direction = Direction.IDLE;
-    private final List<PickupRequest> pickupRequests = new ArrayList<>();
+    private long[] pickupRequests = new long[8];
+    private long[] assignedTicks = new long[8];
+    private long[] boardedTicks = new long[8];
+    private int numberOfPickupRequests = 0;
+    private long[] deliveredPickupRequests = new long[8];
+    private long[] deliveredBoardedTicks = new long[8];
+    private int numberOfDeliveredPickupRequests = 0;
+
+    private final long[] upCarCalls = new long[STOP_WORDS];
+    private final long[] downCarCalls = new long[STOP_WORDS];
+    private final long[] upHallCalls = new long[STOP_WORDS];
+    private final long[] downHallCalls = new long[STOP_WORDS];
+    private int numberOfStops = 0;
+
+    private ElevatorEventSink eventSink = ElevatorEventSink.NONE;
 
     public Elevator(int elevatorId) {
         this(elevatorId, 0);
@@ -44,39 +82,105 @@ public class Elevator {
      * requests (handleFulfilledPickupRequests method), checks if there are any requests on the current floor that the
      * elevator needs to handle (handlePendingPickupRequests method) and then updates direction and destination floor
      * of the elevator
+     *
+     * Pickup requests are not stamped with the simulation tick, see makeStep(long)
      */
     public void makeStep() {
+        makeStep(PickupRequest.NO_TICK);
+    }
+
+    /**
+     * Performs elevator step on elevator system simulation step, stamping the boarded and delivered pickup requests
+     * with the given tick
+     *
+     * @param tick - simulation tick that the step is made on
+     */
+    public void makeStep(long tick) {
         if (direction.equals(Direction.IDLE)) return;
         elevatorStatus.movedOneFloor(direction);
-        handleFulfilledPickupRequests();
-        handlePendingPickupRequests();
+
+        // the pickupRequests array is checked only on the floors on which anyone leaves or enters the elevator
+        int currentFloor = elevatorStatus.getCurrentFloor();
+        boolean fulfilled = hasStop(upCarCalls, currentFloor) || hasStop(downCarCalls, currentFloor);
+        boolean pending = hasStop(upHallCalls, currentFloor) || hasStop(downHallCalls, currentFloor);
+        if (fulfilled || pending) {
+            eventSink.onEvent(ElevatorEventType.ARRIVED, tick, elevatorStatus.getElevatorId(), currentFloor, 0, 0);
+        }
+
+        if (fulfilled) {
+            handleFulfilledPickupRequests(tick);
+        }
+        if (pending) {
+            handlePendingPickupRequests(tick);
+        }
     }
 
     /**
-     * Removes pickup request from pickupRequests list if the person that called that request is in the elevator and
+     * Removes pickup request from pickupRequests array if the person that called that request is in the elevator and
      * the destination floor of the request equals the current floor that the elevator is on
+     *
+     * @param tick - simulation tick that the requests are delivered on
      */
-    private void handleFulfilledPickupRequests() {
+    private void handleFulfilledPickupRequests(long tick) {
         int currentElevatorFloor = elevatorStatus.getCurrentFloor();
+        int keptPickupRequests = 0;
+
+        for (int i = 0; i < numberOfPickupRequests; i++) {
+            long request = pickupRequests[i];
 
-        pickupRequests
-                .removeIf(pickupRequest -> pickupRequest.getDestinationFloor() == currentElevatorFloor
-                                            && pickupRequest.isInElevator());
+            if (PackedPickupRequest.destinationFloor(request) != currentElevatorFloor
+                    || !PackedPickupRequest.isInElevator(request)) {
+                assignedTicks[keptPickupRequests] = assignedTicks[i];
+                boardedTicks[keptPickupRequests] = boardedTicks[i];
+                pickupRequests[keptPickupRequests++] = request;
+                continue;
+            }
+
+            if (tick != PickupRequest.NO_TICK && PackedPickupRequest.createdTick(request) != PickupRequest.NO_TICK) {
+                addDeliveredPickupRequest(request, boardedTicks[i]);
+            }
+            reportEvent(ElevatorEventType.DELIVERED, tick, request);
+        }
+
+        numberOfPickupRequests = keptPickupRequests;
+
+        clearStops(upCarCalls, downCarCalls, currentElevatorFloor);
     }
 
     /**
-     * Checks pickupRequests list and takes people that requested the pickup from the current floor
+     * Checks pickupRequests array and takes people that requested the pickup from the current floor
      * that the elevator is on
      */
-    private void handlePendingPickupRequests() {
+    private void handlePendingPickupRequests(long tick) {
         int currentElevatorFloor = elevatorStatus.getCurrentFloor();
 
-        pickupRequests
-                .forEach(pickupRequest -> {
-                    if (!pickupRequest.isInElevator() && pickupRequest.getCurrentFloor() == currentElevatorFloor) {
-                        pickupRequest.setInElevator(true);
-                    }
-                });
+        for (int i = 0; i < numberOfPickupRequests; i++) {
+            long request = pickupRequests[i];
+            if (!PackedPickupRequest.isInElevator(request)
+                    && PackedPickupRequest.currentFloor(request) == currentElevatorFloor) {
+                boardPickupRequest(i, tick);
+            }
+        }
+
+        clearStops(upHallCalls, downHallCalls, currentElevatorFloor);
+    }
+
+    /**
+     * Takes the person that requested the pickup into the elevator and turns its hall call into a car call
+     * @param index - index of the pickup request called from the current floor of the elevator
+     * @param tick  - simulation tick that the person enters the elevator on
+     */
+    private void boardPickupRequest(int index, long tick) {
+        long request = PackedPickupRequest.boarded(pickupRequests[index]);
+        pickupRequests[index] = request;
+        boardedTicks[index] = tick;
+        addStop(carCalls(PackedPickupRequest.direction(request)), PackedPickupRequest.destinationFloor(request));
+        reportEvent(ElevatorEventType.BOARDED, tick, request);
+    }
+
+    private void reportEvent(ElevatorEventType type, long tick, long request) {
+        eventSink.onEvent(type, tick, elevatorStatus.getElevatorId(), PackedPickupRequest.currentFloor(request),
+                PackedPickupRequest.direction(request).intValue(), PackedPickupRequest.destinationFloor(request));
     }
 
     /**
@@ -87,16 +191,15 @@ public class Elevator {
      *
      * @param currentFloor      - floor that should be set to the currentFloor field of the elevatorStatus
      * @param destinationFloor  - floor that should be set to the destinationFloor field of the elevatorStatus
+     * @return UPDATED, INVALID_FLOOR or OCCUPIED
      */
-    public void updateStatus(int currentFloor, int destinationFloor) {
+    public UpdateResult updateStatus(int currentFloor, int destinationFloor) {
         if (currentFloor >= MAX_FLOORS || destinationFloor >= MAX_FLOORS || currentFloor < 0 || destinationFloor < 0) {
-            System.out.println("Invalid update request: currentFloor and destinationFloor must be in range [0, MAX_FLOOR - 1]");
-            return;
+            return UpdateResult.INVALID_FLOOR;
         }
 
-        if (!pickupRequests.isEmpty()) {
-            System.out.println("Can't update the elevator that is currently occupied!");
-            return;
+        if (numberOfPickupRequests > 0) {
+            return UpdateResult.OCCUPIED;
         }
 
         elevatorStatus.setCurrentFloor(currentFloor);
@@ -104,8 +207,11 @@ public class Elevator {
         if (currentFloor != destinationFloor) {
             elevatorStatus.setDestinationFloor(destinationFloor);
             direction = evaluateCurrentDirection();
-            pickupRequests.add(new PickupRequest(currentFloor, direction, destinationFloor, true));
+            addPickupRequest(PackedPickupRequest.pack(currentFloor, direction, destinationFloor, true,
+                    PickupRequest.NO_TICK), PickupRequest.NO_TICK, PickupRequest.NO_TICK);
+            addStop(carCalls(direction), destinationFloor);
         }
+        return UpdateResult.UPDATED;
     }
 
     /**
@@ -119,22 +225,197 @@ public class Elevator {
     }
 
     /**
-     * Validates pickup request, then adds it to the pickupRequests list and checks if request was called from the same
-     * floor that the elevator is on -> if true, then take the person calling the request
+     * Validates pickup request and handles it packed, see handlePickupRequest(long, long)
      *
      * @param pickupRequest - pickup request to be handled by this elevator
+     * @param tick          - simulation tick that the request is assigned on or PickupRequest.NO_TICK
+     * @return ASSIGNED or INVALID if the request was not handled
      */
-    public void handlePickupRequest(PickupRequest pickupRequest) {
+    public PickupResult handlePickupRequest(PickupRequest pickupRequest, long tick) {
         if (!pickupRequest.validateRequestFloors(0, MAX_FLOORS - 1) || !pickupRequest.validateRequestDirection()) {
-            System.out.println("Invalid pickup request");
-            return;
+            return PickupResult.INVALID;
         }
 
-        pickupRequests.add(pickupRequest);
+        handlePickupRequest(PackedPickupRequest.pack(pickupRequest), tick);
+        return PickupResult.ASSIGNED;
+    }
 
-        if (pickupRequest.getCurrentFloor() == elevatorStatus.getCurrentFloor()) {
-            pickupRequest.setInElevator(true);
+    /**
+     * Adds the pickup request to the pickupRequests array and checks if request was called from the same floor that
+     * the elevator is on -> if true, then take the person calling the request on the given tick
+     *
+     * @param request - valid packed pickup request to be handled by this elevator, waiting for the elevator
+     * @param tick    - simulation tick that the request is assigned on
+     */
+    public void handlePickupRequest(long request, long tick) {
+        int index = addPickupRequest(request, tick, PickupRequest.NO_TICK);
+        int pickupCurrentFloor = PackedPickupRequest.currentFloor(request);
+
+        if (pickupCurrentFloor == elevatorStatus.getCurrentFloor()) {
+            boardPickupRequest(index, tick);
+        } else {
+            addStop(hallCalls(PackedPickupRequest.direction(request)), pickupCurrentFloor);
+        }
+    }
+
+    /**
+     * @return index that the request was added at
+     */
+    private int addPickupRequest(long request, long assignedTick, long boardedTick) {
+        if (numberOfPickupRequests == pickupRequests.length) {
+            pickupRequests = Arrays.copyOf(pickupRequests, 2 * numberOfPickupRequests);
+            assignedTicks = Arrays.copyOf(assignedTicks, 2 * numberOfPickupRequests);
+            boardedTicks = Arrays.copyOf(boardedTicks, 2 * numberOfPickupRequests);
+        }
+
+        pickupRequests[numberOfPickupRequests] = request;
+        assignedTicks[numberOfPickupRequests] = assignedTick;
+        boardedTicks[numberOfPickupRequests] = boardedTick;
+        return numberOfPickupRequests++;
+    }
+
+    private void addDeliveredPickupRequest(long request, long boardedTick) {
+        if (numberOfDeliveredPickupRequests == deliveredPickupRequests.length) {
+            deliveredPickupRequests = Arrays.copyOf(deliveredPickupRequests, 2 * numberOfDeliveredPickupRequests);
+            deliveredBoardedTicks = Arrays.copyOf(deliveredBoardedTicks, 2 * numberOfDeliveredPickupRequests);
+        }
+
+        deliveredPickupRequests[numberOfDeliveredPickupRequests] = request;
+        deliveredBoardedTicks[numberOfDeliveredPickupRequests++] = boardedTick;
+    }
+
+    /**
+     * @param direction - UP or DOWN
+     * @return true if any of the pickup requests handled by this elevator has the given direction
+     */
+    public boolean hasRequestsInDirection(Direction direction) {
+        long[] carCalls = carCalls(direction);
+        long[] hallCalls = hallCalls(direction);
+
+        for (int word = 0; word < STOP_WORDS; word++) {
+            if ((carCalls[word] | hallCalls[word]) != 0) return true;
         }
+        return false;
+    }
+
+    /**
+     * @param direction - UP or DOWN
+     * @param floor     - floor to be checked
+     * @return true if anyone waiting on the given floor to go in the given direction is to be picked up by this
+     * elevator
+     */
+    public boolean hasHallCall(Direction direction, int floor) {
+        return hasStop(hallCalls(direction), floor);
+    }
+
+    /**
+     * Finds the farthest stop of the requests with the given direction: the highest one for UP and the lowest one
+     * for DOWN. Stops are the destination floors of the requests being handled and the floors from which the requests
+     * that are not yet being handled were called.
+     *
+     * @param direction - UP or DOWN
+     * @return the farthest stop in the given direction or IDLE (-1) if there are no requests in that direction
+     */
+    public int getFarthestStopInDirection(Direction direction) {
+        long[] carCalls = carCalls(direction);
+        long[] hallCalls = hallCalls(direction);
+
+        if (direction.equals(Direction.UP)) {
+            for (int word = STOP_WORDS - 1; word >= 0; word--) {
+                long stops = carCalls[word] | hallCalls[word];
+                if (stops != 0) return word * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(stops);
+            }
+        } else {
+            for (int word = 0; word < STOP_WORDS; word++) {
+                long stops = carCalls[word] | hallCalls[word];
+                if (stops != 0) return word * Long.SIZE + Long.numberOfTrailingZeros(stops);
+            }
+        }
+        return IDLE;
+    }
+
+    /**
+     * Finds the closest floor ahead of the elevator, in its current direction, on which anyone enters or leaves the
+     * elevator. Until the elevator reaches that floor, moving it does not change anything but its current floor.
+     *
+     * @return the closest stop ahead of the elevator or IDLE (-1) if the elevator is idle or has no stops ahead
+     */
+    public int getNextStop() {
+        if (direction.equals(Direction.IDLE)) return IDLE;
+
+        int currentFloor = elevatorStatus.getCurrentFloor();
+
+        if (direction.equals(Direction.UP)) {
+            int floor = currentFloor + 1;
+            if (floor < 0) floor = 0;
+
+            for (int word = floor >>> 6; word < STOP_WORDS; word++) {
+                long stops = allStops(word);
+                if (word == floor >>> 6) stops &= -1L << floor;
+                if (stops != 0) return word * Long.SIZE + Long.numberOfTrailingZeros(stops);
+            }
+        } else {
+            int floor = Math.min(currentFloor - 1, MAX_FLOORS - 1);
+
+            for (int word = floor >> 6; word >= 0; word--) {
+                long stops = allStops(word);
+                if (word == floor >>> 6) stops &= -1L >>> (Long.SIZE - 1 - (floor & (Long.SIZE - 1)));
+                if (stops != 0) return word * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(stops);
+            }
+        }
+        return IDLE;
+    }
+
+    private void addStop(long[] stops, int floor) {
+        if (!isStop(floor)) {
+            numberOfStops++;
+        }
+        setStop(stops, floor);
+    }
+
+    private void clearStops(long[] upStops, long[] downStops, int floor) {
+        boolean wasStop = isStop(floor);
+        clearStop(upStops, floor);
+        clearStop(downStops, floor);
+        if (wasStop && !isStop(floor)) {
+            numberOfStops--;
+        }
+    }
+
+    private boolean isStop(int floor) {
+        return (allStops(floor >>> 6) & 1L << floor) != 0;
+    }
+
+    private long allStops(int word) {
+        return upCarCalls[word] | downCarCalls[word] | upHallCalls[word] | downHallCalls[word];
+    }
+
+    private long[] carCalls(Direction direction) {
+        return direction.equals(Direction.UP) ? upCarCalls : downCarCalls;
+    }
+
+    private long[] hallCalls(Direction direction) {
+        return direction.equals(Direction.UP) ? upHallCalls : downHallCalls;
+    }
+
+    private static boolean hasStop(long[] stops, int floor) {
+        return floor >= 0 && floor < MAX_FLOORS && (stops[floor >>> 6] & 1L << floor) != 0;
+    }
+
+    private static void setStop(long[] stops, int floor) {
+        stops[floor >>> 6] |= 1L << floor;
+    }
+
+    private static void clearStop(long[] stops, int floor) {
+        stops[floor >>> 6] &= ~(1L << floor);
+    }
+
+    /**
+     * @param eventSink - sink that the boarded and delivered requests are reported to, ElevatorEventSink.NONE by
+     *                  default
+     */
+    public void setEventSink(ElevatorEventSink eventSink) {
+        this.eventSink = eventSink;
     }
 
     public ElevatorStatus getElevatorStatus() {
@@ -149,7 +430,62 @@ public class Elevator {
         this.direction = direction;
     }
 
+    /**
+     * @return number of floors that the elevator is going to stop on, to let anyone in or out
+     */
+    public int getNumberOfStops() {
+        return numberOfStops;
+    }
+
+    public int getNumberOfPickupRequests() {
+        return numberOfPickupRequests;
+    }
+
+    /**
+     * @param index - index of the pickup request in range [0, getNumberOfPickupRequests() - 1], in the order they
+     *              were added
+     * @return packed pickup request
+     */
+    public long getPickupRequest(int index) {
+        return pickupRequests[index];
+    }
+
+    /**
+     * @return PickupRequest views of the pickup requests handled by this elevator, in the order they were added
+     */
     public List<PickupRequest> getPickupRequests() {
-        return pickupRequests;
+        List<PickupRequest> pickupRequestViews = new ArrayList<>(numberOfPickupRequests);
+        for (int i = 0; i < numberOfPickupRequests; i++) {
+            pickupRequestViews.add(PackedPickupRequest.toPickupRequest(pickupRequests[i], assignedTicks[i],
+                    boardedTicks[i]));
+        }
+        return pickupRequestViews;
+    }
+
+    /**
+     * @return number of pickup requests delivered since the last clearDeliveredPickupRequests call
+     */
+    public int getNumberOfDeliveredPickupRequests() {
+        return numberOfDeliveredPickupRequests;
+    }
+
+    /**
+     * @param index - index of the delivered pickup request in range [0, getNumberOfDeliveredPickupRequests() - 1]
+     * @return packed pickup request
+     */
+    public long getDeliveredPickupRequest(int index) {
+        return deliveredPickupRequests[index];
+    }
+
+    /**
+     * @param index - index of the delivered pickup request in range [0, getNumberOfDeliveredPickupRequests() - 1]
+     * @return tick on which the person that called the delivered request entered the elevator
+     */
+    public long getDeliveredBoardedTick(int index) {
+        return deliveredBoardedTicks[index];
+    }
+
+    public void clearDeliveredPickupRequests() {
+        numberOfDeliveredPickupRequests = 0;
     }
 }
@@ -20,6 +20,10 @@ public class ElevatorStatus {
         this.destinationFloor = destinationFloor;
     }
 
+    public int getElevatorId() {
+        return elevatorId;
+    }
+
     public int getCurrentFloor() {
         return currentFloor;
     }
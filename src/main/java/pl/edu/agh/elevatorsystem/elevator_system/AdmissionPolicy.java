@@ -0,0 +1,15 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+/**
+ * What the elevator system does with a pickup request that no elevator can handle while its pending pickups queue is
+ * full
+ */
+public enum AdmissionPolicy {
+    // drops the new request (PickupResult.REJECTED)
+    REJECT,
+    // drops the oldest pending request and queues up the new one (PickupResult.QUEUED_OLDEST_SHED)
+    SHED_OLDEST,
+    // queues up the new request above the capacity and tells the caller to slow down
+    // (PickupResult.QUEUED_OVER_CAPACITY)
+    BACKPRESSURE
+}
@@ -0,0 +1,251 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.DispatchStrategy;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.ElevatorDispatchState;
+
+import java.util.Arrays;
+
+/**
+ * Assignment of a batch of pickup requests to the elevators with the lowest total cost, the cost of a request being
+ * the cost of its elevator according to the DispatchStrategy (by default the distance, which is how long the request
+ * waits) or UNASSIGNED_COST if no elevator takes it
+ *
+ * A moving elevator takes every request with its direction called from the floors ahead of it, so it can take any
+ * number of them without affecting the others. An idle elevator has to choose the requests it goes for, as the first
+ * one decides its direction. It can make an UP trip, taking every UP request called from its floor and the floors
+ * above it, a DOWN trip, or go for a SINGLE request in the direction opposite to the way to it, which makes the
+ * elevator unavailable for the others. Every request is assigned to the elevator with the lowest cost among the
+ * moving elevators and the trips of the idle ones, so the problem comes down to choosing the trip of every idle
+ * elevator.
+ *
+ * The trips are chosen by a local search starting with every idle elevator staying idle: every move changes the trip
+ * of one idle elevator, the one lowering the total cost the most, until no move lowers it or the number of moves
+ * reaches MOVES_PER_IDLE_ELEVATOR per idle elevator. Every move is evaluated in O(requests) with the lowest and the
+ * second lowest cost of every request, so solving takes O(moves * requests * elevators). The solution is optimal
+ * with respect to changing the trip of any single elevator.
+ *
+ * The arrays grow when a bigger batch is given and are reused afterwards, so solving does not allocate.
+ */
+class BatchAssignment {
+
+    static final int NO_ELEVATOR = DispatchStrategy.NO_ELEVATOR;
+    // cost of a request that no elevator takes, above the cost of any elevator
+    static final long UNASSIGNED_COST = DispatchStrategy.MAX_COST + 1L;
+
+    private static final int MOVES_PER_IDLE_ELEVATOR = 4;
+
+    // trips of the elevators, MOVING for the elevators that are not idle
+    private static final int STAY_IDLE = 0;
+    private static final int UP_TRIP = 1;
+    private static final int DOWN_TRIP = 2;
+    private static final int SINGLE = 3;
+    private static final int MOVING = 4;
+
+    private static final int NOT_ALLOWED = -1;
+
+    private final int numberOfElevators;
+    private final int[] trips;
+    // request taken by every elevator on a SINGLE trip
+    private final int[] singleRequests;
+
+    private int numberOfRequests = 0;
+    private int[] floors = new int[16];
+    private int[] directions = new int[16];
+    // cost of every (request, elevator) pair that the elevator can handle or NOT_ALLOWED, elevators of a request next
+    // to each other
+    private int[] costs = new int[0];
+    // lowest and second lowest cost of every request among the elevators' trips and the elevator of the lowest one
+    private long[] lowestCosts = new long[16];
+    private long[] secondLowestCosts = new long[16];
+    private int[] assignedElevators = new int[16];
+
+    /**
+     * @param numberOfElevators - number of elevators in the elevator system
+     */
+    BatchAssignment(int numberOfElevators) {
+        this.numberOfElevators = numberOfElevators;
+        trips = new int[numberOfElevators];
+        singleRequests = new int[numberOfElevators];
+    }
+
+    /**
+     * Starts a new batch without any request
+     */
+    void reset() {
+        numberOfRequests = 0;
+    }
+
+    /**
+     * @param floor     - floor from which the request was called
+     * @param direction - direction of the request, ElevatorCandidateScan.UP or DOWN
+     */
+    void addRequest(int floor, int direction) {
+        if (numberOfRequests == floors.length) {
+            floors = Arrays.copyOf(floors, 2 * numberOfRequests);
+            directions = Arrays.copyOf(directions, 2 * numberOfRequests);
+            lowestCosts = Arrays.copyOf(lowestCosts, 2 * numberOfRequests);
+            secondLowestCosts = Arrays.copyOf(secondLowestCosts, 2 * numberOfRequests);
+            assignedElevators = Arrays.copyOf(assignedElevators, 2 * numberOfRequests);
+        }
+        floors[numberOfRequests] = floor;
+        directions[numberOfRequests] = direction;
+        numberOfRequests++;
+    }
+
+    /**
+     * Chooses the elevator of every request, read afterwards with getElevator. The costs are computed on the given
+     * state before any request is assigned.
+     *
+     * @param state            - state of the elevators
+     * @param dispatchStrategy - strategy giving the cost of every (request, elevator) pair
+     */
+    void solve(ElevatorDispatchState state, DispatchStrategy dispatchStrategy) {
+        if (costs.length < numberOfRequests * numberOfElevators) {
+            costs = new int[Math.max(numberOfRequests * numberOfElevators, 2 * costs.length)];
+        }
+
+        int numberOfIdleElevators = 0;
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            boolean idle = state.getState(elevatorId) == ElevatorCandidateScan.IDLE;
+            trips[elevatorId] = idle ? STAY_IDLE : MOVING;
+            if (idle) numberOfIdleElevators++;
+
+            for (int request = 0; request < numberOfRequests; request++) {
+                costs[request * numberOfElevators + elevatorId] =
+                        state.canPickup(elevatorId, floors[request], directions[request])
+                                ? dispatchStrategy.cost(state, elevatorId, floors[request]) : NOT_ALLOWED;
+            }
+        }
+
+        for (int move = 0; move < MOVES_PER_IDLE_ELEVATOR * numberOfIdleElevators; move++) {
+            findLowestCosts(state);
+            if (!makeBestMove(state)) break;
+        }
+        findLowestCosts(state);
+    }
+
+    /**
+     * @param request - index of the request in the order they were added
+     * @return elevatorId of the elevator chosen for the request or NO_ELEVATOR
+     */
+    int getElevator(int request) {
+        return assignedElevators[request];
+    }
+
+    /**
+     * Fills the lowestCosts, secondLowestCosts and assignedElevators arrays for the current trips. Ties go to the
+     * lowest elevatorId.
+     */
+    private void findLowestCosts(ElevatorDispatchState state) {
+        for (int request = 0; request < numberOfRequests; request++) {
+            long lowestCost = UNASSIGNED_COST;
+            long secondLowestCost = UNASSIGNED_COST;
+            int assignedElevator = NO_ELEVATOR;
+
+            for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                int cost = costs[request * numberOfElevators + elevatorId];
+                if (cost == NOT_ALLOWED
+                        || !takes(trips[elevatorId], singleRequests[elevatorId], state, elevatorId, request)) continue;
+
+                if (cost < lowestCost) {
+                    secondLowestCost = lowestCost;
+                    lowestCost = cost;
+                    assignedElevator = elevatorId;
+                } else if (cost < secondLowestCost) {
+                    secondLowestCost = cost;
+                }
+            }
+
+            lowestCosts[request] = lowestCost;
+            secondLowestCosts[request] = secondLowestCost;
+            assignedElevators[request] = assignedElevator;
+        }
+    }
+
+    /**
+     * Changes the trip of the idle elevator that lowers the total cost the most
+     * @return false if no change of a trip lowers the total cost
+     */
+    private boolean makeBestMove(ElevatorDispatchState state) {
+        long bestGain = 0;
+        int bestElevator = NO_ELEVATOR;
+        int bestTrip = STAY_IDLE;
+        int bestSingleRequest = 0;
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            int currentTrip = trips[elevatorId];
+            if (currentTrip == MOVING) continue;
+
+            // gains of the trips against the elevator staying idle, and the gain of the current trip
+            long upTripGain = 0;
+            long downTripGain = 0;
+            long bestSingleGain = 0;
+            int singleRequest = 0;
+            long currentGain = 0;
+
+            for (int request = 0; request < numberOfRequests; request++) {
+                int cost = costs[request * numberOfElevators + elevatorId];
+                if (cost == NOT_ALLOWED) continue;
+
+                // lowest cost of the request without this elevator
+                long otherCost = assignedElevators[request] == elevatorId
+                        ? secondLowestCosts[request] : lowestCosts[request];
+                long gain = Math.max(0, otherCost - cost);
+                if (gain == 0) continue;
+
+                if (takes(UP_TRIP, 0, state, elevatorId, request)) {
+                    upTripGain += gain;
+                } else if (takes(DOWN_TRIP, 0, state, elevatorId, request)) {
+                    downTripGain += gain;
+                } else if (gain > bestSingleGain) {
+                    bestSingleGain = gain;
+                    singleRequest = request;
+                }
+                if (takes(currentTrip, singleRequests[elevatorId], state, elevatorId, request)) {
+                    currentGain += gain;
+                }
+            }
+
+            // ties go to the first of STAY_IDLE, UP_TRIP, DOWN_TRIP and SINGLE
+            for (int trip = STAY_IDLE; trip <= SINGLE; trip++) {
+                long tripGain = switch (trip) {
+                    case UP_TRIP -> upTripGain;
+                    case DOWN_TRIP -> downTripGain;
+                    case SINGLE -> bestSingleGain;
+                    default -> 0;
+                };
+                boolean sameTrip = trip == currentTrip
+                        && (trip != SINGLE || singleRequest == singleRequests[elevatorId]);
+                long gain = tripGain - currentGain;
+                if (sameTrip || gain <= bestGain) continue;
+
+                bestGain = gain;
+                bestElevator = elevatorId;
+                bestTrip = trip;
+                bestSingleRequest = singleRequest;
+            }
+        }
+
+        if (bestElevator == NO_ELEVATOR) return false;
+
+        trips[bestElevator] = bestTrip;
+        singleRequests[bestElevator] = bestSingleRequest;
+        return true;
+    }
+
+    /**
+     * @return true if the elevator on the given trip takes the request, which it is able to handle
+     */
+    private boolean takes(int trip, int singleRequest, ElevatorDispatchState state, int elevatorId, int request) {
+        int floor = state.getFloor(elevatorId);
+
+        return switch (trip) {
+            case MOVING -> true;
+            case UP_TRIP -> directions[request] == ElevatorCandidateScan.UP && floors[request] >= floor;
+            case DOWN_TRIP -> directions[request] == ElevatorCandidateScan.DOWN && floors[request] <= floor;
+            case SINGLE -> request == singleRequest;
+            default -> false;
+        };
+    }
+}
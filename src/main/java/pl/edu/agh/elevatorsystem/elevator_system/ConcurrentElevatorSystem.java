@@ -0,0 +1,163 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.ConcurrentPickupQueue;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
+import pl.edu.agh.elevatorsystem.metrics.LatencyMetrics;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseCounters;
+
+import java.io.PrintStream;
+
+/**
+ * Elevator system accepting pickup requests from any number of threads
+ *
+ * Pickup requests are added to a bounded lock-free queue and handed to the wrapped elevator system, in the order they
+ * were added, at the start of the next simulation step, so the threads calling pickup never wait for the simulation.
+ * If the queue is full the request is rejected. All the other methods, except for readSnapshot and
+ * getElevatorSystemCounters, must be called by a single simulation thread, which is the only one touching the
+ * wrapped elevator system.
+ *
+ * Events are reported to the sink of the wrapped elevator system, the rejected requests by the threads calling pickup.
+ */
+public class ConcurrentElevatorSystem implements IElevatorSystem {
+
+    private final IElevatorSystem elevatorSystem;
+    private final ConcurrentPickupQueue pickupQueue;
+    private final ConcurrentPickupQueue.PickupConsumer pickupConsumer;
+
+    /**
+     * @param elevatorSystem - elevator system handling the requests, not touched by the threads calling pickup
+     * @param queueCapacity  - maximum number of pickup requests waiting for the next step
+     */
+    public ConcurrentElevatorSystem(IElevatorSystem elevatorSystem, int queueCapacity) {
+        this.elevatorSystem = elevatorSystem;
+        this.pickupQueue = new ConcurrentPickupQueue(queueCapacity);
+        this.pickupConsumer = elevatorSystem::pickup;
+    }
+
+    /**
+     * Adds the pickup request to the queue drained at the start of the next step, see offerPickup
+     *
+     * @return QUEUED if the request is waiting for the next step or REJECTED if the queue is full. The result of the
+     * wrapped elevator system is known only once the request is drained, so it is not returned to the caller. Rejected
+     * requests are not counted by the elevatorSystemCounters, which are written only by the simulation thread
+     */
+    @Override
+    public PickupResult pickup(int currentFloor, int direction, int destinationFloor) {
+        if (!offerPickup(currentFloor, direction, destinationFloor)) {
+            // the tick is read from the counters, which are safe to be read from any thread
+            elevatorSystem.getEventSink().onEvent(ElevatorEventType.PICKUP_QUEUE_FULL,
+                    elevatorSystem.getElevatorSystemCounters().getTick(), ElevatorEventSink.NO_ELEVATOR, currentFloor,
+                    direction, destinationFloor);
+            return PickupResult.REJECTED;
+        }
+        return PickupResult.QUEUED;
+    }
+
+    /**
+     * Adds the pickup request to the queue drained at the start of the next step, can be called by any thread. The
+     * request is validated by the wrapped elevator system once it is drained. A rejected request is not reported to
+     * the event sink.
+     *
+     * @param currentFloor      - floor from which the request for the elevator was called
+     * @param direction         - direction in which the calling person would want to go (>0 - up, <0 - down)
+     * @param destinationFloor  - floor that the person calling the elevator would want to be taken to
+     * @return true if the request is waiting for the next step, false if it was rejected because the queue is full
+     */
+    public boolean offerPickup(int currentFloor, int direction, int destinationFloor) {
+        return pickupQueue.offer(currentFloor, direction, destinationFloor);
+    }
+
+    @Override
+    public UpdateResult update(int elevatorId, int currentFloor, int destinationFloor) {
+        return elevatorSystem.update(elevatorId, currentFloor, destinationFloor);
+    }
+
+    /**
+     * Hands the queued up pickup requests to the wrapped elevator system and then performs its simulation step
+     */
+    @Override
+    public void step() {
+        drainPickupQueue();
+        elevatorSystem.step();
+    }
+
+    @Override
+    public long getTick() {
+        return elevatorSystem.getTick();
+    }
+
+    /**
+     * Hands the queued up pickup requests to the wrapped elevator system and then advances it to the given tick. The
+     * requests added in the meantime wait for the next call.
+     *
+     * @param tick - tick that the simulation should be advanced to
+     */
+    @Override
+    public void stepUntil(long tick) {
+        if (tick <= getTick()) return;
+
+        drainPickupQueue();
+        elevatorSystem.stepUntil(tick);
+    }
+
+    @Override
+    public long advanceToNextEvent() {
+        drainPickupQueue();
+        return elevatorSystem.advanceToNextEvent();
+    }
+
+    @Override
+    public LatencyMetrics getLatencyMetrics() {
+        return elevatorSystem.getLatencyMetrics();
+    }
+
+    @Override
+    public StepPhaseCounters getStepPhaseCounters() {
+        return elevatorSystem.getStepPhaseCounters();
+    }
+
+    @Override
+    public ElevatorSystemCounters getElevatorSystemCounters() {
+        return elevatorSystem.getElevatorSystemCounters();
+    }
+
+    @Override
+    public void setEventSink(ElevatorEventSink eventSink) {
+        elevatorSystem.setEventSink(eventSink);
+    }
+
+    @Override
+    public ElevatorEventSink getEventSink() {
+        return elevatorSystem.getEventSink();
+    }
+
+    @Override
+    public void statusDelta(long sinceVersion, ElevatorStatusDelta delta) {
+        elevatorSystem.statusDelta(sinceVersion, delta);
+    }
+
+    @Override
+    public long readSnapshot(ElevatorSystemSnapshot snapshot) {
+        return elevatorSystem.readSnapshot(snapshot);
+    }
+
+    @Override
+    public void status(PrintStream out) {
+        elevatorSystem.status(out);
+    }
+
+    /**
+     * Drains at most one queue capacity of requests, so the threads that keep adding requests cannot hold up the step
+     */
+    private void drainPickupQueue() {
+        pickupQueue.drain(pickupConsumer, pickupQueue.capacity());
+    }
+
+    // for testing only
+    public IElevatorSystem getElevatorSystem() {
+        return elevatorSystem;
+    }
+}
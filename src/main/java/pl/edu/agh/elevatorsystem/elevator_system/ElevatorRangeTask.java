@@ -0,0 +1,49 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task running the per elevator part of the simulation step for a range of elevatorIds
+ *
+ * The range is split in halves until it is not longer than the given threshold. Elevators of different ranges must
+ * not share any state that is modified by the step.
+ */
+class ElevatorRangeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    @FunctionalInterface
+    interface ElevatorRangeStep {
+        /**
+         * @param fromElevatorId - first elevatorId of the range (inclusive)
+         * @param toElevatorId   - last elevatorId of the range (exclusive)
+         */
+        void step(int fromElevatorId, int toElevatorId);
+    }
+
+    private final ElevatorRangeStep rangeStep;
+    private final int fromElevatorId;
+    private final int toElevatorId;
+    private final int threshold;
+
+    ElevatorRangeTask(ElevatorRangeStep rangeStep, int fromElevatorId, int toElevatorId, int threshold) {
+        this.rangeStep = rangeStep;
+        this.fromElevatorId = fromElevatorId;
+        this.toElevatorId = toElevatorId;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+        if (toElevatorId - fromElevatorId <= threshold) {
+            rangeStep.step(fromElevatorId, toElevatorId);
+            return;
+        }
+
+        int middleElevatorId = (fromElevatorId + toElevatorId) >>> 1;
+        invokeAll(
+                new ElevatorRangeTask(rangeStep, fromElevatorId, middleElevatorId, threshold),
+                new ElevatorRangeTask(rangeStep, middleElevatorId, toElevatorId, threshold)
+        );
+    }
+}
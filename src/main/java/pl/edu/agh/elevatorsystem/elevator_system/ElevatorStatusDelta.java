@@ -0,0 +1,126 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+
+import java.util.Arrays;
+
+/**
+ * Status of the elevators that changed since the given version, filled by IElevatorSystem.statusDelta
+ *
+ * Every elevator is one record of primitive fields at the same index of the parallel arrays, in ascending elevatorId
+ * order. The delta can be reused for every call, so polling the status does not allocate once the arrays are large
+ * enough. The version of the delta is passed to the next call to get only the elevators changed since this one.
+ */
+public class ElevatorStatusDelta {
+
+    // passed as sinceVersion to get the status of every elevator
+    public static final long FULL_SNAPSHOT = -1;
+
+    private long version = FULL_SNAPSHOT;
+    private int size = 0;
+    private int[] elevatorIds;
+    private int[] currentFloors;
+    private int[] destinationFloors;
+    private int[] directions;
+
+    public ElevatorStatusDelta() {
+        this(16);
+    }
+
+    /**
+     * @param capacity - number of records the delta can hold before its arrays grow
+     */
+    public ElevatorStatusDelta(int capacity) {
+        capacity = Math.max(1, capacity);
+        elevatorIds = new int[capacity];
+        currentFloors = new int[capacity];
+        destinationFloors = new int[capacity];
+        directions = new int[capacity];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @param version - version of the elevator system status that the delta is filled up to
+     */
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    void add(int elevatorId, int currentFloor, int destinationFloor, int direction) {
+        if (size == elevatorIds.length) {
+            elevatorIds = Arrays.copyOf(elevatorIds, size * 2);
+            currentFloors = Arrays.copyOf(currentFloors, size * 2);
+            destinationFloors = Arrays.copyOf(destinationFloors, size * 2);
+            directions = Arrays.copyOf(directions, size * 2);
+        }
+
+        elevatorIds[size] = elevatorId;
+        currentFloors[size] = currentFloor;
+        destinationFloors[size] = destinationFloor;
+        directions[size] = direction;
+        size++;
+    }
+
+    /**
+     * @return version of the status to be passed as sinceVersion to the next statusDelta call
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return number of elevators in the delta
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getElevatorId(int index) {
+        return elevatorIds[index];
+    }
+
+    public int getCurrentFloor(int index) {
+        return currentFloors[index];
+    }
+
+    /**
+     * @return destination floor of the elevator or Elevator.IDLE (-1) if it is idle
+     */
+    public int getDestinationFloor(int index) {
+        return destinationFloors[index];
+    }
+
+    /**
+     * @return direction of the elevator: 1 - up, -1 - down, 0 - idle
+     */
+    public int getDirection(int index) {
+        return directions[index];
+    }
+
+    /**
+     * @return records in the same format as ElevatorStatus, one per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder status = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            status.append("\tElevator ID: ").append(elevatorIds[i])
+                    .append(" ||| Current floor: ").append(currentFloors[i])
+                    .append(" ||| Destination floor: ");
+
+            if (destinationFloors[i] == Elevator.IDLE) {
+                status.append("elevator is currently idle");
+            } else {
+                status.append(destinationFloors[i]);
+            }
+
+            status.append(System.lineSeparator());
+        }
+
+        return status.toString();
+    }
+}
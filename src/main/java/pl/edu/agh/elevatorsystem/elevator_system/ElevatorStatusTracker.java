@@ -0,0 +1,80 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last published floor, destination floor and direction of every elevator together with the version of
+ * the status in which any of them last changed, for IElevatorSystem.statusDelta
+ *
+ * An elevator whose status changes is stamped with the next version, which makes it dirty until the next delta
+ * closes that version. The stamp is written to the elevator's own element, so the elevators published by different
+ * threads of the parallel step do not share anything, which a shared dirty bitset would need atomic updates for.
+ * The delta then checks one version per elevator and copies only the dirty elevators and the ones changed after the
+ * given version.
+ */
+class ElevatorStatusTracker {
+
+    private final int numberOfElevators;
+    private final int[] currentFloors;
+    private final int[] destinationFloors;
+    private final int[] directions;
+    private final long[] versions;
+    // last version closed by delta, elevators changed since then are stamped with version + 1
+    private long version = 0;
+
+    /**
+     * @param numberOfElevators - number of elevators, all of them idle on the ground floor in version 0
+     */
+    ElevatorStatusTracker(int numberOfElevators) {
+        this.numberOfElevators = numberOfElevators;
+        currentFloors = new int[numberOfElevators];
+        destinationFloors = new int[numberOfElevators];
+        directions = new int[numberOfElevators];
+        versions = new long[numberOfElevators];
+        Arrays.fill(destinationFloors, Elevator.IDLE);
+    }
+
+    /**
+     * Stamps the elevator with the next version if its status changed, can be called by different threads for
+     * different elevators
+     */
+    void published(int elevatorId, int currentFloor, int destinationFloor, int direction) {
+        if (currentFloors[elevatorId] == currentFloor && destinationFloors[elevatorId] == destinationFloor
+                && directions[elevatorId] == direction) return;
+
+        currentFloors[elevatorId] = currentFloor;
+        destinationFloors[elevatorId] = destinationFloor;
+        directions[elevatorId] = direction;
+        versions[elevatorId] = version + 1;
+    }
+
+    /**
+     * Closes the current version if any elevator is dirty and fills the delta with the elevators changed since the
+     * given version
+     *
+     * @param sinceVersion - version returned by the previous delta or ElevatorStatusDelta.FULL_SNAPSHOT
+     * @param delta        - delta to be filled
+     */
+    void delta(long sinceVersion, ElevatorStatusDelta delta) {
+        long nextVersion = version + 1;
+        boolean anyDirty = false;
+
+        delta.clear();
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            long elevatorVersion = versions[elevatorId];
+            anyDirty |= elevatorVersion == nextVersion;
+
+            if (elevatorVersion > sinceVersion) {
+                delta.add(elevatorId, currentFloors[elevatorId], destinationFloors[elevatorId],
+                        directions[elevatorId]);
+            }
+        }
+
+        if (anyDirty) {
+            version = nextVersion;
+        }
+        delta.setVersion(version);
+    }
+}
@@ -0,0 +1,938 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import pl.edu.agh.elevatorsystem.elevator.Direction;
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PendingPickups;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PickupRequest;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshotBuffer;
+import pl.edu.agh.elevatorsystem.metrics.LatencyMetrics;
+import pl.edu.agh.elevatorsystem.metrics.PickupAssignmentEvent;
+import pl.edu.agh.elevatorsystem.metrics.StepPhase;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseCounters;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseEvent;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+import static pl.edu.agh.elevatorsystem.util.Constants.MIN_ELEVATORS;
+import static pl.edu.agh.elevatorsystem.util.Constants.MIN_FLOORS;
+
+/**
+ * Implementation of the IElevatorSystem interface for large fleets of elevators
+ *
+ * Behaves the same as MyElevatorSystem, but the number of elevators and floors are chosen on construction and the
+ * state of the elevators is kept in primitive parallel arrays indexed by elevatorId instead of Elevator objects.
+ *
+ * Pickup requests handled by the elevators are packed into longs and kept in one shared pool. Every elevator has
+ * its requests linked in the order they were added through the nextRequest array, so an elevator costs a few ints
+ * and a byte plus 12 bytes per request it is handling. Floors are not limited to MAX_FLOORS, so the requests are
+ * packed with 31 bits per floor instead of the PackedPickupRequest layout.
+ */
+public class FleetElevatorSystem implements IElevatorSystem {
+
+    private static final byte UP = 1;
+    private static final byte DOWN = -1;
+    private static final byte IDLE = 0;
+
+    private static final int NO_REQUEST = -1;
+    private static final int NO_ELEVATOR = -1;
+
+    // elevators moved by one fork/join task in the parallel step
+    private static final int ELEVATORS_PER_TASK = 512;
+    // fleets up to this size are checked by the candidateScan, larger ones through the nearestElevatorIndex, which
+    // costs more to update on every step than it saves on the pickups of the smaller fleets
+    public static final int MAX_SCAN_ELEVATORS = 256;
+
+    // request layout: bit 63 -> isInElevator, bits 32 - 62 -> currentFloor, bits 0 - 30 -> destinationFloor
+    private static final long IN_ELEVATOR = 1L << 63;
+    private static final int FLOOR_MASK = 0x7FFFFFFF;
+
+    private final int numberOfElevators;
+    private final int numberOfFloors;
+
+    private final int[] currentFloor;
+    private final int[] destinationFloor;
+    private final byte[] direction;
+    private final int[] firstRequest;
+    private final int[] lastRequest;
+    private final int[] numberOfRequests;
+    // requests fulfilled in the current step, not yet returned to the pool
+    private final int[] releasedRequests;
+    // elevators that changed their state in the current step, so the pending requests they serve must be checked
+    private final boolean[] changedElevators;
+    // state of the elevators before being moved, used to find the ones that changed their state
+    private final byte[] previousDirection;
+    private final boolean[] wasHeadingToOppositeDirectionRequest;
+    // elevator answering the hall call of every floor and direction (floor * 2 + 0 for UP, 1 for DOWN) or NO_ELEVATOR,
+    // kept until it reaches that floor. Only that elevator clears its entries when it moves, so the parallel step
+    // does not share them
+    private final int[] hallCallElevators;
+
+    // pool of the requests, with the ticks they were called and boarded on, pending requests take their slot on
+    // pickup without being linked to any elevator and the pendingPickups queue keeps only the slots
+    private long[] requests;
+    private long[] createdTicks;
+    private long[] boardedTicks;
+    private int[] nextRequest;
+    private int freeRequest = NO_REQUEST;
+    private int usedRequests = 0;
+
+    private final PendingPickups pendingPickups;
+    // either the candidateScan with the candidateStates of the elevators (see MAX_SCAN_ELEVATORS) or the
+    // nearestElevatorIndex searching outward from the request floor, the other is null. Updated on the calling thread
+    // once the elevators are moved, so the parallel step does not share them
+    private final ElevatorCandidateScan candidateScan;
+    private final int[] candidateStates;
+    private final NearestElevatorIndex nearestElevatorIndex;
+    private final LongPredicate assignElevatorToPendingRequest = slot -> assignElevatorToRequestIfPossible((int) slot);
+    private final ForkJoinPool stepPool;
+
+    // maximum number of pending requests and what happens to the requests above it, see setAdmissionControl
+    private int pendingPickupsCapacity = MyElevatorSystem.UNLIMITED_PENDING_PICKUPS;
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.REJECT;
+
+    private ElevatorEventSink eventSink = ElevatorEventSink.CONSOLE;
+
+    private long tick = 0;
+    private final LatencyMetrics latencyMetrics;
+    private final StepPhaseCounters stepPhaseCounters = new StepPhaseCounters();
+    private final ElevatorSystemCounters elevatorSystemCounters;
+    private final ElevatorStatusTracker statusTracker;
+    private final ElevatorSystemSnapshotBuffer snapshotBuffer;
+
+    public FleetElevatorSystem(int numberOfElevators, int numberOfFloors) {
+        this(numberOfElevators, numberOfFloors, null);
+    }
+
+    /**
+     * Constructor checks the numberOfElevators and numberOfFloors provided and creates elevators on the ground floor
+     * @param numberOfElevators - number of elevators that the elevator system is going to have [minimum 1]
+     * @param numberOfFloors    - number of floors served by the elevators [minimum 2]
+     * @param stepPool          - pool moving the elevators in parallel during the step, null for the sequential step
+     */
+    public FleetElevatorSystem(int numberOfElevators, int numberOfFloors, ForkJoinPool stepPool) {
+        this.numberOfElevators = assignNumberOfElevators(numberOfElevators);
+        this.numberOfFloors = assignNumberOfFloors(numberOfFloors);
+        this.stepPool = stepPool;
+
+        currentFloor = new int[this.numberOfElevators];
+        destinationFloor = new int[this.numberOfElevators];
+        direction = new byte[this.numberOfElevators];
+        firstRequest = new int[this.numberOfElevators];
+        lastRequest = new int[this.numberOfElevators];
+        numberOfRequests = new int[this.numberOfElevators];
+        releasedRequests = new int[this.numberOfElevators];
+        changedElevators = new boolean[this.numberOfElevators];
+        previousDirection = new byte[this.numberOfElevators];
+        wasHeadingToOppositeDirectionRequest = new boolean[this.numberOfElevators];
+        hallCallElevators = new int[2 * this.numberOfFloors];
+
+        Arrays.fill(destinationFloor, Elevator.IDLE);
+        Arrays.fill(firstRequest, NO_REQUEST);
+        Arrays.fill(lastRequest, NO_REQUEST);
+        Arrays.fill(releasedRequests, NO_REQUEST);
+        Arrays.fill(hallCallElevators, NO_ELEVATOR);
+
+        int initialRequestsCapacity = Math.max(16, this.numberOfElevators);
+        requests = new long[initialRequestsCapacity];
+        createdTicks = new long[initialRequestsCapacity];
+        boardedTicks = new long[initialRequestsCapacity];
+        nextRequest = new int[initialRequestsCapacity];
+
+        pendingPickups = new PendingPickups(this.numberOfFloors);
+        if (this.numberOfElevators <= MAX_SCAN_ELEVATORS) {
+            candidateScan = ElevatorCandidateScan.create(this.numberOfElevators);
+            candidateStates = new int[this.numberOfElevators];
+            nearestElevatorIndex = null;
+        } else {
+            candidateScan = null;
+            candidateStates = null;
+            nearestElevatorIndex = new NearestElevatorIndex(this.numberOfElevators, this.numberOfFloors);
+        }
+        for (int elevatorId = 0; elevatorId < this.numberOfElevators; elevatorId++) {
+            reindexElevator(elevatorId);
+        }
+        latencyMetrics = new LatencyMetrics(this.numberOfElevators, this.numberOfFloors);
+        elevatorSystemCounters = new ElevatorSystemCounters(this.numberOfElevators);
+        statusTracker = new ElevatorStatusTracker(this.numberOfElevators);
+        snapshotBuffer = new ElevatorSystemSnapshotBuffer(this.numberOfElevators);
+        publishSnapshot();
+    }
+
+    private int assignNumberOfElevators(int numberOfElevators) {
+        if (numberOfElevators < MIN_ELEVATORS) {
+            eventSink.onEvent(ElevatorEventType.TOO_FEW_ELEVATORS, tick, ElevatorEventSink.NO_ELEVATOR,
+                    numberOfElevators, MIN_ELEVATORS, 0);
+            numberOfElevators = MIN_ELEVATORS;
+        }
+
+        return numberOfElevators;
+    }
+
+    private int assignNumberOfFloors(int numberOfFloors) {
+        if (numberOfFloors < MIN_FLOORS) {
+            eventSink.onEvent(ElevatorEventType.TOO_FEW_FLOORS, tick, ElevatorEventSink.NO_ELEVATOR, numberOfFloors,
+                    MIN_FLOORS, 0);
+            numberOfFloors = MIN_FLOORS;
+        }
+
+        return numberOfFloors;
+    }
+
+    /**
+     * Validates the pickup request and assigns it to the best elevator or adds it to the pendingPickups queue, as long
+     * as the admission control lets it in
+     *
+     * @param currentFloor      - floor from which the request for the elevator was called
+     * @param direction         - direction in which the calling person would want to go (>0 - up, <0 - down)
+     * @param destinationFloor  - floor that the person calling the elevator would want to be taken to
+     * @return whether the request was assigned, queued up or dropped
+     */
+    @Override
+    public PickupResult pickup(int currentFloor, int direction, int destinationFloor) {
+        if (!sameSign(destinationFloor - currentFloor, direction) || (destinationFloor == currentFloor)
+                || direction == 0 || !isValidFloor(currentFloor) || !isValidFloor(destinationFloor)) {
+            eventSink.onEvent(ElevatorEventType.INVALID_PICKUP, tick, ElevatorEventSink.NO_ELEVATOR, currentFloor,
+                    direction, destinationFloor);
+            return PickupResult.INVALID;
+        }
+
+        int slot = allocateRequest();
+        requests[slot] = packRequest(currentFloor, destinationFloor, false);
+        createdTicks[slot] = tick;
+
+        if (assignElevatorToRequestIfPossible(slot)) return PickupResult.ASSIGNED;
+
+        PickupResult result = addPendingPickup(slot);
+        elevatorSystemCounters.pendingPickupsChanged(pendingPickups.size());
+        return result;
+    }
+
+    /**
+     * Same rules as MyElevatorSystem.addPendingPickup, the slots of the dropped requests are returned to the pool
+     * @param slot - slot of the pool with the request that could not be assigned to any elevator
+     */
+    private PickupResult addPendingPickup(int slot) {
+        PickupResult result = PickupResult.QUEUED;
+
+        if (pendingPickups.size() >= pendingPickupsCapacity) {
+            switch (admissionPolicy) {
+                case REJECT -> {
+                    reportRequestEvent(ElevatorEventType.PICKUP_REJECTED, ElevatorEventSink.NO_ELEVATOR, slot);
+                    freeRequest(slot);
+                    elevatorSystemCounters.rejected();
+                    return PickupResult.REJECTED;
+                }
+                case SHED_OLDEST -> {
+                    int shedSlot = (int) pendingPickups.removeOldest();
+                    reportRequestEvent(ElevatorEventType.PICKUP_SHED, ElevatorEventSink.NO_ELEVATOR, shedSlot);
+                    freeRequest(shedSlot);
+                    elevatorSystemCounters.shed();
+                    result = PickupResult.QUEUED_OLDEST_SHED;
+                }
+                case BACKPRESSURE -> result = PickupResult.QUEUED_OVER_CAPACITY;
+            }
+        }
+
+        long request = requests[slot];
+        pendingPickups.add(slot, requestCurrentFloor(request), Direction.of(requestDirection(request)));
+        elevatorSystemCounters.queued(result == PickupResult.QUEUED_OVER_CAPACITY);
+        reportRequestEvent(ElevatorEventType.PICKUP_QUEUED, ElevatorEventSink.NO_ELEVATOR, slot);
+        return result;
+    }
+
+    private void reportRequestEvent(ElevatorEventType type, int elevatorId, int slot) {
+        long request = requests[slot];
+        eventSink.onEvent(type, tick, elevatorId, requestCurrentFloor(request), requestDirection(request),
+                requestDestinationFloor(request));
+    }
+
+    /**
+     * Same rules as MyElevatorSystem.setAdmissionControl
+     * @param pendingPickupsCapacity - maximum number of pending requests [minimum 1],
+     *                                 MyElevatorSystem.UNLIMITED_PENDING_PICKUPS by default
+     * @param admissionPolicy        - what happens to the requests once the queue is full, REJECT by default
+     */
+    public void setAdmissionControl(int pendingPickupsCapacity, AdmissionPolicy admissionPolicy) {
+        if (pendingPickupsCapacity < 1 || admissionPolicy == null) {
+            eventSink.onEvent(ElevatorEventType.INVALID_ADMISSION_CONTROL, tick, ElevatorEventSink.NO_ELEVATOR,
+                    pendingPickupsCapacity, 0, 0);
+            return;
+        }
+
+        this.pendingPickupsCapacity = pendingPickupsCapacity;
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    /**
+     * @param slot - slot of the pool with the request called by pickup, not linked to any elevator
+     */
+    private boolean assignElevatorToRequestIfPossible(int slot) {
+        if (joinHallCall(slot)) return true;
+
+        PickupAssignmentEvent event = PickupAssignmentEvent.beginIfEnabled();
+
+        long request = requests[slot];
+        int pickupCurrentFloor = requestCurrentFloor(request);
+        byte pickupDirection = requestDirection(request);
+        int elevatorId = findBestElevator(pickupCurrentFloor, pickupDirection);
+        int candidates = event != null ? countElevatorCandidates(pickupCurrentFloor, pickupDirection) : 0;
+
+        if (elevatorId == Elevator.IDLE) {
+            if (event != null) {
+                event.commit(tick, pickupCurrentFloor, requestDestinationFloor(request), candidates,
+                        PickupAssignmentEvent.NO_ELEVATOR, 0);
+            }
+            return false;
+        }
+
+        int distance = Math.abs(currentFloor[elevatorId] - pickupCurrentFloor);
+
+        handlePickupRequest(elevatorId, slot);
+        updateElevatorDirection(elevatorId);
+        updateElevatorDestinationFloor(elevatorId);
+        reindexElevator(elevatorId);
+
+        elevatorSystemCounters.assigned();
+        publishElevator(elevatorId);
+
+        if (event != null) {
+            event.commit(tick, pickupCurrentFloor, requestDestinationFloor(request), candidates, elevatorId,
+                    distance);
+        }
+        return true;
+    }
+
+    /**
+     * Links the request to the elevator answering its hall call, without looking for the best elevator. The request
+     * is picked up on the floor the elevator is already heading to, so its direction and destination floor stay the
+     * same.
+     *
+     * @param slot - slot of the pool with the request called by pickup, not linked to any elevator
+     * @return true if any elevator answers the hall call of the request. Returns false otherwise
+     */
+    private boolean joinHallCall(int slot) {
+        long request = requests[slot];
+        int pickupCurrentFloor = requestCurrentFloor(request);
+        int elevatorId = hallCallElevators[hallCallIndex(pickupCurrentFloor, requestDirection(request))];
+        if (elevatorId == NO_ELEVATOR) return false;
+
+        PickupAssignmentEvent event = PickupAssignmentEvent.beginIfEnabled();
+
+        handlePickupRequest(elevatorId, slot);
+        elevatorSystemCounters.assigned();
+        publishElevator(elevatorId);
+
+        if (event != null) {
+            event.commit(tick, pickupCurrentFloor, requestDestinationFloor(request), 1, elevatorId,
+                    Math.abs(currentFloor[elevatorId] - pickupCurrentFloor));
+        }
+        return true;
+    }
+
+    /**
+     * Same rules as in MyElevatorSystem: the closest elevator that is idle or has the floor from which the request
+     * was called on its way, in the request direction, found by the candidateScan or through the nearestElevatorIndex
+     *
+     * @return elevatorId of the best elevator or Elevator.IDLE (-1) if no elevator can handle the request for now
+     */
+    private int findBestElevator(int pickupCurrentFloor, byte pickupDirection) {
+        int elevatorId = candidateScan != null
+                ? candidateScan.findClosestElevator(currentFloor, candidateStates, numberOfElevators,
+                        pickupCurrentFloor, pickupDirection)
+                : nearestElevatorIndex.findClosestElevator(pickupCurrentFloor,
+                        pickupDirection == UP ? NearestElevatorIndex.UP : NearestElevatorIndex.DOWN);
+        return elevatorId == NO_ELEVATOR ? Elevator.IDLE : elevatorId;
+    }
+
+    /**
+     * @return number of elevators that can handle the request, counted by the last findBestElevator call of the
+     * candidateScan or by checking every elevator, which the index avoids
+     */
+    private int countElevatorCandidates(int pickupCurrentFloor, byte pickupDirection) {
+        if (candidateScan != null) return candidateScan.getCandidates();
+
+        int candidates = 0;
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (canPickupRequest(elevatorId, pickupDirection, pickupCurrentFloor)) {
+                candidates++;
+            }
+        }
+
+        return candidates;
+    }
+
+    private boolean canPickupRequest(int elevatorId, byte pickupDirection, int pickupCurrentFloor) {
+        byte elevatorDirection = direction[elevatorId];
+        if (elevatorDirection == IDLE) return true;
+
+        if (isHeadingToOppositeDirectionRequest(elevatorId)) return false;
+
+        return elevatorDirection == pickupDirection
+                && Integer.signum(pickupCurrentFloor - currentFloor[elevatorId]) == elevatorDirection;
+    }
+
+    /**
+     * Updates the candidateStates or moves the elevator to the bucket of the nearestElevatorIndex matching its current
+     * floor and state, needs to be called once the floor, the direction or the first request of the elevator has
+     * changed
+     */
+    private void reindexElevator(int elevatorId) {
+        byte elevatorDirection = direction[elevatorId];
+        boolean unavailable = elevatorDirection != IDLE && isHeadingToOppositeDirectionRequest(elevatorId);
+
+        if (candidateScan != null) {
+            candidateStates[elevatorId] = unavailable ? ElevatorCandidateScan.UNAVAILABLE : elevatorDirection;
+            return;
+        }
+
+        int state;
+        if (elevatorDirection == IDLE) {
+            state = NearestElevatorIndex.IDLE;
+        } else if (unavailable) {
+            state = NearestElevatorIndex.NOT_INDEXED;
+        } else {
+            state = elevatorDirection == UP ? NearestElevatorIndex.UP : NearestElevatorIndex.DOWN;
+        }
+
+        nearestElevatorIndex.update(elevatorId, currentFloor[elevatorId], state);
+    }
+
+    private boolean isHeadingToOppositeDirectionRequest(int elevatorId) {
+        int head = firstRequest[elevatorId];
+        if (head == NO_REQUEST) return false;
+
+        long request = requests[head];
+        return !isInElevator(request) && requestDirection(request) == -direction[elevatorId];
+    }
+
+    /**
+     * Performs elevator system simulation step and then checks if any elevator that changed its state can now handle
+     * any of the pending requests
+     *
+     * With a stepPool provided, the elevators are moved in parallel in ranges of ELEVATORS_PER_TASK. Requests
+     * fulfilled during the move are only linked to the releasedRequests list of their elevator and are returned to the
+     * shared pool afterwards on the calling thread, where their latencies are recorded, so the results are the same
+     * as for the sequential step. Returning them and updating the candidate states are counted as a part of the
+     * ASSIGN_PENDING_PICKUPS phase.
+     */
+    @Override
+    public void step() {
+        tick++;
+
+        if (stepPool == null) {
+            stepElevators(0, numberOfElevators);
+        } else {
+            stepPool.invoke(new ElevatorRangeTask(this::stepElevators, 0, numberOfElevators, ELEVATORS_PER_TASK));
+        }
+
+        StepPhaseEvent event = StepPhaseEvent.beginIfEnabled();
+        long startNanos = System.nanoTime();
+        boolean anyPending = !pendingPickups.isEmpty();
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (previousDirection[elevatorId] != IDLE) {
+                reindexElevator(elevatorId);
+            }
+
+            if (releasedRequests[elevatorId] != NO_REQUEST) {
+                returnReleasedRequests(elevatorId);
+            }
+
+            if (changedElevators[elevatorId]) {
+                changedElevators[elevatorId] = false;
+                selectPendingPickupsServedBy(elevatorId);
+            }
+        }
+
+        if (anyPending) {
+            pendingPickups.removeSelectedIf(assignElevatorToPendingRequest);
+        }
+
+        stepPhaseCounters.add(StepPhase.ASSIGN_PENDING_PICKUPS, System.nanoTime() - startNanos);
+        if (event != null) {
+            event.commit(StepPhase.ASSIGN_PENDING_PICKUPS, tick, 0, numberOfElevators);
+        }
+
+        elevatorSystemCounters.stepped(tick, pendingPickups.size());
+        publishSnapshot();
+    }
+
+    @Override
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Moves the elevators with elevatorId in [fromElevatorId, toElevatorId) and marks the ones that changed their
+     * state. Touches only the state and the requests of the given elevators. Every elevator is moved before any of
+     * them is updated, so each of the phases is timed once per range.
+     */
+    private void stepElevators(int fromElevatorId, int toElevatorId) {
+        boolean anyPending = !pendingPickups.isEmpty();
+
+        StepPhaseEvent moveEvent = StepPhaseEvent.beginIfEnabled();
+        long startNanos = System.nanoTime();
+
+        for (int elevatorId = fromElevatorId; elevatorId < toElevatorId; elevatorId++) {
+            previousDirection[elevatorId] = direction[elevatorId];
+            // idle elevators have no requests, and there are no pending requests while any elevator is idle
+            if (direction[elevatorId] == IDLE) continue;
+
+            wasHeadingToOppositeDirectionRequest[elevatorId] = isHeadingToOppositeDirectionRequest(elevatorId);
+            makeStep(elevatorId);
+        }
+
+        long movedNanos = System.nanoTime();
+        stepPhaseCounters.add(StepPhase.MOVE_ELEVATORS, movedNanos - startNanos);
+        if (moveEvent != null) {
+            moveEvent.commit(StepPhase.MOVE_ELEVATORS, tick, fromElevatorId, toElevatorId);
+        }
+
+        StepPhaseEvent updateEvent = StepPhaseEvent.beginIfEnabled();
+
+        for (int elevatorId = fromElevatorId; elevatorId < toElevatorId; elevatorId++) {
+            if (previousDirection[elevatorId] == IDLE) continue;
+
+            updateElevatorDirection(elevatorId);
+            updateElevatorDestinationFloor(elevatorId);
+
+            changedElevators[elevatorId] = anyPending && (direction[elevatorId] != previousDirection[elevatorId]
+                    || wasHeadingToOppositeDirectionRequest[elevatorId]);
+            publishElevator(elevatorId);
+        }
+
+        stepPhaseCounters.add(StepPhase.UPDATE_ELEVATORS, System.nanoTime() - movedNanos);
+        if (updateEvent != null) {
+            updateEvent.commit(StepPhase.UPDATE_ELEVATORS, tick, fromElevatorId, toElevatorId);
+        }
+    }
+
+    private void selectPendingPickupsServedBy(int elevatorId) {
+        byte elevatorDirection = direction[elevatorId];
+
+        if (elevatorDirection == IDLE) {
+            pendingPickups.selectAll();
+        } else if (!isHeadingToOppositeDirectionRequest(elevatorId)) {
+            pendingPickups.selectOnTheWay(Direction.of(elevatorDirection), currentFloor[elevatorId]);
+        }
+    }
+
+    /**
+     * Moves the elevator one floor in its direction, removes the fulfilled requests and takes the people waiting on
+     * the reached floor
+     */
+    private void makeStep(int elevatorId) {
+        byte elevatorDirection = direction[elevatorId];
+        if (elevatorDirection == IDLE) return;
+
+        int floor = currentFloor[elevatorId] + elevatorDirection;
+        currentFloor[elevatorId] = floor;
+
+        // everyone waiting on the floor for this elevator is picked up below
+        for (int hallCall = hallCallIndex(floor, UP); hallCall <= hallCallIndex(floor, DOWN); hallCall++) {
+            if (hallCallElevators[hallCall] == elevatorId) {
+                hallCallElevators[hallCall] = NO_ELEVATOR;
+            }
+        }
+
+        int previous = NO_REQUEST;
+        int current = firstRequest[elevatorId];
+        boolean arrived = false;
+
+        while (current != NO_REQUEST) {
+            int next = nextRequest[current];
+            long request = requests[current];
+
+            if (isInElevator(request) && requestDestinationFloor(request) == floor) {
+                arrived = reportArrivedOnce(elevatorId, arrived);
+                reportRequestEvent(ElevatorEventType.DELIVERED, elevatorId, current);
+                removeRequest(elevatorId, previous, current);
+            } else {
+                previous = current;
+            }
+
+            current = next;
+        }
+
+        for (current = firstRequest[elevatorId]; current != NO_REQUEST; current = nextRequest[current]) {
+            long request = requests[current];
+            if (!isInElevator(request) && requestCurrentFloor(request) == floor) {
+                arrived = reportArrivedOnce(elevatorId, arrived);
+                requests[current] = request | IN_ELEVATOR;
+                boardedTicks[current] = tick;
+                reportRequestEvent(ElevatorEventType.BOARDED, elevatorId, current);
+            }
+        }
+    }
+
+    /**
+     * Reports the elevator stopping on its current floor before the first person leaves or enters it
+     * @param arrived - true if the stop has already been reported in this step
+     * @return true
+     */
+    private boolean reportArrivedOnce(int elevatorId, boolean arrived) {
+        if (!arrived) {
+            eventSink.onEvent(ElevatorEventType.ARRIVED, tick, elevatorId, currentFloor[elevatorId], 0, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Same rules as MyElevatorSystem.updateElevatorDirection: direction of the first request if it is being handled,
+     * otherwise the direction towards the floor from which it was called
+     */
+    private void updateElevatorDirection(int elevatorId) {
+        int head = firstRequest[elevatorId];
+
+        if (head == NO_REQUEST) {
+            direction[elevatorId] = IDLE;
+            return;
+        }
+
+        long request = requests[head];
+
+        if (isInElevator(request)) {
+            direction[elevatorId] = requestDirection(request);
+        } else {
+            direction[elevatorId] = requestCurrentFloor(request) < currentFloor[elevatorId] ? DOWN : UP;
+        }
+    }
+
+    /**
+     * Same rules as MyElevatorSystem.updateElevatorDestinationFloor: the farthest stop of the requests in the current
+     * direction or the floor of the first request if there are no requests in that direction
+     */
+    private void updateElevatorDestinationFloor(int elevatorId) {
+        int head = firstRequest[elevatorId];
+
+        if (head == NO_REQUEST) {
+            destinationFloor[elevatorId] = Elevator.IDLE;
+            return;
+        }
+
+        byte elevatorDirection = direction[elevatorId] == UP ? UP : DOWN;
+        int farthestStop = Elevator.IDLE;
+
+        for (int current = head; current != NO_REQUEST; current = nextRequest[current]) {
+            long request = requests[current];
+            if (requestDirection(request) != elevatorDirection) continue;
+
+            int stop = isInElevator(request) ? requestDestinationFloor(request) : requestCurrentFloor(request);
+
+            if (farthestStop == Elevator.IDLE
+                    || (elevatorDirection == UP && stop > farthestStop)
+                    || (elevatorDirection == DOWN && stop < farthestStop)) {
+                farthestStop = stop;
+            }
+        }
+
+        destinationFloor[elevatorId] =
+                farthestStop == Elevator.IDLE ? requestCurrentFloor(requests[head]) : farthestStop;
+    }
+
+    private void handlePickupRequest(int elevatorId, int slot) {
+        reportRequestEvent(ElevatorEventType.PICKUP_ASSIGNED, elevatorId, slot);
+
+        if (requestCurrentFloor(requests[slot]) == currentFloor[elevatorId]) {
+            requests[slot] |= IN_ELEVATOR;
+            boardedTicks[slot] = tick;
+            reportRequestEvent(ElevatorEventType.BOARDED, elevatorId, slot);
+        } else {
+            boardedTicks[slot] = PickupRequest.NO_TICK;
+            hallCallElevators[hallCallIndex(requestCurrentFloor(requests[slot]), requestDirection(requests[slot]))] =
+                    elevatorId;
+        }
+
+        linkRequest(elevatorId, slot);
+    }
+
+    /**
+     * Updates the status of the chosen elevator, same rules as Elevator.updateStatus
+     * @param elevatorId        - elevatorId of the elevator that should be updated
+     * @param currentFloor      - new currentFloor to be set for the chosen elevator
+     * @param destinationFloor  - new destinationFloor to be set for the chosen elevator
+     * @return whether the elevator was updated
+     */
+    @Override
+    public UpdateResult update(int elevatorId, int currentFloor, int destinationFloor) {
+        UpdateResult result = UpdateResult.UPDATED;
+
+        if (elevatorId < 0 || elevatorId >= numberOfElevators) {
+            eventSink.onEvent(ElevatorEventType.INVALID_ELEVATOR_ID, tick, ElevatorEventSink.NO_ELEVATOR, elevatorId,
+                    numberOfElevators, 0);
+            return UpdateResult.INVALID_ELEVATOR_ID;
+        } else if (!isValidFloor(currentFloor) || !isValidFloor(destinationFloor)) {
+            result = UpdateResult.INVALID_FLOOR;
+        } else if (firstRequest[elevatorId] != NO_REQUEST) {
+            result = UpdateResult.OCCUPIED;
+        }
+
+        eventSink.onEvent(result.eventType(), tick, elevatorId, elevatorId, currentFloor, destinationFloor);
+        if (!result.isUpdated()) return result;
+
+        this.currentFloor[elevatorId] = currentFloor;
+
+        if (currentFloor != destinationFloor) {
+            this.destinationFloor[elevatorId] = destinationFloor;
+            direction[elevatorId] = (byte) Integer.signum(destinationFloor - currentFloor);
+            int slot = allocateRequest();
+            requests[slot] = packRequest(currentFloor, destinationFloor, true);
+            createdTicks[slot] = PickupRequest.NO_TICK;
+            linkRequest(elevatorId, slot);
+        }
+
+        reindexElevator(elevatorId);
+        publishElevator(elevatorId);
+
+        if (!pendingPickups.isEmpty()) {
+            selectPendingPickupsServedBy(elevatorId);
+        }
+        return result;
+    }
+
+    @Override
+    public void setEventSink(ElevatorEventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    @Override
+    public ElevatorEventSink getEventSink() {
+        return eventSink;
+    }
+
+    /**
+     * Idle elevators are skipped by the step, so only the elevators that moved or got a request get a new version
+     */
+    @Override
+    public void statusDelta(long sinceVersion, ElevatorStatusDelta delta) {
+        statusTracker.delta(sinceVersion, delta);
+    }
+
+    /**
+     * The snapshot is published at the end of every step, with the requests of every elevator in the order of its list
+     */
+    @Override
+    public long readSnapshot(ElevatorSystemSnapshot snapshot) {
+        return snapshotBuffer.read(snapshot);
+    }
+
+    /**
+     * Prints status of every elevator, in the same format as ElevatorStatus
+     */
+    @Override
+    public void status(PrintStream out) {
+        StringBuilder status = new StringBuilder("ElevatorSystem status:").append(System.lineSeparator());
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            status.append("\tElevator ID: ").append(elevatorId)
+                    .append(" ||| Current floor: ").append(currentFloor[elevatorId])
+                    .append(" ||| Destination floor: ");
+
+            if (destinationFloor[elevatorId] == Elevator.IDLE) {
+                status.append("elevator is currently idle");
+            } else {
+                status.append(destinationFloor[elevatorId]);
+            }
+
+            status.append(System.lineSeparator());
+        }
+
+        out.print(status);
+    }
+
+    /**
+     * Links the slot of the pool at the end of the requests of the given elevator
+     */
+    private void linkRequest(int elevatorId, int slot) {
+        nextRequest[slot] = NO_REQUEST;
+
+        if (firstRequest[elevatorId] == NO_REQUEST) {
+            firstRequest[elevatorId] = slot;
+        } else {
+            nextRequest[lastRequest[elevatorId]] = slot;
+        }
+        lastRequest[elevatorId] = slot;
+        numberOfRequests[elevatorId]++;
+    }
+
+    private void removeRequest(int elevatorId, int previous, int slot) {
+        int next = nextRequest[slot];
+
+        if (previous == NO_REQUEST) {
+            firstRequest[elevatorId] = next;
+        } else {
+            nextRequest[previous] = next;
+        }
+
+        if (lastRequest[elevatorId] == slot) {
+            lastRequest[elevatorId] = previous;
+        }
+        numberOfRequests[elevatorId]--;
+
+        nextRequest[slot] = releasedRequests[elevatorId];
+        releasedRequests[elevatorId] = slot;
+    }
+
+    private void returnReleasedRequests(int elevatorId) {
+        int slot = releasedRequests[elevatorId];
+
+        while (slot != NO_REQUEST) {
+            int next = nextRequest[slot];
+            if (createdTicks[slot] != PickupRequest.NO_TICK) {
+                latencyMetrics.recordDelivered(elevatorId, requestCurrentFloor(requests[slot]), createdTicks[slot],
+                        boardedTicks[slot], tick);
+                elevatorSystemCounters.delivered(boardedTicks[slot] - createdTicks[slot]);
+            }
+
+            freeRequest(slot);
+            slot = next;
+        }
+
+        releasedRequests[elevatorId] = NO_REQUEST;
+    }
+
+    private void freeRequest(int slot) {
+        nextRequest[slot] = freeRequest;
+        freeRequest = slot;
+    }
+
+    private int allocateRequest() {
+        if (freeRequest != NO_REQUEST) {
+            int slot = freeRequest;
+            freeRequest = nextRequest[slot];
+            return slot;
+        }
+
+        if (usedRequests == requests.length) {
+            requests = Arrays.copyOf(requests, usedRequests * 2);
+            createdTicks = Arrays.copyOf(createdTicks, usedRequests * 2);
+            boardedTicks = Arrays.copyOf(boardedTicks, usedRequests * 2);
+            nextRequest = Arrays.copyOf(nextRequest, usedRequests * 2);
+        }
+
+        return usedRequests++;
+    }
+
+    private void publishElevator(int elevatorId) {
+        elevatorSystemCounters.elevatorChanged(elevatorId, currentFloor[elevatorId], destinationFloor[elevatorId],
+                direction[elevatorId], numberOfRequests[elevatorId]);
+        statusTracker.published(elevatorId, currentFloor[elevatorId], destinationFloor[elevatorId],
+                direction[elevatorId]);
+    }
+
+    private void publishSnapshot() {
+        snapshotBuffer.beginPublish(tick, pendingPickups.size());
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            snapshotBuffer.publishElevator(elevatorId, currentFloor[elevatorId], destinationFloor[elevatorId],
+                    direction[elevatorId]);
+
+            for (int current = firstRequest[elevatorId]; current != NO_REQUEST; current = nextRequest[current]) {
+                long request = requests[current];
+                snapshotBuffer.publishRequest(elevatorId, requestCurrentFloor(request),
+                        requestDestinationFloor(request), isInElevator(request));
+            }
+        }
+
+        snapshotBuffer.endPublish();
+    }
+
+    private boolean isValidFloor(int floor) {
+        return floor >= 0 && floor < numberOfFloors;
+    }
+
+    private static long packRequest(int currentFloor, int destinationFloor, boolean inElevator) {
+        long request = ((long) currentFloor << 32) | destinationFloor;
+        return inElevator ? request | IN_ELEVATOR : request;
+    }
+
+    private static int requestCurrentFloor(long request) {
+        return (int) (request >>> 32) & FLOOR_MASK;
+    }
+
+    private static int requestDestinationFloor(long request) {
+        return (int) request & FLOOR_MASK;
+    }
+
+    private static boolean isInElevator(long request) {
+        return (request & IN_ELEVATOR) != 0;
+    }
+
+    private static byte requestDirection(long request) {
+        return (byte) Integer.signum(requestDestinationFloor(request) - requestCurrentFloor(request));
+    }
+
+    private static int hallCallIndex(int floor, byte direction) {
+        return 2 * floor + (direction == UP ? 0 : 1);
+    }
+
+    private static boolean sameSign(int x, int y) {
+        return ((x < 0) == (y < 0));
+    }
+
+    public int getNumberOfElevators() {
+        return numberOfElevators;
+    }
+
+    public int getNumberOfFloors() {
+        return numberOfFloors;
+    }
+
+    public int getCurrentFloor(int elevatorId) {
+        return currentFloor[elevatorId];
+    }
+
+    public int getDestinationFloor(int elevatorId) {
+        return destinationFloor[elevatorId];
+    }
+
+    public Direction getDirection(int elevatorId) {
+        return Direction.of(direction[elevatorId]);
+    }
+
+    /**
+     * @return number of pickup requests handled by the elevator with the given elevatorId
+     */
+    public int getNumberOfRequests(int elevatorId) {
+        return numberOfRequests[elevatorId];
+    }
+
+    @Override
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
+    }
+
+    @Override
+    public StepPhaseCounters getStepPhaseCounters() {
+        return stepPhaseCounters;
+    }
+
+    @Override
+    public ElevatorSystemCounters getElevatorSystemCounters() {
+        return elevatorSystemCounters;
+    }
+
+    // for testing only
+    public List<PickupRequest> getPendingPickups() {
+        return Arrays.stream(pendingPickups.toArray())
+                .mapToObj(slot -> {
+                    long request = requests[(int) slot];
+                    PickupRequest pickupRequest = new PickupRequest(requestCurrentFloor(request),
+                            Direction.of(requestDirection(request)), requestDestinationFloor(request));
+                    pickupRequest.setCreatedTick(createdTicks[(int) slot]);
+                    return pickupRequest;
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -1,29 +1,179 @@
 package pl.edu.agh.elevatorsystem.elevator_system;
 
+import pl.edu.agh.elevatorsystem.event.ElevatorEventPublisher;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+import pl.edu.agh.elevatorsystem.event.EventOverflowPolicy;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
+import pl.edu.agh.elevatorsystem.metrics.LatencyMetrics;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseCounters;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executor;
+
 public interface IElevatorSystem {
     /**
      * Handles the pickup request
      * @param currentFloor      - floor from which the request for the elevator was called
      * @param direction         - direction in which the calling person would want to go (>0 - up, <0 - down)
      * @param destinationFloor  - floor that the person calling the elevator would want to be taken to
+     * @return whether the request was assigned, queued up or dropped
+     */
+    PickupResult pickup(int currentFloor, int direction, int destinationFloor);
+
+    /**
+     * Handles the batch of pickup requests called in the same tick, the i-th request being described by the i-th
+     * element of every array. Implementations that do not assign the batch as a whole handle the requests one by one
+     * in the order they are given.
+     *
+     * @param currentFloors     - floors from which the requests for the elevator were called
+     * @param directions        - directions in which the calling people would want to go (>0 - up, <0 - down)
+     * @param destinationFloors - floors that the people calling the elevator would want to be taken to
      */
-    void pickup(int currentFloor, int direction, int destinationFloor);
+    default void pickupBatch(int[] currentFloors, int[] directions, int[] destinationFloors) {
+        if (currentFloors.length != directions.length || currentFloors.length != destinationFloors.length) {
+            getEventSink().onEvent(ElevatorEventType.INVALID_PICKUP_BATCH, getTick(), ElevatorEventSink.NO_ELEVATOR,
+                    currentFloors.length, directions.length, destinationFloors.length);
+            return;
+        }
+
+        for (int i = 0; i < currentFloors.length; i++) {
+            pickup(currentFloors[i], directions[i], destinationFloors[i]);
+        }
+    }
 
     /**
      * Updates the state of the given elevator
      * @param elevatorId        - elevatorId of the elevator that should be updated
      * @param currentFloor      - new currentFloor to be set for the chosen elevator
      * @param destinationFloor  - new destinationFloor to be set for the chosen elevator
+     * @return whether the elevator was updated
      */
-    void update(int elevatorId, int currentFloor, int destinationFloor);
+    UpdateResult update(int elevatorId, int currentFloor, int destinationFloor);
 
     /**
      * Performs the elevator system simulation step
      */
     void step();
 
+    /**
+     * @return number of the simulation steps performed so far
+     */
+    long getTick();
+
+    /**
+     * Advances the simulation to the given tick, leaving the elevator system in the same state as calling step()
+     * (tick - getTick()) times. Does nothing if the given tick is not after the current one.
+     *
+     * @param tick - tick that the simulation should be advanced to
+     */
+    default void stepUntil(long tick) {
+        while (getTick() < tick) {
+            step();
+        }
+    }
+
+    /**
+     * Advances the simulation to the closest tick on which any elevator picks up or drops off anyone, which changes
+     * the state of the elevator system more than just moving the elevators. Implementations that do not track the
+     * events perform a single step, which never skips any event.
+     *
+     * @return tick that the simulation was advanced to
+     */
+    default long advanceToNextEvent() {
+        step();
+        return getTick();
+    }
+
+    /**
+     * @return wait and ride times of the pickup requests delivered so far
+     */
+    LatencyMetrics getLatencyMetrics();
+
+    /**
+     * @return time spent in every phase of the simulation steps performed so far
+     */
+    StepPhaseCounters getStepPhaseCounters();
+
+    /**
+     * @return live state of the elevator system and its elevators, safe to be read from any thread
+     */
+    ElevatorSystemCounters getElevatorSystemCounters();
+
+    /**
+     * @param eventSink - sink that the diagnostics and state transitions are reported to, ElevatorEventSink.CONSOLE
+     *                  by default
+     */
+    void setEventSink(ElevatorEventSink eventSink);
+
+    /**
+     * @return sink that the diagnostics and state transitions are reported to
+     */
+    ElevatorEventSink getEventSink();
+
+    /**
+     * Publishes the events of the elevator system to the Flow subscribers of the returned publisher, which also
+     * passes them to the current event sink. The subscribers get the events on the threads of the executor, so a slow
+     * subscriber never blocks the step.
+     *
+     * @param executor       - executor delivering the events to the subscribers, e.g. ForkJoinPool.commonPool()
+     * @param bufferCapacity - maximum number of events buffered for every subscriber,
+     *                         ElevatorEventPublisher.DEFAULT_BUFFER_CAPACITY by default
+     * @param overflowPolicy - what happens to the events reported while the buffer of a subscriber is full
+     * @return publisher set as the event sink of the elevator system
+     */
+    default ElevatorEventPublisher publishEvents(Executor executor, int bufferCapacity,
+                                                 EventOverflowPolicy overflowPolicy) {
+        ElevatorEventPublisher eventPublisher = new ElevatorEventPublisher(getEventSink(), executor, bufferCapacity,
+                overflowPolicy, getElevatorSystemCounters().getNumberOfElevators());
+        setEventSink(eventPublisher);
+        return eventPublisher;
+    }
+
+    /**
+     * Fills the delta with the status of the elevators whose floor, destination floor or direction changed since
+     * the given version, so polling the status costs as much as the elevators that changed. Must be called by the
+     * simulation thread.
+     *
+     * @param sinceVersion - version of the delta returned by the previous call or ElevatorStatusDelta.FULL_SNAPSHOT
+     *                     for the status of every elevator
+     * @param delta        - delta to be filled, reused between the calls
+     */
+    void statusDelta(long sinceVersion, ElevatorStatusDelta delta);
+
+    /**
+     * @param sinceVersion - version of the delta returned by the previous call or ElevatorStatusDelta.FULL_SNAPSHOT
+     *                     for the status of every elevator
+     * @return new delta with the status of the elevators changed since the given version
+     */
+    default ElevatorStatusDelta statusDelta(long sinceVersion) {
+        ElevatorStatusDelta delta = new ElevatorStatusDelta();
+        statusDelta(sinceVersion, delta);
+        return delta;
+    }
+
+    /**
+     * Copies the state of the elevators and their pickup requests published at the end of the last step into the
+     * snapshot. Safe to be called by any number of threads while the simulation is running, never blocks the
+     * simulation thread and never returns the state torn by a step in progress.
+     *
+     * @param snapshot - snapshot owned by the calling thread, reused between the calls
+     * @return version of the snapshot, growing with every step
+     */
+    long readSnapshot(ElevatorSystemSnapshot snapshot);
+
     /**
      * Displays current state of the elevator system (elevators list and their status)
      */
-    void status();
+    default void status() {
+        status(System.out);
+    }
+
+    /**
+     * Prints current state of the elevator system (elevators list and their status) to the given stream
+     *
+     * @param out - stream that the state is printed to
+     */
+    void status(PrintStream out);
 }
@@ -3,11 +3,29 @@ package pl.edu.agh.elevatorsystem.elevator_system;
 import pl.edu.agh.elevatorsystem.elevator.Direction;
 import pl.edu.agh.elevatorsystem.elevator.Elevator;
 import pl.edu.agh.elevatorsystem.elevator.ElevatorStatus;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.ClosestElevatorDispatchStrategy;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.DispatchStrategy;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.ElevatorDispatchState;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PackedPickupRequest;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PendingPickups;
 import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PickupRequest;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshotBuffer;
+import pl.edu.agh.elevatorsystem.metrics.LatencyMetrics;
+import pl.edu.agh.elevatorsystem.metrics.PickupAssignmentEvent;
+import pl.edu.agh.elevatorsystem.metrics.StepPhase;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseCounters;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseEvent;
 
-import java.util.ArrayList;
+import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -19,31 +37,154 @@ import static pl.edu.agh.elevatorsystem.util.Constants.*;
  * On pickup request:
  *
  * Find the closest elevator that is idle or is moving in the same direction as the request direction and the floor from
- * which the request was called is on the elevator's way. Otherwise save the request to the pendingRequests list and
+ * which the request was called is on the elevator's way. Otherwise save the request to the pendingPickups queue and
  * check if there is any elevator that could handle the request after every elevator system simulation step.
  *
+ * Pickup requests are packed into longs (see PackedPickupRequest) and kept in primitive arrays by the elevators and
+ * the pendingPickups queue, PickupRequest objects are only created as views by the methods used for testing. Once
+ * warmed up, step() without a stepPool and pickup() do not allocate.
  */
 public class MyElevatorSystem implements IElevatorSystem {
 
+    // elevators moved by one fork/join task in the parallel step
+    private static final int ELEVATORS_PER_TASK = 4;
+
+    // events are kept as (tick << EVENT_ELEVATOR_ID_BITS | elevatorId), ordered by tick and then by elevatorId
+    private static final int EVENT_ELEVATOR_ID_BITS = Integer.SIZE - Integer.numberOfLeadingZeros(MAX_ELEVATORS - 1);
+    private static final long EVENT_ELEVATOR_ID_MASK = (1L << EVENT_ELEVATOR_ID_BITS) - 1;
+    private static final long NO_EVENT = -1;
+
+    public static final long NO_STARVATION_THRESHOLD = 0;
+    public static final int UNLIMITED_PENDING_PICKUPS = Integer.MAX_VALUE;
+    private static final long NO_RESERVATION = PackedPickupRequest.INVALID;
+    private static final int NO_ELEVATOR = -1;
+
     private final int numberOfElevators;
     private final List<Elevator> elevators;
-    private final List<PickupRequest> pendingPickups = new ArrayList<>();
+    // pending requests in buckets keyed by floor and direction
+    private final PendingPickups pendingPickups = new PendingPickups(MAX_FLOORS);
+    // elevator answering the hall call of every floor and direction (floor * 2 + 0 for UP, 1 for DOWN) or
+    // NO_ELEVATOR, valid only while that elevator has the hall call. People waiting on the same floor to go in the
+    // same direction make one hall call, so the requests called from there join that elevator until it picks them up
+    private final int[] hallCallElevators = new int[2 * MAX_FLOORS];
+    // created once, as a method reference or a capturing lambda allocates on every use
+    private final LongPredicate assignElevatorToPendingRequest = this::assignElevatorToRequestIfPossible;
+
+    // requests of the pickup batch, the pending ones first, and whether each of them has been assigned
+    private long[] batchRequests = new long[16];
+    private boolean[] assignedBatchRequests = new boolean[16];
+    private int numberOfBatchRequests = 0;
+    // number of the pending requests of the batch tested by removeAssignedPendingRequest
+    private int testedPendingRequests = 0;
+    private final LongPredicate addPendingRequestToBatch = this::addPendingRequestToBatch;
+    private final LongPredicate removeAssignedPendingRequest = this::removeAssignedPendingRequest;
+    // hall calls (see hallCallIndex) of the requests given to the batchAssignment, the first request of each
+    private final boolean[] batchHallCalls = new boolean[2 * MAX_FLOORS];
+    // requests of the batch in the order they were given to the batchAssignment
+    private int[] solvedRequests = new int[16];
+    private final BatchAssignment batchAssignment;
+    private final LongPredicate reserveElevatorIfStarving = this::reserveElevatorIfStarving;
+    // removes the first pending request equal to the reservedRequest
+    private final ReservedRequestFilter removeReservedRequest = new ReservedRequestFilter();
+
+    private final ForkJoinPool stepPool;
+    // elevators that changed their state in the current step, so the pending requests they serve must be checked
+    private final boolean[] changedElevators;
+    // state of the elevators before being moved, used to find the ones that changed their state
+    private final Direction[] previousDirections;
+    private final boolean[] wereHeadingToOppositeDirectionRequest;
+
+    private long tick = 0;
+    // used by stepUntil: tick on which the elevator was on its currentFloor
+    private final long[] floorTicks;
+    private final int[] eventElevators;
+    // binary heap of the scheduled events, at most one per elevator
+    private final long[] events;
+    private int numberOfEvents = 0;
+    // elevatorIds of every elevator, stepped in ranges by step()
+    private final int[] elevatorIds;
+    private final ElevatorRangeTask.ElevatorRangeStep stepElevatorRange;
+
+    private final LatencyMetrics latencyMetrics;
+    // always-on timing of every phase of the step, which is also covered by a StepPhaseEvent of the Flight Recorder
+    private final StepPhaseCounters stepPhaseCounters = new StepPhaseCounters();
+    // state of every elevator published once it is changed, the tick and the pending requests once the step is done
+    private final ElevatorSystemCounters elevatorSystemCounters;
+    private final ElevatorStatusTracker statusTracker;
+    private final ElevatorSystemSnapshotBuffer snapshotBuffer;
+    // number of elevators that could handle the request in the last findBestElevator call
+    private int bestElevatorCandidates = 0;
+
+    // current floor, ElevatorCandidateScan state and stops of every elevator, kept up to date by updateCandidateState
+    private final ElevatorDispatchState dispatchState;
+    private final DispatchStrategy dispatchStrategy;
+
+    // ticks after which a pending request gets an elevator reserved, NO_STARVATION_THRESHOLD if disabled
+    private long starvationThreshold = NO_STARVATION_THRESHOLD;
+    // request that every elevator is reserved for or NO_RESERVATION
+    private final long[] reservedRequests;
+    private final int maxReservedElevators;
+    private int numberOfReservedElevators = 0;
+
+    // maximum number of pending requests and what happens to the requests above it, see setAdmissionControl
+    private int pendingPickupsCapacity = UNLIMITED_PENDING_PICKUPS;
+    private AdmissionPolicy admissionPolicy = AdmissionPolicy.REJECT;
+
+    private ElevatorEventSink eventSink = ElevatorEventSink.CONSOLE;
+
+    public MyElevatorSystem(int numberOfElevators) {
+        this(numberOfElevators, null);
+    }
 
     /**
      * Constructor checks the numberOfElevators provided and saves created elevators to the elevators list
      * @param numberOfElevators - number of elevators that the elevator system is going to have [minimum 1, maximum 16]
+     * @param stepPool          - pool moving the elevators in parallel during the step, null for the sequential step
      */
-    public MyElevatorSystem(int numberOfElevators) {
+    public MyElevatorSystem(int numberOfElevators, ForkJoinPool stepPool) {
+        this(numberOfElevators, stepPool, new ClosestElevatorDispatchStrategy());
+    }
+
+    /**
+     * @param numberOfElevators - number of elevators that the elevator system is going to have [minimum 1, maximum 16]
+     * @param stepPool          - pool moving the elevators in parallel during the step, null for the sequential step
+     * @param dispatchStrategy  - strategy choosing the elevator for every pickup request, not shared with any other
+     *                            elevator system
+     */
+    public MyElevatorSystem(int numberOfElevators, ForkJoinPool stepPool, DispatchStrategy dispatchStrategy) {
         this.numberOfElevators = assignNumberOfElevators(numberOfElevators);
+        this.stepPool = stepPool;
+        this.dispatchStrategy = dispatchStrategy;
         elevators = createElevators();
+        changedElevators = new boolean[this.numberOfElevators];
+        previousDirections = new Direction[this.numberOfElevators];
+        wereHeadingToOppositeDirectionRequest = new boolean[this.numberOfElevators];
+        floorTicks = new long[this.numberOfElevators];
+        eventElevators = new int[this.numberOfElevators];
+        batchAssignment = new BatchAssignment(this.numberOfElevators);
+        events = new long[this.numberOfElevators];
+        elevatorIds = IntStream.range(0, this.numberOfElevators).toArray();
+        stepElevatorRange = (from, to) -> stepElevators(elevatorIds, from, to);
+        latencyMetrics = new LatencyMetrics(this.numberOfElevators, MAX_FLOORS);
+        elevatorSystemCounters = new ElevatorSystemCounters(this.numberOfElevators);
+        statusTracker = new ElevatorStatusTracker(this.numberOfElevators);
+        snapshotBuffer = new ElevatorSystemSnapshotBuffer(this.numberOfElevators);
+        dispatchState = new ElevatorDispatchState(this.numberOfElevators);
+        reservedRequests = new long[this.numberOfElevators];
+        Arrays.fill(reservedRequests, NO_RESERVATION);
+        maxReservedElevators = Math.max(1, this.numberOfElevators / 2);
+        Arrays.fill(hallCallElevators, NO_ELEVATOR);
+        publishSnapshot();
     }
 
     private int assignNumberOfElevators(int numberOfElevators) {
         if (numberOfElevators > MAX_ELEVATORS) {
-            System.out.println("This system is for 16 elevators maximum. Creating 16 elevators...\n");
+            eventSink.onEvent(ElevatorEventType.TOO_MANY_ELEVATORS, tick, ElevatorEventSink.NO_ELEVATOR,
+                    numberOfElevators, MAX_ELEVATORS, 0);
             numberOfElevators = MAX_ELEVATORS;
         } else if (numberOfElevators < MIN_ELEVATORS) {
-            System.out.println("Minimum 1 elevator must be created for this system. Creating 1 elevator...\n");
+            eventSink.onEvent(ElevatorEventType.TOO_FEW_ELEVATORS, tick, ElevatorEventSink.NO_ELEVATOR,
+                    numberOfElevators, MIN_ELEVATORS, 0);
             numberOfElevators = MIN_ELEVATORS;
         }
 
@@ -51,90 +192,425 @@ public class MyElevatorSystem implements IElevatorSystem {
     }
 
     private List<Elevator> createElevators() {
-        return IntStream.range(0, numberOfElevators)
+        List<Elevator> elevators = IntStream.range(0, numberOfElevators)
                 .mapToObj(Elevator::new)
                 .collect(Collectors.toList());
+        elevators.forEach(elevator -> elevator.setEventSink(eventSink));
+        return elevators;
     }
 
     /**
-     * Checks if received parameters can be used to create valid PickupRequest object and then checks if there is
+     * Checks if received parameters describe a valid pickup request and then checks if there is
      * any elevator that can handle the request using the assignElevatorToRequestIfPossible method. If there is not any
-     * then the pickup request is added to the pendingRequests list.
+     * then the pickup request is added to the pendingPickups queue, as long as the admission control lets it in.
      *
      * @param currentFloor      - floor from which the request for the elevator was called
      * @param direction         - direction in which the calling person would want to go (>0 - up, <0 - down)
      * @param destinationFloor  - floor that the person calling the elevator would want to be taken to
+     * @return whether the request was assigned, queued up or dropped
+     */
+    @Override
+    public PickupResult pickup(int currentFloor, int direction, int destinationFloor) {
+        long request = createPickupRequest(currentFloor, direction, destinationFloor);
+        if (request == PackedPickupRequest.INVALID) return PickupResult.INVALID;
+
+        if (assignElevatorToRequestIfPossible(request)) return PickupResult.ASSIGNED;
+
+        PickupResult result = addPendingPickup(request);
+        elevatorSystemCounters.pendingPickupsChanged(pendingPickups.size());
+        return result;
+    }
+
+    /**
+     * Validates the whole batch of pickup requests and then assigns it together with the pending requests that any
+     * elevator could handle using the assignBatch method. Invalid requests are skipped and the ones that could not be
+     * assigned are added to the pendingPickups queue, the pending requests keeping their place in the queue. The
+     * admission control is applied to every new request that is added to the queue, in the order of the batch.
+     *
+     * The BatchAssignment chooses the trip of every idle elevator to get the lowest total cost (by default the
+     * distance, which is how long the request waits) of the whole batch. Moving elevators take any number of requests
+     * on their way, and so do idle elevators going up or down, so an elevator is not sent for a request that another
+     * one takes on the way. Requests of the same floor and direction are assigned once, as they make one hall call.
+     * The requests left are assigned one by one in the order of the batch, the pending requests first. The arrays
+     * used by the batch grow with the biggest batch seen and are reused.
+     *
+     * @param currentFloors     - floors from which the requests for the elevator were called
+     * @param directions        - directions in which the calling people would want to go (>0 - up, <0 - down)
+     * @param destinationFloors - floors that the people calling the elevator would want to be taken to
      */
     @Override
-    public void pickup(int currentFloor, int direction, int destinationFloor) {
-        if (!sameSign(destinationFloor - currentFloor, direction) || (destinationFloor == currentFloor)) {
-            System.out.println("Invalid pickup request");
+    public void pickupBatch(int[] currentFloors, int[] directions, int[] destinationFloors) {
+        if (currentFloors.length != directions.length || currentFloors.length != destinationFloors.length) {
+            eventSink.onEvent(ElevatorEventType.INVALID_PICKUP_BATCH, tick, ElevatorEventSink.NO_ELEVATOR,
+                    currentFloors.length, directions.length, destinationFloors.length);
             return;
         }
 
-        PickupRequest pickupRequest = new PickupRequest(currentFloor, Direction.of(direction), destinationFloor);
-        if (!assignElevatorToRequestIfPossible(pickupRequest)) {
-            pendingPickups.add(pickupRequest);
+        numberOfBatchRequests = 0;
+        if (!pendingPickups.isEmpty()) {
+            for (Elevator elevator : elevators) {
+                selectPendingPickupsServedBy(elevator);
+            }
+            // collects the selected pending requests in the order they were queued up, leaving them in the queue
+            pendingPickups.removeSelectedIf(addPendingRequestToBatch);
+        }
+        int numberOfPendingPickups = numberOfBatchRequests;
+
+        for (int i = 0; i < currentFloors.length; i++) {
+            long request = createPickupRequest(currentFloors[i], directions[i], destinationFloors[i]);
+            if (request != PackedPickupRequest.INVALID) {
+                addBatchRequest(request);
+            }
+        }
+
+        assignBatch();
+
+        if (numberOfPendingPickups > 0) {
+            // selects the same buckets again, which are tested in the same order as when they were collected
+            for (int i = 0; i < numberOfPendingPickups; i++) {
+                pendingPickups.selectFloor(PackedPickupRequest.direction(batchRequests[i]),
+                        PackedPickupRequest.currentFloor(batchRequests[i]));
+            }
+            testedPendingRequests = 0;
+            pendingPickups.removeSelectedIf(removeAssignedPendingRequest);
+        }
+
+        for (int i = numberOfPendingPickups; i < numberOfBatchRequests; i++) {
+            if (!assignedBatchRequests[i]) {
+                addPendingPickup(batchRequests[i]);
+            }
         }
+
+        elevatorSystemCounters.pendingPickupsChanged(pendingPickups.size());
+    }
+
+    private boolean addPendingRequestToBatch(long request) {
+        addBatchRequest(request);
+        return false;
+    }
+
+    private boolean removeAssignedPendingRequest(long request) {
+        return assignedBatchRequests[testedPendingRequests++];
+    }
+
+    private void addBatchRequest(long request) {
+        if (numberOfBatchRequests == batchRequests.length) {
+            batchRequests = Arrays.copyOf(batchRequests, 2 * numberOfBatchRequests);
+            assignedBatchRequests = Arrays.copyOf(assignedBatchRequests, 2 * numberOfBatchRequests);
+            solvedRequests = Arrays.copyOf(solvedRequests, 2 * numberOfBatchRequests);
+        }
+        batchRequests[numberOfBatchRequests] = request;
+        assignedBatchRequests[numberOfBatchRequests] = false;
+        numberOfBatchRequests++;
     }
 
     /**
-     * Uses findBestElevator method to get the best elevator for the provided pickupRequest. Received elevator is used
-     * to handle the pickup request and then has direction and destination floor updated.
+     * @return pickup request packed from the given parameters and stamped with the current tick or
+     * PackedPickupRequest.INVALID if they do not describe a valid request
+     */
+    private long createPickupRequest(int currentFloor, int direction, int destinationFloor) {
+        // pending requests are bucketed by floor, so out of range requests are rejected before being queued up
+        if (!sameSign(destinationFloor - currentFloor, direction) || (destinationFloor == currentFloor)
+                || direction == 0 || !isValidFloor(currentFloor) || !isValidFloor(destinationFloor)) {
+            eventSink.onEvent(ElevatorEventType.INVALID_PICKUP, tick, ElevatorEventSink.NO_ELEVATOR, currentFloor,
+                    direction, destinationFloor);
+            return PackedPickupRequest.INVALID;
+        }
+
+        return PackedPickupRequest.pack(currentFloor, Direction.of(direction), destinationFloor, false, tick);
+    }
+
+    /**
+     * Adds the request to the pendingPickups queue if the admission control lets it in, see setAdmissionControl
+     * @param request - packed pickup request that could not be assigned to any elevator
+     * @return QUEUED if the queue was not full, the result of the admissionPolicy otherwise
+     */
+    private PickupResult addPendingPickup(long request) {
+        PickupResult result = PickupResult.QUEUED;
+
+        if (pendingPickups.size() >= pendingPickupsCapacity) {
+            switch (admissionPolicy) {
+                case REJECT -> {
+                    reportPickupEvent(ElevatorEventType.PICKUP_REJECTED, ElevatorEventSink.NO_ELEVATOR, request);
+                    elevatorSystemCounters.rejected();
+                    return PickupResult.REJECTED;
+                }
+                case SHED_OLDEST -> {
+                    long shedRequest = pendingPickups.removeOldest();
+                    if (numberOfReservedElevators > 0) {
+                        releaseReservation(shedRequest);
+                    }
+                    reportPickupEvent(ElevatorEventType.PICKUP_SHED, ElevatorEventSink.NO_ELEVATOR, shedRequest);
+                    elevatorSystemCounters.shed();
+                    result = PickupResult.QUEUED_OLDEST_SHED;
+                }
+                case BACKPRESSURE -> result = PickupResult.QUEUED_OVER_CAPACITY;
+            }
+        }
+
+        pendingPickups.add(request, PackedPickupRequest.currentFloor(request), PackedPickupRequest.direction(request));
+        elevatorSystemCounters.queued(result == PickupResult.QUEUED_OVER_CAPACITY);
+        reportPickupEvent(ElevatorEventType.PICKUP_QUEUED, ElevatorEventSink.NO_ELEVATOR, request);
+        return result;
+    }
+
+    private void reportPickupEvent(ElevatorEventType type, int elevatorId, long request) {
+        eventSink.onEvent(type, tick, elevatorId, PackedPickupRequest.currentFloor(request),
+                PackedPickupRequest.direction(request).intValue(), PackedPickupRequest.destinationFloor(request));
+    }
+
+    /**
+     * Assigns the requests of the batch, marking them in the assignedBatchRequests array. The requests joining the
+     * hall calls answered by any elevator join it, and the first request of every other hall call is given to the
+     * batchAssignment. Its choices are assigned first for the requests on the floor of their elevator, as an idle
+     * elevator takes the requests on its floor only before leaving it, then for the others. Every choice is checked
+     * again before being assigned. The requests left are assigned one by one in the order of the batch, joining the
+     * hall calls answered by the chosen elevators or taking the best elevator in its new state.
+     */
+    private void assignBatch() {
+        int numberOfSolvedRequests = 0;
+        batchAssignment.reset();
+
+        for (int request = 0; request < numberOfBatchRequests; request++) {
+            long pickupRequest = batchRequests[request];
+            if (joinHallCall(pickupRequest)) {
+                assignedBatchRequests[request] = true;
+                continue;
+            }
+
+            int pickupCurrentFloor = PackedPickupRequest.currentFloor(pickupRequest);
+            Direction pickupDirection = PackedPickupRequest.direction(pickupRequest);
+            int hallCall = hallCallIndex(pickupCurrentFloor, pickupDirection);
+            if (!batchHallCalls[hallCall]) {
+                batchHallCalls[hallCall] = true;
+                solvedRequests[numberOfSolvedRequests++] = request;
+                batchAssignment.addRequest(pickupCurrentFloor, pickupDirection.intValue());
+            }
+        }
+
+        batchAssignment.solve(dispatchState, dispatchStrategy);
+
+        for (int pass = 0; pass < 2; pass++) {
+            boolean onElevatorFloor = pass == 0;
+            for (int i = 0; i < numberOfSolvedRequests; i++) {
+                int elevatorId = batchAssignment.getElevator(i);
+                if (elevatorId == BatchAssignment.NO_ELEVATOR) continue;
+
+                int request = solvedRequests[i];
+                long pickupRequest = batchRequests[request];
+                int pickupCurrentFloor = PackedPickupRequest.currentFloor(pickupRequest);
+                Direction pickupDirection = PackedPickupRequest.direction(pickupRequest);
+                Elevator elevator = elevators.get(elevatorId);
+                int distance = distance(elevator, pickupCurrentFloor);
+                if ((distance == 0) != onElevatorFloor
+                        || !canPickupRequest(elevatorId, pickupDirection, pickupCurrentFloor)) continue;
+
+                PickupAssignmentEvent event = PickupAssignmentEvent.beginIfEnabled();
+                int candidates = event != null ? countCandidates(pickupCurrentFloor, pickupDirection) : 0;
+                assignElevatorToRequest(elevator, pickupRequest);
+                if (event != null) {
+                    event.commit(tick, pickupCurrentFloor, PackedPickupRequest.destinationFloor(pickupRequest),
+                            candidates, elevatorId, distance);
+                }
+                assignedBatchRequests[request] = true;
+            }
+        }
+
+        for (int i = 0; i < numberOfSolvedRequests; i++) {
+            long pickupRequest = batchRequests[solvedRequests[i]];
+            batchHallCalls[hallCallIndex(PackedPickupRequest.currentFloor(pickupRequest),
+                    PackedPickupRequest.direction(pickupRequest))] = false;
+        }
+
+        for (int request = 0; request < numberOfBatchRequests; request++) {
+            if (!assignedBatchRequests[request]) {
+                assignedBatchRequests[request] = assignElevatorToRequestIfPossible(batchRequests[request]);
+            }
+        }
+    }
+
+    private int countCandidates(int pickupCurrentFloor, Direction pickupDirection) {
+        int candidates = 0;
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (canPickupRequest(elevatorId, pickupDirection, pickupCurrentFloor)) candidates++;
+        }
+        return candidates;
+    }
+
+    /**
+     * Joins the request to the elevator answering its hall call if there is one, otherwise uses findBestElevator
+     * method to get the best elevator for the provided pickup request. Received elevator is used to handle the pickup
+     * request and then has direction and destination floor updated.
      *
-     * @param pickupRequest - pickup request that needs to be handled
+     * @param request - packed pickup request that needs to be handled
      * @return true if there was any elevator being able to handle the pickup request. Returns false otherwise.
      */
-    private boolean assignElevatorToRequestIfPossible(PickupRequest pickupRequest) {
-        Optional<Elevator> bestElevator = findBestElevator(pickupRequest);
+    private boolean assignElevatorToRequestIfPossible(long request) {
+        if (joinHallCall(request)) return true;
 
-        bestElevator.ifPresent(
-                elevator -> {
-                    elevator.handlePickupRequest(pickupRequest);
-                    updateElevatorDirection(elevator);
-                    updateElevatorDestinationFloor(elevator);
-                }
-        );
+        PickupAssignmentEvent event = PickupAssignmentEvent.beginIfEnabled();
+
+        int pickupCurrentFloor = PackedPickupRequest.currentFloor(request);
+        Elevator elevator = findBestElevator(pickupCurrentFloor, PackedPickupRequest.direction(request));
+
+        if (elevator == null) {
+            if (event != null) {
+                event.commit(tick, pickupCurrentFloor, PackedPickupRequest.destinationFloor(request),
+                        bestElevatorCandidates, PickupAssignmentEvent.NO_ELEVATOR, 0);
+            }
+            return false;
+        }
+
+        ElevatorStatus elevatorStatus = elevator.getElevatorStatus();
+        int distance = Math.abs(elevatorStatus.getCurrentFloor() - pickupCurrentFloor);
 
-        return bestElevator.isPresent();
+        assignElevatorToRequest(elevator, request);
+        if (event != null) {
+            event.commit(tick, pickupCurrentFloor, PackedPickupRequest.destinationFloor(request),
+                    bestElevatorCandidates, elevatorStatus.getElevatorId(), distance);
+        }
+        return true;
+    }
+
+    private void assignElevatorToRequest(Elevator elevator, long request) {
+        if (numberOfReservedElevators > 0) {
+            releaseReservation(request);
+        }
+
+        reportPickupEvent(ElevatorEventType.PICKUP_ASSIGNED, elevator.getElevatorStatus().getElevatorId(), request);
+        elevator.handlePickupRequest(request, tick);
+
+        int pickupCurrentFloor = PackedPickupRequest.currentFloor(request);
+        Direction pickupDirection = PackedPickupRequest.direction(request);
+        if (elevator.hasHallCall(pickupDirection, pickupCurrentFloor)) {
+            hallCallElevators[hallCallIndex(pickupCurrentFloor, pickupDirection)] =
+                    elevator.getElevatorStatus().getElevatorId();
+        }
+        updateElevatorDirection(elevator);
+        updateElevatorDestinationFloor(elevator);
+
+        elevatorSystemCounters.assigned();
+        publishElevator(elevator);
+    }
+
+    /**
+     * @param request - packed pickup request
+     * @return elevatorId of the elevator that is going to pick up the people waiting on the floor from which the
+     * request was called to go in its direction or NO_ELEVATOR if there is none
+     */
+    private int findHallCallElevator(long request) {
+        int pickupCurrentFloor = PackedPickupRequest.currentFloor(request);
+        Direction pickupDirection = PackedPickupRequest.direction(request);
+        int elevatorId = hallCallElevators[hallCallIndex(pickupCurrentFloor, pickupDirection)];
+
+        if (elevatorId == NO_ELEVATOR || !elevators.get(elevatorId).hasHallCall(pickupDirection, pickupCurrentFloor)) {
+            return NO_ELEVATOR;
+        }
+        return elevatorId;
+    }
+
+    /**
+     * Assigns the request to the elevator answering its hall call, without looking for the best elevator
+     * @param request - packed pickup request
+     * @return true if any elevator answers the hall call of the request. Returns false otherwise
+     */
+    private boolean joinHallCall(long request) {
+        int elevatorId = findHallCallElevator(request);
+        if (elevatorId == NO_ELEVATOR) return false;
+
+        PickupAssignmentEvent event = PickupAssignmentEvent.beginIfEnabled();
+        Elevator elevator = elevators.get(elevatorId);
+
+        assignElevatorToRequest(elevator, request);
+        if (event != null) {
+            int pickupCurrentFloor = PackedPickupRequest.currentFloor(request);
+            event.commit(tick, pickupCurrentFloor, PackedPickupRequest.destinationFloor(request), 1, elevatorId,
+                    distance(elevator, pickupCurrentFloor));
+        }
+        return true;
+    }
+
+    private static int hallCallIndex(int floor, Direction direction) {
+        return 2 * floor + (direction.equals(Direction.UP) ? 0 : 1);
+    }
+
+    /**
+     * Publishes the state of the elevator to the elevatorSystemCounters, the statusTracker and the dispatchState
+     * @param elevator - elevator which state has changed
+     */
+    private void publishElevator(Elevator elevator) {
+        ElevatorStatus elevatorStatus = elevator.getElevatorStatus();
+        elevatorSystemCounters.elevatorChanged(elevatorStatus.getElevatorId(), elevatorStatus.getCurrentFloor(),
+                elevatorStatus.getDestinationFloor(), elevator.getDirection().intValue(),
+                elevator.getNumberOfPickupRequests());
+        statusTracker.published(elevatorStatus.getElevatorId(), elevatorStatus.getCurrentFloor(),
+                elevatorStatus.getDestinationFloor(), elevator.getDirection().intValue());
+        updateCandidateState(elevator);
+    }
+
+    /**
+     * Publishes the state of every elevator and its pickup requests to the snapshotBuffer, called once the step is
+     * finished
+     */
+    private void publishSnapshot() {
+        snapshotBuffer.beginPublish(tick, pendingPickups.size());
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            Elevator elevator = elevators.get(elevatorId);
+            ElevatorStatus elevatorStatus = elevator.getElevatorStatus();
+            snapshotBuffer.publishElevator(elevatorId, elevatorStatus.getCurrentFloor(),
+                    elevatorStatus.getDestinationFloor(), elevator.getDirection().intValue());
+
+            for (int i = 0; i < elevator.getNumberOfPickupRequests(); i++) {
+                long request = elevator.getPickupRequest(i);
+                snapshotBuffer.publishRequest(elevatorId, PackedPickupRequest.currentFloor(request),
+                        PackedPickupRequest.destinationFloor(request), PackedPickupRequest.isInElevator(request));
+            }
+        }
+
+        snapshotBuffer.endPublish();
+    }
+
+    /**
+     * Copies the current floor, state and number of stops of the elevator to the dispatchState
+     * @param elevator - elevator which state has changed
+     */
+    private void updateCandidateState(Elevator elevator) {
+        int elevatorId = elevator.getElevatorStatus().getElevatorId();
+        int state;
+
+        if (reservedRequests[elevatorId] != NO_RESERVATION) {
+            state = ElevatorCandidateScan.UNAVAILABLE;
+        } else if (elevator.getDirection().equals(Direction.IDLE)) {
+            state = ElevatorCandidateScan.IDLE;
+        } else if (isHeadingToOppositeDirectionRequest(elevator)) {
+            state = ElevatorCandidateScan.UNAVAILABLE;
+        } else {
+            state = elevator.getDirection().intValue();
+        }
+
+        dispatchState.update(elevatorId, elevator.getElevatorStatus().getCurrentFloor(), state,
+                elevator.getNumberOfStops());
     }
 
     /**
      * Is used to obtain the best elevator for the given pickup request
      *
-     * @param pickupRequest - pickup request that needs to be handled
-     * @return Optional.empty if no elevator can handle the request for now. Otherwise returns the Optional.of(Elevator)
-     * that contains the elevator that:
-     * 1. has the shortest distance to the floor from which the request was called
+     * @param pickupCurrentFloor - floor from which the pickup request was called
+     * @param pickupDirection    - direction of the pickup request
+     * @return null if no elevator can handle the request for now. Otherwise returns the elevator that:
+     * 1. has the lowest cost according to the dispatchStrategy (by default the shortest distance to the floor from
+     * which the request was called)
      * 2. is idle / has direction matching the request direction
      * 3. has the floor from which the request was called on the way (does not need to change the direction to reach
      * that floor)
      */
-    private Optional<Elevator> findBestElevator(PickupRequest pickupRequest) {
-        Optional<Elevator> bestElevator = Optional.empty();
-        int shortestDistance = 0;
-
-        int pickupCurrentFloor = pickupRequest.getCurrentFloor();
-        Direction pickupDirection = pickupRequest.getDirection();
-
-        for (Elevator elevator : elevators) {
-            if (canPickupRequest(elevator, pickupDirection, pickupCurrentFloor)) {
-                int elevatorCurrentFloor = elevator.getElevatorStatus().getCurrentFloor();
-                int currentDistance = Math.abs(elevatorCurrentFloor - pickupCurrentFloor);
-
-                if (bestElevator.isEmpty()) {
-                    bestElevator = Optional.of(elevator);
-                    shortestDistance = Math.abs(elevatorCurrentFloor - pickupCurrentFloor);
-                } else {
-                    if (currentDistance < shortestDistance) {
-                        shortestDistance = currentDistance;
-                        bestElevator = Optional.of(elevator);
-                    }
-                }
-            }
-        }
+    private Elevator findBestElevator(int pickupCurrentFloor, Direction pickupDirection) {
+        int elevatorId = dispatchStrategy.findBestElevator(dispatchState, pickupCurrentFloor,
+                pickupDirection.intValue());
+        bestElevatorCandidates = dispatchStrategy.getCandidates();
 
-        return bestElevator;
+        return elevatorId == DispatchStrategy.NO_ELEVATOR ? null : elevators.get(elevatorId);
     }
 
     /**
@@ -145,52 +621,529 @@ public class MyElevatorSystem implements IElevatorSystem {
      *      2. Floor from which the request was called is not on the way of the elevator
      *      3. Elevator is moving in one direction to pickup a person and will change its direction once
      *      that person enters the elevator
+     *      4. Elevator is reserved for a starving request
+     *
+     * The rules are checked on the state of the elevator published to the dispatchState by updateCandidateState, the
+     * same one that the dispatchStrategy checks.
      *
-     * @param elevator           - elevator to be checked
+     * @param elevatorId         - elevatorId of the elevator to be checked
      * @param direction          - direction of the pickup request
      * @param pickupCurrentFloor - floor from which the pickup request was called
      * @return true if the elevator can handle the request. Otherwise returns false
      */
-    private boolean canPickupRequest(Elevator elevator, Direction direction, int pickupCurrentFloor) {
-        Direction elevatorDirection = elevator.getDirection();
-        if (elevatorDirection.equals(Direction.IDLE)) return true;
+    private boolean canPickupRequest(int elevatorId, Direction direction, int pickupCurrentFloor) {
+        return dispatchState.canPickup(elevatorId, pickupCurrentFloor, direction.intValue());
+    }
+
+    /**
+     * @param elevator - elevator to be checked
+     * @return true if the elevator is moving to pickup a person and will change its direction once that person enters
+     * the elevator. Returns false otherwise
+     */
+    private boolean isHeadingToOppositeDirectionRequest(Elevator elevator) {
+        if (elevator.getNumberOfPickupRequests() == 0) return false;
+
+        long request = elevator.getPickupRequest(0);
+        return !PackedPickupRequest.isInElevator(request)
+                && PackedPickupRequest.direction(request).equals(elevator.getDirection().opposite());
+    }
+
+    /**
+     * Performs elevator system simulation step and then checks if any elevator after the simulation step can now
+     * handle any of the pending requests
+     *
+     * An elevator that keeps moving in the same direction can only lose the pending requests it could handle, so
+     * the pending requests are checked only for the buckets served by the elevators that changed their state
+     *
+     * Moving the elevators does not touch any state shared between them, so with a stepPool provided it runs in
+     * parallel. Pending requests are assigned afterwards on the calling thread in the order they were queued up, which
+     * gives the same results as the sequential step.
+     */
+    @Override
+    public void step() {
+        tick++;
+
+        if (stepPool == null) {
+            stepElevators(elevatorIds, 0, numberOfElevators);
+        } else {
+            stepPool.invoke(new ElevatorRangeTask(stepElevatorRange, 0, numberOfElevators, ELEVATORS_PER_TASK));
+        }
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            recordDeliveredPickupRequests(elevatorId);
+        }
 
-        if (!elevator.getPickupRequests().isEmpty()) {
-            PickupRequest pickupRequest = elevator.getPickupRequests().get(0);
-            if (!pickupRequest.isInElevator()
-                    && pickupRequest.getDirection().equals(elevator.getDirection().opposite())) {
-                return false;
+        if (!pendingPickups.isEmpty()) {
+            assignPendingPickups();
+        }
+
+        elevatorSystemCounters.stepped(tick, pendingPickups.size());
+        publishSnapshot();
+    }
+
+    /**
+     * Records the latencies of the pickup requests delivered by the elevator in the current step
+     * @param elevatorId - elevatorId of the elevator that made the step
+     */
+    private void recordDeliveredPickupRequests(int elevatorId) {
+        Elevator elevator = elevators.get(elevatorId);
+        int numberOfDeliveredPickupRequests = elevator.getNumberOfDeliveredPickupRequests();
+        if (numberOfDeliveredPickupRequests == 0) return;
+
+        for (int i = 0; i < numberOfDeliveredPickupRequests; i++) {
+            long request = elevator.getDeliveredPickupRequest(i);
+            long createdTick = PackedPickupRequest.createdTick(request);
+            long boardedTick = elevator.getDeliveredBoardedTick(i);
+
+            latencyMetrics.recordDelivered(elevatorId, PackedPickupRequest.currentFloor(request), createdTick,
+                    boardedTick, tick);
+            elevatorSystemCounters.delivered(boardedTick - createdTick);
+        }
+        elevator.clearDeliveredPickupRequests();
+    }
+
+    /**
+     * Checks the pending requests from the buckets served by the elevators that changed their state in this step
+     */
+    private void assignPendingPickups() {
+        StepPhaseEvent event = StepPhaseEvent.beginIfEnabled();
+        long startNanos = System.nanoTime();
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (changedElevators[elevatorId]) {
+                changedElevators[elevatorId] = false;
+                selectPendingPickupsServedBy(elevators.get(elevatorId));
+            }
+        }
+
+        pendingPickups.removeSelectedIf(assignElevatorToPendingRequest);
+
+        if (starvationThreshold != NO_STARVATION_THRESHOLD && !pendingPickups.isEmpty()) {
+            if (numberOfReservedElevators < maxReservedElevators) {
+                pendingPickups.forEachInOrder(reserveElevatorIfStarving);
+            }
+            if (numberOfReservedElevators > 0) {
+                assignReservedRequests();
             }
         }
 
-        boolean directionMatches = elevator.getDirection().equals(direction);
-        return directionMatches
-                && givenFloorIsOnTheElevatorsWay(elevator.getElevatorStatus(), pickupCurrentFloor, elevatorDirection);
+        stepPhaseCounters.add(StepPhase.ASSIGN_PENDING_PICKUPS, System.nanoTime() - startNanos);
+        if (event != null) {
+            event.commit(StepPhase.ASSIGN_PENDING_PICKUPS, tick, 0, numberOfElevators);
+        }
     }
 
     /**
-     * @param elevatorStatus    - elevatorStatus of the elevator being checked
-     * @param floor             - floor to be checked if is on the elevator's way
-     * @param elevatorDirection - elevator's current moving direction
-     * @return true if the given floor is on the elevator's way. Otherwise returns false
+     * Reserves an elevator for the pending request if it has waited for starvationThreshold ticks, used by
+     * forEachInOrder, which visits the oldest requests first
+     *
+     * @param request - pending request
+     * @return false once no more requests should be visited: the request has not waited long enough (neither have
+     * the ones queued up after it) or no more elevators can be reserved
      */
-    private boolean givenFloorIsOnTheElevatorsWay(ElevatorStatus elevatorStatus, int floor, Direction elevatorDirection) {
-        return Direction.of(floor - elevatorStatus.getCurrentFloor()).equals(elevatorDirection);
+    private boolean reserveElevatorIfStarving(long request) {
+        if (tick - PackedPickupRequest.createdTick(request) < starvationThreshold) return false;
+        if (isReserved(request)) return true;
+
+        Elevator elevator = findElevatorToReserve(PackedPickupRequest.currentFloor(request));
+        reservedRequests[elevator.getElevatorStatus().getElevatorId()] = request;
+        numberOfReservedElevators++;
+        publishElevator(elevator);
+
+        return numberOfReservedElevators < maxReservedElevators;
+    }
+
+    private boolean isReserved(long request) {
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (reservedRequests[elevatorId] == request) return true;
+        }
+        return false;
     }
 
     /**
-     * Performs elevator system simulation step and then checks if any elevator after the simulation step can now
-     * handle any of the pending requests
+     * @param pickupCurrentFloor - floor from which the starving request was called
+     * @return the elevator that is not reserved and is expected to be free the soonest: the one with the fewest pickup
+     * requests, then the closest one to the given floor, then the one with the lowest elevatorId
+     */
+    private Elevator findElevatorToReserve(int pickupCurrentFloor) {
+        Elevator bestElevator = null;
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (reservedRequests[elevatorId] != NO_RESERVATION) continue;
+
+            Elevator elevator = elevators.get(elevatorId);
+            if (bestElevator == null
+                    || elevator.getNumberOfPickupRequests() < bestElevator.getNumberOfPickupRequests()
+                    || (elevator.getNumberOfPickupRequests() == bestElevator.getNumberOfPickupRequests()
+                    && distance(elevator, pickupCurrentFloor) < distance(bestElevator, pickupCurrentFloor))) {
+                bestElevator = elevator;
+            }
+        }
+
+        return bestElevator;
+    }
+
+    private int distance(Elevator elevator, int floor) {
+        return Math.abs(elevator.getElevatorStatus().getCurrentFloor() - floor);
+    }
+
+    /**
+     * Assigns the reserved requests to their elevators that have become idle. The requests are removed from the
+     * pendingPickups queue, and then the pending requests that the elevators can take on the way are checked.
+     */
+    private void assignReservedRequests() {
+        boolean anyAssigned = false;
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            long request = reservedRequests[elevatorId];
+            Elevator elevator = elevators.get(elevatorId);
+            if (request == NO_RESERVATION || !elevator.getDirection().equals(Direction.IDLE)) continue;
+
+            reservedRequests[elevatorId] = NO_RESERVATION;
+            numberOfReservedElevators--;
+
+            removeReservedRequest.reservedRequest = request;
+            removeReservedRequest.removed = false;
+            pendingPickups.selectFloor(PackedPickupRequest.direction(request), PackedPickupRequest.currentFloor(request));
+            pendingPickups.removeSelectedIf(removeReservedRequest);
+
+            PickupAssignmentEvent event = PickupAssignmentEvent.beginIfEnabled();
+            assignElevatorToRequest(elevator, request);
+            if (event != null) {
+                event.commit(tick, PackedPickupRequest.currentFloor(request),
+                        PackedPickupRequest.destinationFloor(request), 1, elevatorId,
+                        distance(elevator, PackedPickupRequest.currentFloor(request)));
+            }
+            anyAssigned = true;
+        }
+
+        if (anyAssigned) {
+            for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                selectPendingPickupsServedBy(elevators.get(elevatorId));
+            }
+            pendingPickups.removeSelectedIf(assignElevatorToPendingRequest);
+        }
+    }
+
+    /**
+     * Releases the elevator reserved for the request, which has been taken by any elevator
+     * @param request - request assigned to an elevator
+     */
+    private void releaseReservation(long request) {
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            if (reservedRequests[elevatorId] != request) continue;
+
+            Elevator elevator = elevators.get(elevatorId);
+            reservedRequests[elevatorId] = NO_RESERVATION;
+            numberOfReservedElevators--;
+            publishElevator(elevator);
+            selectPendingPickupsServedBy(elevator);
+            return;
+        }
+    }
+
+    /**
+     * Enables reserving the elevators for the requests that have been pending for the given number of ticks
+     *
+     * A request that no elevator can handle, e.g. a DOWN call while every elevator keeps picking up UP calls, could
+     * stay pending for as long as the traffic lasts. Once the oldest pending request has waited for starvationThreshold
+     * ticks, the free elevator with the fewest pickup requests is reserved for it: it stops taking new requests,
+     * finishes the ones it has and then goes to the reserved request. At most half of the elevators (at least one) are
+     * reserved at once, and the reservation is released if any other elevator takes the request first.
+     *
+     * @param starvationThreshold - ticks after which a pending request gets an elevator reserved,
+     *                              NO_STARVATION_THRESHOLD (0) disables the reservations
+     */
+    public void setStarvationThreshold(long starvationThreshold) {
+        if (starvationThreshold < 0) {
+            eventSink.onEvent(ElevatorEventType.INVALID_STARVATION_THRESHOLD, tick, ElevatorEventSink.NO_ELEVATOR,
+                    0, 0, 0);
+            return;
+        }
+
+        this.starvationThreshold = starvationThreshold;
+        if (starvationThreshold == NO_STARVATION_THRESHOLD) {
+            for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                if (reservedRequests[elevatorId] != NO_RESERVATION) {
+                    releaseReservation(reservedRequests[elevatorId]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Limits the number of pending requests. A request that no elevator can handle while the pendingPickups queue is
+     * full is handled according to the admissionPolicy. Requests already pending above a lowered capacity stay in the
+     * queue. The PickupResult returned by pickup tells which policy was applied, and every outcome is counted by the
+     * elevatorSystemCounters.
+     *
+     * @param pendingPickupsCapacity - maximum number of pending requests [minimum 1],
+     *                                 UNLIMITED_PENDING_PICKUPS by default
+     * @param admissionPolicy        - what happens to the requests once the queue is full, REJECT by default
      */
+    public void setAdmissionControl(int pendingPickupsCapacity, AdmissionPolicy admissionPolicy) {
+        if (pendingPickupsCapacity < 1 || admissionPolicy == null) {
+            eventSink.onEvent(ElevatorEventType.INVALID_ADMISSION_CONTROL, tick, ElevatorEventSink.NO_ELEVATOR,
+                    pendingPickupsCapacity, 0, 0);
+            return;
+        }
+
+        this.pendingPickupsCapacity = pendingPickupsCapacity;
+        this.admissionPolicy = admissionPolicy;
+    }
+
     @Override
-    public void step() {
-        elevators.forEach(elevator -> {
-            elevator.makeStep();
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Advances the simulation to the given tick, stepping only the elevators that have an event on a tick, and
+     * assigning the pending requests only on the ticks on which any elevator changed its state
+     *
+     * Every moving elevator has its next event (reaching the closest floor on which anyone enters or leaves it)
+     * scheduled in a binary heap of packed longs, with at most one event per elevator. The other elevators are moved
+     * directly to their floor once it is needed. With the reservations enabled every tick is stepped.
+     *
+     * @param targetTick - tick that the simulation should be advanced to
+     */
+    @Override
+    public void stepUntil(long targetTick) {
+        if (targetTick <= tick) return;
+
+        // scheduling the events of every elevator costs more than a single step
+        if (targetTick - tick == 1) {
+            step();
+            return;
+        }
+
+        // the starving requests are checked on every tick, not only on the ticks with an event
+        if (starvationThreshold != NO_STARVATION_THRESHOLD) {
+            while (tick < targetTick) {
+                step();
+            }
+            return;
+        }
+
+        numberOfEvents = 0;
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            floorTicks[elevatorId] = tick;
+            scheduleNextEvent(elevatorId);
+        }
+
+        while (numberOfEvents > 0 && events[0] >>> EVENT_ELEVATOR_ID_BITS <= targetTick) {
+            long eventTick = events[0] >>> EVENT_ELEVATOR_ID_BITS;
+            int numberOfEventElevators = 0;
+            boolean anyChanged = false;
+            tick = eventTick;
+
+            while (numberOfEvents > 0 && events[0] >>> EVENT_ELEVATOR_ID_BITS == eventTick) {
+                int elevatorId = (int) (pollEvent() & EVENT_ELEVATOR_ID_MASK);
+                moveElevator(elevatorId, eventTick - 1);
+                floorTicks[elevatorId] = eventTick;
+                eventElevators[numberOfEventElevators++] = elevatorId;
+            }
+
+            stepElevators(eventElevators, 0, numberOfEventElevators);
+
+            for (int i = 0; i < numberOfEventElevators; i++) {
+                recordDeliveredPickupRequests(eventElevators[i]);
+                anyChanged |= changedElevators[eventElevators[i]];
+            }
+
+            if (anyChanged) {
+                // any elevator can get a pending request, so all of them are moved and have their events rescheduled
+                for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                    moveElevator(elevatorId, tick);
+                }
+
+                assignPendingPickups();
+
+                // the events left in the heap are scheduled again, so every elevator keeps a single one
+                numberOfEvents = 0;
+                for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                    scheduleNextEvent(elevatorId);
+                }
+            } else {
+                for (int i = 0; i < numberOfEventElevators; i++) {
+                    scheduleNextEvent(eventElevators[i]);
+                }
+            }
+        }
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            moveElevator(elevatorId, targetTick);
+            publishElevator(elevators.get(elevatorId));
+        }
+        tick = targetTick;
+        elevatorSystemCounters.stepped(tick, pendingPickups.size());
+        publishSnapshot();
+    }
+
+    /**
+     * Advances the simulation to the closest tick on which any elevator picks up or drops off anyone
+     * @return tick that the simulation was advanced to, the current tick if no elevator is moving
+     */
+    @Override
+    public long advanceToNextEvent() {
+        long nextEventTick = NO_EVENT;
+
+        for (Elevator elevator : elevators) {
+            long elevatorEventTick = nextEventTick(elevator, tick);
+            if (elevatorEventTick != NO_EVENT && (nextEventTick == NO_EVENT || elevatorEventTick < nextEventTick)) {
+                nextEventTick = elevatorEventTick;
+            }
+        }
+
+        if (nextEventTick != NO_EVENT) {
+            stepUntil(nextEventTick);
+        }
+        return tick;
+    }
+
+    /**
+     * @param elevator  - elevator to be checked
+     * @param floorTick - tick on which the elevator is on its currentFloor
+     * @return tick on which the elevator reaches its next stop or NO_EVENT if it is idle. Elevators without any stop
+     * ahead have an event on every tick, so they are stepped the same way as by step()
+     */
+    private long nextEventTick(Elevator elevator, long floorTick) {
+        if (elevator.getDirection().equals(Direction.IDLE)) return NO_EVENT;
+
+        int nextStop = elevator.getNextStop();
+        if (nextStop == Elevator.IDLE) return floorTick + 1;
+
+        return floorTick + Math.abs(nextStop - elevator.getElevatorStatus().getCurrentFloor());
+    }
+
+    /**
+     * Adds the next event of the elevator to the heap, called only for the elevators without an event in the heap
+     */
+    private void scheduleNextEvent(int elevatorId) {
+        long eventTick = nextEventTick(elevators.get(elevatorId), floorTicks[elevatorId]);
+
+        if (eventTick != NO_EVENT) {
+            pushEvent(eventTick << EVENT_ELEVATOR_ID_BITS | elevatorId);
+        }
+    }
+
+    private void pushEvent(long event) {
+        int child = numberOfEvents++;
+
+        while (child > 0) {
+            int parent = (child - 1) >> 1;
+            if (events[parent] <= event) break;
+
+            events[child] = events[parent];
+            child = parent;
+        }
+
+        events[child] = event;
+    }
+
+    private long pollEvent() {
+        long first = events[0];
+        long event = events[--numberOfEvents];
+        int parent = 0;
+
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= numberOfEvents) break;
+
+            if (child + 1 < numberOfEvents && events[child + 1] < events[child]) {
+                child++;
+            }
+            if (event <= events[child]) break;
+
+            events[parent] = events[child];
+            parent = child;
+        }
+
+        events[parent] = event;
+        return first;
+    }
+
+    /**
+     * Moves the elevator to the floor it is on at the given tick, used by stepUntil for the elevators without
+     * any event between their floorTick and the given tick
+     */
+    private void moveElevator(int elevatorId, long toTick) {
+        Elevator elevator = elevators.get(elevatorId);
+        ElevatorStatus elevatorStatus = elevator.getElevatorStatus();
+        int floors = (int) (toTick - floorTicks[elevatorId]);
+
+        elevatorStatus.setCurrentFloor(elevatorStatus.getCurrentFloor() + elevator.getDirection().intValue() * floors);
+        floorTicks[elevatorId] = toTick;
+        dispatchState.moved(elevatorId, elevatorStatus.getCurrentFloor());
+    }
+
+    /**
+     * Moves the elevators with elevatorId in elevatorIds[from, to), updates their direction and destination floor and
+     * marks the ones that changed their state in the changedElevators array. Touches only the state of the given
+     * elevators, so different ranges can be stepped in parallel.
+     *
+     * Every elevator is moved before any of them is updated, so each of the phases is timed once per range.
+     *
+     * @param elevatorIds - elevatorIds of the elevators to be stepped, in ascending order
+     * @param from        - index of the first elevatorId to be stepped
+     * @param to          - index after the last elevatorId to be stepped
+     */
+    private void stepElevators(int[] elevatorIds, int from, int to) {
+        boolean anyPending = !pendingPickups.isEmpty();
+
+        StepPhaseEvent moveEvent = StepPhaseEvent.beginIfEnabled();
+        long startNanos = System.nanoTime();
+
+        for (int i = from; i < to; i++) {
+            int elevatorId = elevatorIds[i];
+            Elevator elevator = elevators.get(elevatorId);
+            previousDirections[elevatorId] = elevator.getDirection();
+            wereHeadingToOppositeDirectionRequest[elevatorId] = isHeadingToOppositeDirectionRequest(elevator);
+
+            elevator.makeStep(tick);
+        }
+
+        long movedNanos = System.nanoTime();
+        stepPhaseCounters.add(StepPhase.MOVE_ELEVATORS, movedNanos - startNanos);
+        if (moveEvent != null) {
+            moveEvent.commit(StepPhase.MOVE_ELEVATORS, tick, elevatorIds, from, to);
+        }
+
+        StepPhaseEvent updateEvent = StepPhaseEvent.beginIfEnabled();
+
+        for (int i = from; i < to; i++) {
+            int elevatorId = elevatorIds[i];
+            Elevator elevator = elevators.get(elevatorId);
+
             updateElevatorDirection(elevator);
             updateElevatorDestinationFloor(elevator);
-        });
 
-        pendingPickups.removeIf(this::assignElevatorToRequestIfPossible);
+            changedElevators[elevatorId] = anyPending
+                    && (!elevator.getDirection().equals(previousDirections[elevatorId])
+                    || wereHeadingToOppositeDirectionRequest[elevatorId]);
+            publishElevator(elevator);
+        }
+
+        stepPhaseCounters.add(StepPhase.UPDATE_ELEVATORS, System.nanoTime() - movedNanos);
+        if (updateEvent != null) {
+            updateEvent.commit(StepPhase.UPDATE_ELEVATORS, tick, elevatorIds, from, to);
+        }
+    }
+
+    /**
+     * Selects the buckets of pending requests that the given elevator can handle in its current state
+     * @param elevator - elevator which state has changed
+     */
+    private void selectPendingPickupsServedBy(Elevator elevator) {
+        Direction elevatorDirection = elevator.getDirection();
+
+        if (reservedRequests[elevator.getElevatorStatus().getElevatorId()] != NO_RESERVATION) {
+            return;
+        } else if (elevatorDirection.equals(Direction.IDLE)) {
+            pendingPickups.selectAll();
+        } else if (!isHeadingToOppositeDirectionRequest(elevator)) {
+            pendingPickups.selectOnTheWay(elevatorDirection, elevator.getElevatorStatus().getCurrentFloor());
+        }
     }
 
     /**
@@ -198,32 +1151,75 @@ public class MyElevatorSystem implements IElevatorSystem {
      * @param elevatorId        - elevatorId of the elevator that should be updated
      * @param currentFloor      - new currentFloor to be set for the chosen elevator
      * @param destinationFloor  - new destinationFloor to be set for the chosen elevator
+     * @return whether the elevator was updated
      */
     @Override
-    public void update(int elevatorId, int currentFloor, int destinationFloor) {
-        if (elevatorId >= elevators.size()) {
-            System.out.println("This elevator system has only " + elevators.size() + " elevators installed");
-            return;
+    public UpdateResult update(int elevatorId, int currentFloor, int destinationFloor) {
+        if (elevatorId < 0 || elevatorId >= elevators.size()) {
+            eventSink.onEvent(ElevatorEventType.INVALID_ELEVATOR_ID, tick, ElevatorEventSink.NO_ELEVATOR, elevatorId,
+                    elevators.size(), 0);
+            return UpdateResult.INVALID_ELEVATOR_ID;
+        }
+
+        Elevator elevator = elevators.get(elevatorId);
+        UpdateResult result = elevator.updateStatus(currentFloor, destinationFloor);
+        eventSink.onEvent(result.eventType(), tick, elevatorId, elevatorId, currentFloor, destinationFloor);
+        publishElevator(elevator);
+
+        if (!pendingPickups.isEmpty()) {
+            selectPendingPickupsServedBy(elevator);
         }
+        return result;
+    }
+
+    /**
+     * The elevators report the boarded and delivered requests themselves, from the threads of the stepPool in the
+     * parallel step. The diagnostics of the constructor go to ElevatorEventSink.CONSOLE, as no other sink can be set
+     * before.
+     */
+    @Override
+    public void setEventSink(ElevatorEventSink eventSink) {
+        this.eventSink = eventSink;
+        elevators.forEach(elevator -> elevator.setEventSink(eventSink));
+    }
+
+    @Override
+    public ElevatorEventSink getEventSink() {
+        return eventSink;
+    }
+
+    /**
+     * The statusTracker stamps the elevators with the next status version as they are changed by a step, an update or
+     * an assigned request
+     */
+    @Override
+    public void statusDelta(long sinceVersion, ElevatorStatusDelta delta) {
+        statusTracker.delta(sinceVersion, delta);
+    }
 
-        elevators.get(elevatorId).updateStatus(currentFloor, destinationFloor);
+    /**
+     * The state of every elevator and its pickup requests is published to the snapshotBuffer at the end of every step
+     */
+    @Override
+    public long readSnapshot(ElevatorSystemSnapshot snapshot) {
+        return snapshotBuffer.read(snapshot);
     }
 
     /**
-     * Displays status of every elevator
+     * Prints status of every elevator
      */
     @Override
-    public void status() {
-        System.out.println("ElevatorSystem status:");
-        elevators.forEach(elevator -> System.out.println(elevator.getElevatorStatus()));
+    public void status(PrintStream out) {
+        out.println("ElevatorSystem status:");
+        elevators.forEach(elevator -> out.println(elevator.getElevatorStatus()));
     }
 
     /**
      * Updates the elevator's moving direction
      *
-     * If elevator's pickupRequests list is empty -> set moving direction of the elevator to IDLE
+     * If elevator's pickupRequests array is empty -> set moving direction of the elevator to IDLE
      *
-     * Otherwise -> take the first request from the pickupRequests list and:
+     * Otherwise -> take the first request from the pickupRequests array and:
      *
      *      1. If the request is being handled (isInElevator == true) -> set the elevator's moving direction to request
      *      direction
@@ -234,21 +1230,19 @@ public class MyElevatorSystem implements IElevatorSystem {
      * @param elevator - elevator to be updated
      */
     private void updateElevatorDirection(Elevator elevator) {
-        List<PickupRequest> pickupRequests = elevator.getPickupRequests();
-
-        if (pickupRequests.isEmpty()) {
+        if (elevator.getNumberOfPickupRequests() == 0) {
             elevator.setDirection(Direction.IDLE);
             return;
         }
 
         Direction elevatorDirection;
         ElevatorStatus elevatorStatus = elevator.getElevatorStatus();
-        PickupRequest pickupRequest = pickupRequests.get(0);
+        long request = elevator.getPickupRequest(0);
 
-        if (pickupRequest.isInElevator()) {
-            elevatorDirection = pickupRequest.getDirection();
+        if (PackedPickupRequest.isInElevator(request)) {
+            elevatorDirection = PackedPickupRequest.direction(request);
         } else {
-            int pickupRequestCurrentFloor = pickupRequest.getCurrentFloor();
+            int pickupRequestCurrentFloor = PackedPickupRequest.currentFloor(request);
             int elevatorCurrentFloor = elevatorStatus.getCurrentFloor();
 
             if (pickupRequestCurrentFloor < elevatorCurrentFloor) {
@@ -264,108 +1258,73 @@ public class MyElevatorSystem implements IElevatorSystem {
     /**
      * Updates the elevator's destination floor
      *
-     * If pickupRequests elevator's list is empty -> set destination floor to Elevator.IDLE (-1)
+     * If pickupRequests elevator's array is empty -> set destination floor to Elevator.IDLE (-1)
      *
      * Otherwise:
      *
      * If elevator's moving up ->
      *
-     *      1. If there are requests in the UP direction -> get max destinationFloor from all pickup requests that
-     *      are being handled (isInElevator == true) and have direction == UP, get max currentFloor from all pickup requests
-     *      that are not yet being handled (isInElevator == false) and have direction == UP. Then set the destinationFloor
-     *      of the elevator to the maximum of these values.
+     *      1. If there are requests in the UP direction -> set the destinationFloor of the elevator to the highest
+     *      of the destination floors of the UP requests being handled (isInElevator == true) and the floors from which
+     *      the UP requests not yet being handled (isInElevator == false) were called
      *
      *      2. If no requests in the UP direction -> set the destinationFloor of the elevator to the currentFloor
-     *      of the pickup request in the pickupRequests list (must be only one and with direction == DOWN)
+     *      of the pickup request in the pickupRequests array (must be only one and with direction == DOWN)
      *
      * If elevator's moving down ->
      *
-     *      1. If there are requests in the DOWN direction -> get min destinationFloor from all pickup requests that
-     *      are being handled (isInElevator == true) and have direction == DOWN, get min currentFloor from all pickup requests
-     *      that are not yet being handled (isInElevator == false) and have direction == DOWN. Then set the destinationFloor
-     *      of the elevator to the minimum of these values.
+     *      1. If there are requests in the DOWN direction -> set the destinationFloor of the elevator to the lowest
+     *      of the destination floors of the DOWN requests being handled (isInElevator == true) and the floors from
+     *      which the DOWN requests not yet being handled (isInElevator == false) were called
      *
      *      2. If no requests in the DOWN direction -> set the destinationFloor of the elevator to the currentFloor
-     *      of the pickup request in the pickupRequests list (must be only one and with direction == UP)
+     *      of the pickup request in the pickupRequests array (must be only one and with direction == UP)
+     *
+     * Both values are read from the elevator's stop bitsets
      *
      * @param elevator - elevator to be updated
      */
     private void updateElevatorDestinationFloor(Elevator elevator) {
-        List<PickupRequest> pickupRequests = elevator.getPickupRequests();
         ElevatorStatus elevatorStatus = elevator.getElevatorStatus();
 
-        if (pickupRequests.isEmpty()) {
+        if (elevator.getNumberOfPickupRequests() == 0) {
             elevatorStatus.setDestinationFloor(Elevator.IDLE);
             return;
         }
 
-        Direction elevatorDirection = elevator.getDirection();
+        Direction elevatorDirection = elevator.getDirection().equals(Direction.UP) ? Direction.UP : Direction.DOWN;
 
-        if (elevatorDirection.equals(Direction.UP)) {
-            if (noRequestsInGivenDirection(Direction.UP, pickupRequests)) {
-                elevatorStatus.setDestinationFloor(
-                        pickupRequests.get(0).getCurrentFloor()
-                );
-                return;
-            }
-
-            int destinationFloorCandidate1 = pickupRequests.stream()
-                    .filter(pickupRequest -> pickupRequest.isInElevator()
-                            && pickupRequest.getDirection().equals(Direction.UP))
-                    .map(PickupRequest::getDestinationFloor)
-                    .max(Integer::compare)
-                    .orElse(-1);
-
-            int destinationFloorCandidate2 = pickupRequests.stream()
-                    .filter(pickupRequest -> !pickupRequest.isInElevator()
-                            && pickupRequest.getDirection().equals(Direction.UP))
-                    .map(PickupRequest::getCurrentFloor)
-                    .max(Integer::compare)
-                    .orElse(-1);
-
-            int destinationFloor = Math.max(destinationFloorCandidate1, destinationFloorCandidate2);
-
-            elevatorStatus.setDestinationFloor(destinationFloor);
-        } else {
-            if (noRequestsInGivenDirection(Direction.DOWN, pickupRequests)) {
-                elevatorStatus.setDestinationFloor(
-                        pickupRequests.get(0).getCurrentFloor()
-                );
-                return;
-            }
+        if (!elevator.hasRequestsInDirection(elevatorDirection)) {
+            elevatorStatus.setDestinationFloor(
+                    PackedPickupRequest.currentFloor(elevator.getPickupRequest(0))
+            );
+            return;
+        }
 
-            int destinationFloorCandidate1 = pickupRequests.stream()
-                    .filter(pickupRequest -> pickupRequest.isInElevator()
-                            && pickupRequest.getDirection().equals(Direction.DOWN))
-                    .map(PickupRequest::getDestinationFloor)
-                    .min(Integer::compare)
-                    .orElse(MAX_FLOORS + 1);
+        elevatorStatus.setDestinationFloor(elevator.getFarthestStopInDirection(elevatorDirection));
+    }
 
-            int destinationFloorCandidate2 = pickupRequests.stream()
-                    .filter(pickupRequest -> !pickupRequest.isInElevator()
-                            && pickupRequest.getDirection().equals(Direction.DOWN))
-                    .map(PickupRequest::getCurrentFloor)
-                    .min(Integer::compare)
-                    .orElse(MAX_FLOORS + 1);
+    private boolean isValidFloor(int floor) {
+        return floor >= 0 && floor < MAX_FLOORS;
+    }
 
-            int destinationFloor = Math.min(destinationFloorCandidate1, destinationFloorCandidate2);
+    private boolean sameSign(int x, int y) {
+        return ((x < 0) == (y < 0));
+    }
 
-            elevatorStatus.setDestinationFloor(destinationFloor);
-        }
+    @Override
+    public LatencyMetrics getLatencyMetrics() {
+        return latencyMetrics;
     }
 
-    /**
-     * @param direction - given direction
-     * @return true if the given direction equals any of the pickup requests direction. Returns false otherwise
-     */
-    private boolean noRequestsInGivenDirection(Direction direction, List<PickupRequest> pickupRequests) {
-        return pickupRequests
-                .stream()
-                .noneMatch(pickupRequest -> pickupRequest.getDirection().equals(direction));
+    @Override
+    public StepPhaseCounters getStepPhaseCounters() {
+        return stepPhaseCounters;
     }
 
-    private boolean sameSign(int x, int y) {
-        return ((x < 0) == (y < 0));
+    @Override
+    public ElevatorSystemCounters getElevatorSystemCounters() {
+        return elevatorSystemCounters;
     }
 
     // for testing only
@@ -375,6 +1334,26 @@ public class MyElevatorSystem implements IElevatorSystem {
 
     // for testing only
     public List<PickupRequest> getPendingPickups() {
-        return pendingPickups;
+        return Arrays.stream(pendingPickups.toArray())
+                .mapToObj(request -> PackedPickupRequest.toPickupRequest(request, PickupRequest.NO_TICK,
+                        PickupRequest.NO_TICK))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Removes the first pending request equal to the reservedRequest, leaving its duplicates in the queue
+     */
+    private static class ReservedRequestFilter implements LongPredicate {
+
+        private long reservedRequest;
+        private boolean removed;
+
+        @Override
+        public boolean test(long request) {
+            if (removed || request != reservedRequest) return false;
+
+            removed = true;
+            return true;
+        }
     }
 }
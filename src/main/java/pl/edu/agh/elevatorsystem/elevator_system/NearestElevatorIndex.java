@@ -0,0 +1,189 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Index of the elevators by their current floor and state, used to find the closest elevator that can handle a pickup
+ * request without checking every elevator of the fleet
+ *
+ * Every indexed elevator is kept in the bucket of its floor and state: IDLE elevators can handle any request, UP and
+ * DOWN ones only the requests with their direction called from the floors ahead of them. Elevators heading to an
+ * opposite direction request can not handle any request, so they are not indexed. Every state has a bitset of the
+ * floors with a non-empty bucket, so the closest floors with a candidate below and above the request floor are found
+ * by a bitset search instead of checking the floors one by one.
+ *
+ * Buckets are doubly linked lists kept in the nextElevator and previousElevator arrays. Idle elevators stay in their
+ * bucket, so it is kept sorted by elevatorId. Buckets of the moving elevators change on every step, so the elevators
+ * are added at their end and the bucket is scanned for the lowest elevatorId.
+ */
+class NearestElevatorIndex {
+
+    static final int NOT_INDEXED = -1;
+    static final int IDLE = 0;
+    static final int UP = 1;
+    static final int DOWN = 2;
+
+    private static final int STATES = 3;
+    private static final int NO_ELEVATOR = -1;
+
+    private final int[] firstElevator;
+    private final int[] lastElevator;
+    private final int[] nextElevator;
+    private final int[] previousElevator;
+    // bucket that every elevator is kept in or NOT_INDEXED
+    private final int[] elevatorBuckets;
+    // floors with a non-empty bucket, per state
+    private final BitSet[] occupiedFloors = { new BitSet(), new BitSet(), new BitSet() };
+
+    /**
+     * Creates an index without any elevator indexed
+     * @param numberOfElevators - number of elevators that can be indexed [0, numberOfElevators - 1]
+     * @param numberOfFloors    - number of floors that the elevators can be on [0, numberOfFloors - 1]
+     */
+    NearestElevatorIndex(int numberOfElevators, int numberOfFloors) {
+        firstElevator = new int[STATES * numberOfFloors];
+        lastElevator = new int[STATES * numberOfFloors];
+        nextElevator = new int[numberOfElevators];
+        previousElevator = new int[numberOfElevators];
+        elevatorBuckets = new int[numberOfElevators];
+
+        Arrays.fill(firstElevator, NO_ELEVATOR);
+        Arrays.fill(lastElevator, NO_ELEVATOR);
+        Arrays.fill(elevatorBuckets, NOT_INDEXED);
+    }
+
+    /**
+     * Moves the elevator to the bucket of the given floor and state, does nothing if it is already there
+     *
+     * @param elevatorId - elevatorId of the elevator that could have changed its floor or state
+     * @param floor      - floor that the elevator is now on
+     * @param state      - IDLE, UP, DOWN or NOT_INDEXED for the elevators that can not handle any request
+     */
+    void update(int elevatorId, int floor, int state) {
+        int bucket = state == NOT_INDEXED ? NOT_INDEXED : bucket(floor, state);
+        if (elevatorBuckets[elevatorId] == bucket) return;
+
+        if (elevatorBuckets[elevatorId] != NOT_INDEXED) {
+            remove(elevatorId);
+        }
+        if (bucket != NOT_INDEXED) {
+            add(elevatorId, bucket);
+        }
+    }
+
+    /**
+     * Finds the elevator closest to the floor from which the request was called, out of the idle elevators and the
+     * elevators moving in the request direction that have the floor ahead of them. Ties go to the lowest elevatorId.
+     *
+     * @param floor     - floor from which the request was called
+     * @param direction - direction of the request, UP or DOWN
+     * @return elevatorId of the closest elevator or -1 if no indexed elevator can handle the request
+     */
+    int findClosestElevator(int floor, int direction) {
+        int lowerFloor = occupiedFloors[IDLE].previousSetBit(floor);
+        int upperFloor = occupiedFloors[IDLE].nextSetBit(floor);
+
+        if (direction == UP) {
+            lowerFloor = Math.max(lowerFloor, occupiedFloors[UP].previousSetBit(floor - 1));
+        } else {
+            upperFloor = closerUpperFloor(upperFloor, occupiedFloors[DOWN].nextSetBit(floor + 1));
+        }
+
+        if (lowerFloor == NO_ELEVATOR && upperFloor == NO_ELEVATOR) return NO_ELEVATOR;
+        if (upperFloor == NO_ELEVATOR || (lowerFloor != NO_ELEVATOR && floor - lowerFloor < upperFloor - floor)) {
+            return lowestElevatorOn(lowerFloor, floor, direction);
+        }
+        if (lowerFloor == NO_ELEVATOR || upperFloor - floor < floor - lowerFloor || lowerFloor == upperFloor) {
+            return lowestElevatorOn(upperFloor, floor, direction);
+        }
+
+        return Math.min(lowestElevatorOn(lowerFloor, floor, direction), lowestElevatorOn(upperFloor, floor, direction));
+    }
+
+    private static int closerUpperFloor(int floor, int otherFloor) {
+        if (floor == NO_ELEVATOR) return otherFloor;
+        if (otherFloor == NO_ELEVATOR) return floor;
+        return Math.min(floor, otherFloor);
+    }
+
+    /**
+     * @return the lowest elevatorId of the elevators on the given floor that can handle the request, the floor must
+     * have at least one of them
+     */
+    private int lowestElevatorOn(int floor, int requestFloor, int direction) {
+        int lowestElevator = firstElevator[bucket(floor, IDLE)];
+
+        int movingState = NOT_INDEXED;
+        if (direction == UP && floor < requestFloor) movingState = UP;
+        if (direction == DOWN && floor > requestFloor) movingState = DOWN;
+        if (movingState == NOT_INDEXED) return lowestElevator;
+
+        for (int elevatorId = firstElevator[bucket(floor, movingState)]; elevatorId != NO_ELEVATOR;
+             elevatorId = nextElevator[elevatorId]) {
+            if (lowestElevator == NO_ELEVATOR || elevatorId < lowestElevator) {
+                lowestElevator = elevatorId;
+            }
+        }
+
+        return lowestElevator;
+    }
+
+    private void add(int elevatorId, int bucket) {
+        int previous = lastElevator[bucket];
+
+        // idle buckets are sorted, elevators mostly become idle in the order of their elevatorIds
+        if (bucket % STATES == IDLE) {
+            while (previous != NO_ELEVATOR && previous > elevatorId) {
+                previous = previousElevator[previous];
+            }
+        }
+
+        int next = previous == NO_ELEVATOR ? firstElevator[bucket] : nextElevator[previous];
+
+        previousElevator[elevatorId] = previous;
+        nextElevator[elevatorId] = next;
+
+        if (previous == NO_ELEVATOR) {
+            firstElevator[bucket] = elevatorId;
+        } else {
+            nextElevator[previous] = elevatorId;
+        }
+
+        if (next == NO_ELEVATOR) {
+            lastElevator[bucket] = elevatorId;
+        } else {
+            previousElevator[next] = elevatorId;
+        }
+
+        elevatorBuckets[elevatorId] = bucket;
+        occupiedFloors[bucket % STATES].set(bucket / STATES);
+    }
+
+    private void remove(int elevatorId) {
+        int bucket = elevatorBuckets[elevatorId];
+        int previous = previousElevator[elevatorId];
+        int next = nextElevator[elevatorId];
+
+        if (previous == NO_ELEVATOR) {
+            firstElevator[bucket] = next;
+        } else {
+            nextElevator[previous] = next;
+        }
+
+        if (next == NO_ELEVATOR) {
+            lastElevator[bucket] = previous;
+        } else {
+            previousElevator[next] = previous;
+        }
+
+        elevatorBuckets[elevatorId] = NOT_INDEXED;
+        if (firstElevator[bucket] == NO_ELEVATOR) {
+            occupiedFloors[bucket % STATES].clear(bucket / STATES);
+        }
+    }
+
+    private static int bucket(int floor, int state) {
+        return floor * STATES + state;
+    }
+}
@@ -0,0 +1,33 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+/**
+ * Outcome of the pickup request returned to the caller of IElevatorSystem.pickup
+ */
+public enum PickupResult {
+    // assigned to an elevator
+    ASSIGNED,
+    // added to the pending pickups queue
+    QUEUED,
+    // added to the pending pickups queue in place of the oldest pending request, which has been dropped
+    QUEUED_OLDEST_SHED,
+    // added to the pending pickups queue above its capacity, the caller should slow down
+    QUEUED_OVER_CAPACITY,
+    // dropped, as the pending pickups queue is full
+    REJECTED,
+    // dropped, as it does not describe a valid request
+    INVALID;
+
+    /**
+     * @return true if the request is going to be handled by any elevator
+     */
+    public boolean isAccepted() {
+        return this != REJECTED && this != INVALID;
+    }
+
+    /**
+     * @return true if the caller should slow down, as the elevator system is not keeping up with the requests
+     */
+    public boolean isBackpressure() {
+        return this == QUEUED_OLDEST_SHED || this == QUEUED_OVER_CAPACITY || this == REJECTED;
+    }
+}
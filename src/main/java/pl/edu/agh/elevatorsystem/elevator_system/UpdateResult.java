@@ -0,0 +1,36 @@
+package pl.edu.agh.elevatorsystem.elevator_system;
+
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+
+/**
+ * Outcome of the update request returned to the caller of IElevatorSystem.update
+ */
+public enum UpdateResult {
+    // status of the elevator updated
+    UPDATED,
+    // no elevator with the given elevatorId
+    INVALID_ELEVATOR_ID,
+    // currentFloor or destinationFloor out of range
+    INVALID_FLOOR,
+    // elevator is handling pickup requests, so it can not be updated
+    OCCUPIED;
+
+    /**
+     * @return true if the status of the elevator has been updated
+     */
+    public boolean isUpdated() {
+        return this == UPDATED;
+    }
+
+    /**
+     * @return type of the event reporting the update of an existing elevator with this result
+     */
+    ElevatorEventType eventType() {
+        return switch (this) {
+            case INVALID_ELEVATOR_ID -> ElevatorEventType.INVALID_ELEVATOR_ID;
+            case INVALID_FLOOR -> ElevatorEventType.INVALID_UPDATE_FLOOR;
+            case OCCUPIED -> ElevatorEventType.ELEVATOR_OCCUPIED;
+            case UPDATED -> ElevatorEventType.ELEVATOR_UPDATED;
+        };
+    }
+}
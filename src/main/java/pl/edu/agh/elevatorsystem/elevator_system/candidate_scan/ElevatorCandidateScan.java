@@ -0,0 +1,70 @@
+package pl.edu.agh.elevatorsystem.elevator_system.candidate_scan;
+
+/**
+ * Finds the closest elevator that can handle a pickup request, checking every elevator of the fleet kept in primitive
+ * arrays indexed by elevatorId
+ *
+ * Every elevator is described by its current floor and its state: IDLE elevators can handle any request, UP and DOWN
+ * ones only the requests with their direction called from the floors ahead of them, and UNAVAILABLE ones (heading to
+ * an opposite direction request) can not handle any request. Ties go to the lowest elevatorId.
+ *
+ * create() returns the VectorElevatorCandidateScan, which checks several elevators at once with the Vector API, if
+ * the jdk.incubator.vector module is added to the JVM (--add-modules jdk.incubator.vector) and the class is on the
+ * class path (vector source set), and the ScalarElevatorCandidateScan otherwise. create(numberOfElevators) returns
+ * the ScalarElevatorCandidateScan for the fleets below MIN_VECTOR_ELEVATORS, which the vector scan is not faster for
+ * (see ElevatorCandidateScanBenchmark). MyElevatorSystem has fewer elevators, so only the FleetElevatorSystem
+ * scans with the Vector API, from MIN_VECTOR_ELEVATORS up to FleetElevatorSystem.MAX_SCAN_ELEVATORS.
+ */
+public interface ElevatorCandidateScan {
+
+    int IDLE = 0;
+    int UP = 1;
+    int DOWN = -1;
+    int UNAVAILABLE = 2;
+
+    int NO_ELEVATOR = -1;
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String VECTOR_CANDIDATE_SCAN = "pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.VectorElevatorCandidateScan";
+    // the vector scan pays off from two full vectors of ints on AVX-512
+    int MIN_VECTOR_ELEVATORS = 32;
+
+    /**
+     * @param floors            - current floors of the elevators
+     * @param states            - states of the elevators: IDLE, UP, DOWN or UNAVAILABLE
+     * @param numberOfElevators - number of elevators, described by the beginning of both arrays
+     * @param pickupFloor       - floor from which the request was called
+     * @param pickupDirection   - direction of the request, UP or DOWN
+     * @return elevatorId of the closest elevator that can handle the request or NO_ELEVATOR (-1) if there is none
+     */
+    int findClosestElevator(int[] floors, int[] states, int numberOfElevators, int pickupFloor, int pickupDirection);
+
+    /**
+     * @return number of elevators that could handle the request in the last findClosestElevator call
+     */
+    int getCandidates();
+
+    /**
+     * @return the VectorElevatorCandidateScan if the Vector API is available, the ScalarElevatorCandidateScan otherwise
+     */
+    static ElevatorCandidateScan create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (ElevatorCandidateScan) Class.forName(VECTOR_CANDIDATE_SCAN).getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // vector source set is not on the class path
+            }
+        }
+
+        return new ScalarElevatorCandidateScan();
+    }
+
+    /**
+     * @param numberOfElevators - number of elevators that are going to be checked
+     * @return the ScalarElevatorCandidateScan for less than MIN_VECTOR_ELEVATORS elevators, create() otherwise
+     */
+    static ElevatorCandidateScan create(int numberOfElevators) {
+        return numberOfElevators < MIN_VECTOR_ELEVATORS ? new ScalarElevatorCandidateScan() : create();
+    }
+}
@@ -0,0 +1,40 @@
+package pl.edu.agh.elevatorsystem.elevator_system.candidate_scan;
+
+/**
+ * ElevatorCandidateScan checking the elevators one by one
+ */
+public class ScalarElevatorCandidateScan implements ElevatorCandidateScan {
+
+    private int candidates = 0;
+
+    @Override
+    public int findClosestElevator(int[] floors, int[] states, int numberOfElevators, int pickupFloor,
+                                   int pickupDirection) {
+        int closestElevator = NO_ELEVATOR;
+        int shortestDistance = Integer.MAX_VALUE;
+        candidates = 0;
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            int state = states[elevatorId];
+            int floor = floors[elevatorId];
+
+            boolean floorAhead = pickupDirection == UP ? floor < pickupFloor : floor > pickupFloor;
+            if (state != IDLE && (state != pickupDirection || !floorAhead)) continue;
+
+            candidates++;
+            int distance = Math.abs(floor - pickupFloor);
+
+            if (distance < shortestDistance) {
+                shortestDistance = distance;
+                closestElevator = elevatorId;
+            }
+        }
+
+        return closestElevator;
+    }
+
+    @Override
+    public int getCandidates() {
+        return candidates;
+    }
+}
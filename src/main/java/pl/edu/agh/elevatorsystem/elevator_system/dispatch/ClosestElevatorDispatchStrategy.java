@@ -0,0 +1,34 @@
+package pl.edu.agh.elevatorsystem.elevator_system.dispatch;
+
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+
+/**
+ * DispatchStrategy choosing the closest elevator, the cost being the number of floors between the elevator and the
+ * request. Default strategy of MyElevatorSystem, which checks the elevators with the ElevatorCandidateScan, several
+ * at once if the Vector API is available and there are at least ElevatorCandidateScan.MIN_VECTOR_ELEVATORS of them.
+ * The scan is created on the first call, once the number of elevators is known.
+ */
+public class ClosestElevatorDispatchStrategy implements DispatchStrategy {
+
+    private ElevatorCandidateScan elevatorCandidateScan = null;
+
+    @Override
+    public int findBestElevator(ElevatorDispatchState state, int pickupFloor, int pickupDirection) {
+        if (elevatorCandidateScan == null) {
+            elevatorCandidateScan = ElevatorCandidateScan.create(state.getNumberOfElevators());
+        }
+
+        return elevatorCandidateScan.findClosestElevator(state.getFloors(), state.getStates(),
+                state.getNumberOfElevators(), pickupFloor, pickupDirection);
+    }
+
+    @Override
+    public int getCandidates() {
+        return elevatorCandidateScan == null ? 0 : elevatorCandidateScan.getCandidates();
+    }
+
+    @Override
+    public int cost(ElevatorDispatchState state, int elevatorId, int pickupFloor) {
+        return Math.abs(state.getFloor(elevatorId) - pickupFloor);
+    }
+}
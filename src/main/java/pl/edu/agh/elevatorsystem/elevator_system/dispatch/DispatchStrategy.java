@@ -0,0 +1,41 @@
+package pl.edu.agh.elevatorsystem.elevator_system.dispatch;
+
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+
+/**
+ * Chooses the elevator for a pickup request among the elevators that can handle it (see
+ * ElevatorDispatchState.canPickup), the one with the lowest cost winning. Ties go to the lowest elevatorId.
+ *
+ * Strategies keep the number of candidates of the last findBestElevator call, so every elevator system needs its own
+ * instance.
+ */
+public interface DispatchStrategy {
+
+    int NO_ELEVATOR = ElevatorCandidateScan.NO_ELEVATOR;
+    // bound of the costs, so the costs of the requests of a pickup batch add up to a long without overflow
+    int MAX_COST = (1 << 27) - 1;
+
+    /**
+     * @param state           - state of the elevators
+     * @param pickupFloor     - floor from which the request was called
+     * @param pickupDirection - direction of the request, ElevatorCandidateScan.UP or DOWN
+     * @return elevatorId of the elevator with the lowest cost that can handle the request or NO_ELEVATOR (-1) if
+     * there is none
+     */
+    int findBestElevator(ElevatorDispatchState state, int pickupFloor, int pickupDirection);
+
+    /**
+     * @return number of elevators that could handle the request in the last findBestElevator call
+     */
+    int getCandidates();
+
+    /**
+     * Used to choose the elevators of the pickup batch with the lowest total cost
+     *
+     * @param state       - state of the elevators
+     * @param elevatorId  - elevatorId of the elevator that can handle the request
+     * @param pickupFloor - floor from which the request was called
+     * @return cost of handling the request by the elevator [0, MAX_COST]
+     */
+    int cost(ElevatorDispatchState state, int elevatorId, int pickupFloor);
+}
@@ -0,0 +1,96 @@
+package pl.edu.agh.elevatorsystem.elevator_system.dispatch;
+
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+
+/**
+ * State of the elevators read by the DispatchStrategy, kept in primitive arrays indexed by elevatorId
+ *
+ * The elevator system updates the state of an elevator every time it changes, so the strategies read the current
+ * floor, the state (ElevatorCandidateScan.IDLE, UP, DOWN or UNAVAILABLE) and the number of stops of any elevator
+ * without touching the Elevator object or counting anything.
+ */
+public class ElevatorDispatchState {
+
+    private final int numberOfElevators;
+    private final int[] floors;
+    private final int[] states;
+    private final int[] stops;
+
+    /**
+     * @param numberOfElevators - number of elevators in the elevator system, all of them idle on the ground floor
+     */
+    public ElevatorDispatchState(int numberOfElevators) {
+        this.numberOfElevators = numberOfElevators;
+        floors = new int[numberOfElevators];
+        states = new int[numberOfElevators];
+        stops = new int[numberOfElevators];
+    }
+
+    /**
+     * @param elevatorId - elevatorId of the elevator which state has changed
+     * @param floor      - floor that the elevator is on
+     * @param state      - ElevatorCandidateScan.IDLE, UP, DOWN or UNAVAILABLE
+     * @param stops      - number of floors that the elevator is going to stop on
+     */
+    public void update(int elevatorId, int floor, int state, int stops) {
+        floors[elevatorId] = floor;
+        states[elevatorId] = state;
+        this.stops[elevatorId] = stops;
+    }
+
+    /**
+     * @param elevatorId - elevatorId of the elevator that has moved without stopping
+     * @param floor      - floor that the elevator is on
+     */
+    public void moved(int elevatorId, int floor) {
+        floors[elevatorId] = floor;
+    }
+
+    /**
+     * Same rules as ElevatorCandidateScan: IDLE elevators can handle any request, UP and DOWN ones only the requests
+     * with their direction called from the floors ahead of them and UNAVAILABLE ones none
+     *
+     * @param elevatorId      - elevatorId of the elevator to be checked
+     * @param pickupFloor     - floor from which the request was called
+     * @param pickupDirection - direction of the request, ElevatorCandidateScan.UP or DOWN
+     * @return true if the elevator can handle the request
+     */
+    public boolean canPickup(int elevatorId, int pickupFloor, int pickupDirection) {
+        int state = states[elevatorId];
+        if (state == ElevatorCandidateScan.IDLE) return true;
+
+        int floor = floors[elevatorId];
+        boolean floorAhead = pickupDirection == ElevatorCandidateScan.UP ? floor < pickupFloor : floor > pickupFloor;
+        return state == pickupDirection && floorAhead;
+    }
+
+    public int getNumberOfElevators() {
+        return numberOfElevators;
+    }
+
+    public int getFloor(int elevatorId) {
+        return floors[elevatorId];
+    }
+
+    public int getState(int elevatorId) {
+        return states[elevatorId];
+    }
+
+    public int getStops(int elevatorId) {
+        return stops[elevatorId];
+    }
+
+    /**
+     * @return current floors of the elevators, to be read only
+     */
+    public int[] getFloors() {
+        return floors;
+    }
+
+    /**
+     * @return states of the elevators, to be read only
+     */
+    public int[] getStates() {
+        return states;
+    }
+}
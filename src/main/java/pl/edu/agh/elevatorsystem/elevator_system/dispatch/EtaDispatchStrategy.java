@@ -0,0 +1,65 @@
+package pl.edu.agh.elevatorsystem.elevator_system.dispatch;
+
+/**
+ * DispatchStrategy choosing the elevator expected to arrive first, the cost being the number of floors between the
+ * elevator and the request plus ticksPerStop for every stop the elevator already has. A busy elevator a few floors
+ * closer loses to a free one, which spreads the requests over the elevators.
+ *
+ * The stops are counted by the elevators as they are added and cleared (see Elevator.getNumberOfStops), so the cost
+ * of every candidate is computed in constant time.
+ */
+public class EtaDispatchStrategy implements DispatchStrategy {
+
+    public static final int DEFAULT_TICKS_PER_STOP = 1;
+    // keeps the cost below DispatchStrategy.MAX_COST for up to MAX_FLOORS stops
+    public static final int MAX_TICKS_PER_STOP = 1 << 16;
+
+    private final int ticksPerStop;
+    private int candidates = 0;
+
+    public EtaDispatchStrategy() {
+        this(DEFAULT_TICKS_PER_STOP);
+    }
+
+    /**
+     * @param ticksPerStop - ticks that every stop of the elevator is expected to cost [0, MAX_TICKS_PER_STOP]
+     * @throws IllegalArgumentException if ticksPerStop is out of range
+     */
+    public EtaDispatchStrategy(int ticksPerStop) {
+        if (ticksPerStop < 0 || ticksPerStop > MAX_TICKS_PER_STOP) {
+            throw new IllegalArgumentException("Ticks per stop must be in range [0, " + MAX_TICKS_PER_STOP + "]");
+        }
+        this.ticksPerStop = ticksPerStop;
+    }
+
+    @Override
+    public int findBestElevator(ElevatorDispatchState state, int pickupFloor, int pickupDirection) {
+        int bestElevator = NO_ELEVATOR;
+        int lowestCost = Integer.MAX_VALUE;
+        candidates = 0;
+
+        for (int elevatorId = 0; elevatorId < state.getNumberOfElevators(); elevatorId++) {
+            if (!state.canPickup(elevatorId, pickupFloor, pickupDirection)) continue;
+
+            candidates++;
+            int cost = cost(state, elevatorId, pickupFloor);
+
+            if (cost < lowestCost) {
+                lowestCost = cost;
+                bestElevator = elevatorId;
+            }
+        }
+
+        return bestElevator;
+    }
+
+    @Override
+    public int getCandidates() {
+        return candidates;
+    }
+
+    @Override
+    public int cost(ElevatorDispatchState state, int elevatorId, int pickupFloor) {
+        return Math.abs(state.getFloor(elevatorId) - pickupFloor) + ticksPerStop * state.getStops(elevatorId);
+    }
+}
@@ -0,0 +1,91 @@
+package pl.edu.agh.elevatorsystem.elevator_system.pickup_request;
+
+import pl.edu.agh.elevatorsystem.util.SequenceRing;
+
+/**
+ * Bounded lock-free queue of pickup requests with many producers and a single consumer
+ *
+ * The requests are kept in the slots of a SequenceRing, so a full queue rejects the request instead of blocking and
+ * the consumer never reads a request that is still being written.
+ */
+public class ConcurrentPickupQueue {
+
+    /**
+     * Receives the requests drained from the queue
+     */
+    @FunctionalInterface
+    public interface PickupConsumer {
+        void accept(int currentFloor, int direction, int destinationFloor);
+    }
+
+    private final SequenceRing ring;
+    private final int[] currentFloors;
+    private final int[] directions;
+    private final int[] destinationFloors;
+
+    /**
+     * @param capacity - maximum number of requests waiting in the queue, rounded up to the power of two, see
+     *                 SequenceRing
+     */
+    public ConcurrentPickupQueue(int capacity) {
+        ring = new SequenceRing(capacity);
+        currentFloors = new int[ring.capacity()];
+        directions = new int[ring.capacity()];
+        destinationFloors = new int[ring.capacity()];
+    }
+
+    /**
+     * Adds the pickup request at the end of the queue, can be called by any thread
+     * @return true if the request was added, false if the queue is full
+     */
+    public boolean offer(int currentFloor, int direction, int destinationFloor) {
+        int slot = ring.claim();
+        if (slot == SequenceRing.NO_SLOT) return false;
+
+        currentFloors[slot] = currentFloor;
+        directions[slot] = direction;
+        destinationFloors[slot] = destinationFloor;
+        ring.publish(slot);
+        return true;
+    }
+
+    /**
+     * Passes the requests from the front of the queue to the consumer in the order they were added. Must be called
+     * by a single thread at a time.
+     *
+     * @param consumer    - receives the drained requests
+     * @param maxRequests - maximum number of requests to be drained
+     * @return number of requests drained
+     */
+    public int drain(PickupConsumer consumer, int maxRequests) {
+        int drained = 0;
+
+        while (drained < maxRequests) {
+            int slot = ring.peek();
+            // the slot at the head is claimed by a producer that has not published the request yet
+            if (slot == SequenceRing.NO_SLOT) break;
+
+            int currentFloor = currentFloors[slot];
+            int direction = directions[slot];
+            int destinationFloor = destinationFloors[slot];
+            ring.release();
+
+            consumer.accept(currentFloor, direction, destinationFloor);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /**
+     * @return number of requests in the queue, some of them possibly not published yet. Must be called by the
+     * consumer thread
+     */
+    public int size() {
+        return ring.size();
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+}
@@ -0,0 +1,103 @@
+package pl.edu.agh.elevatorsystem.elevator_system.pickup_request;
+
+import pl.edu.agh.elevatorsystem.elevator.Direction;
+
+import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
+
+/**
+ * Encoding of the pickup request in a single long, which the elevators and the pending requests queue keep in
+ * primitive arrays instead of PickupRequest objects
+ *
+ * Request layout: bits 0 - 7 -> currentFloor, bits 8 - 15 -> destinationFloor, bit 16 -> direction (set for DOWN),
+ * bit 17 -> isInElevator, bits 18 - 63 -> createdTick + 1 (0 for PickupRequest.NO_TICK)
+ *
+ * Floors must be in range [0, MAX_FLOORS - 1], which fits in 8 bits. Valid requests never have the same current and
+ * destination floor, so no valid request is packed into INVALID (-1).
+ */
+public final class PackedPickupRequest {
+
+    public static final long INVALID = -1;
+
+    private static final int FLOOR_BITS = 8;
+    private static final int FLOOR_MASK = (1 << FLOOR_BITS) - 1;
+    private static final int DESTINATION_FLOOR_SHIFT = FLOOR_BITS;
+    private static final long DOWN = 1L << (2 * FLOOR_BITS);
+    private static final long IN_ELEVATOR = DOWN << 1;
+    private static final int CREATED_TICK_SHIFT = 2 * FLOOR_BITS + 2;
+
+    static {
+        if (MAX_FLOORS > 1 << FLOOR_BITS) {
+            throw new ExceptionInInitializerError("MAX_FLOORS does not fit in " + FLOOR_BITS + " bits");
+        }
+    }
+
+    private PackedPickupRequest() { }
+
+    /**
+     * @param currentFloor      - floor from which the request for the elevator was called
+     * @param direction         - direction in which the calling person would want to go, UP or DOWN
+     * @param destinationFloor  - floor that the person calling the elevator would want to be taken to
+     * @param inElevator        - tells if the person requesting the elevator is already in the elevator
+     * @param createdTick       - tick on which the request was called or PickupRequest.NO_TICK
+     * @return packed request
+     */
+    public static long pack(int currentFloor, Direction direction, int destinationFloor, boolean inElevator,
+                            long createdTick) {
+        long request = currentFloor | (long) destinationFloor << DESTINATION_FLOOR_SHIFT
+                | (createdTick + 1) << CREATED_TICK_SHIFT;
+        if (direction.equals(Direction.DOWN)) request |= DOWN;
+        if (inElevator) request |= IN_ELEVATOR;
+        return request;
+    }
+
+    /**
+     * @param pickupRequest - pickup request with the floors in range [0, MAX_FLOORS - 1]
+     * @return packed request with the floors, direction, isInElevator flag and createdTick of the given one
+     */
+    public static long pack(PickupRequest pickupRequest) {
+        return pack(pickupRequest.getCurrentFloor(), pickupRequest.getDirection(), pickupRequest.getDestinationFloor(),
+                pickupRequest.isInElevator(), pickupRequest.getCreatedTick());
+    }
+
+    /**
+     * @param request      - packed request
+     * @param assignedTick - tick on which the request was assigned to the elevator or PickupRequest.NO_TICK
+     * @param boardedTick  - tick on which the person entered the elevator or PickupRequest.NO_TICK
+     * @return PickupRequest view of the packed request
+     */
+    public static PickupRequest toPickupRequest(long request, long assignedTick, long boardedTick) {
+        PickupRequest pickupRequest = new PickupRequest(currentFloor(request), direction(request),
+                destinationFloor(request), isInElevator(request));
+        pickupRequest.setCreatedTick(createdTick(request));
+        pickupRequest.setAssignedTick(assignedTick);
+        pickupRequest.setBoardedTick(boardedTick);
+        return pickupRequest;
+    }
+
+    public static int currentFloor(long request) {
+        return (int) request & FLOOR_MASK;
+    }
+
+    public static int destinationFloor(long request) {
+        return (int) (request >>> DESTINATION_FLOOR_SHIFT) & FLOOR_MASK;
+    }
+
+    public static Direction direction(long request) {
+        return (request & DOWN) != 0 ? Direction.DOWN : Direction.UP;
+    }
+
+    public static boolean isInElevator(long request) {
+        return (request & IN_ELEVATOR) != 0;
+    }
+
+    /**
+     * @return the given request with the isInElevator flag set
+     */
+    public static long boarded(long request) {
+        return request | IN_ELEVATOR;
+    }
+
+    public static long createdTick(long request) {
+        return (request >>> CREATED_TICK_SHIFT) - 1;
+    }
+}
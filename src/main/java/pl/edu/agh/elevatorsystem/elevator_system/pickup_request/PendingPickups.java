@@ -0,0 +1,371 @@
+package pl.edu.agh.elevatorsystem.elevator_system.pickup_request;
+
+import pl.edu.agh.elevatorsystem.elevator.Direction;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Queue of the pickup requests that could not be assigned to any elevator yet
+ *
+ * Requests are kept in buckets keyed by the floor from which they were called and their direction, so the elevator
+ * system can select only the buckets that an elevator is able to serve in its current state instead of rescanning
+ * every pending request. Every request gets a sequence number on insertion, which keeps the selected requests in the
+ * order they were queued up.
+ *
+ * Every bucket is ordered by the sequence numbers, so the selected buckets are merged through a binary heap of the
+ * bucket indices keyed by the sequence number of their first request not tested yet. Requests that stay pending are
+ * moved to the end of their bucket, behind the untested ones, so the buckets stay ordered and nothing is allocated.
+ * forEachInOrder merges every bucket the same way, reading the buckets instead of removing their requests.
+ * removeOldest compares only the first requests of the occupied buckets, as every bucket is ordered.
+ *
+ * Requests are stored as longs, without being interpreted by the queue: MyElevatorSystem queues up the requests packed
+ * by PackedPickupRequest and FleetElevatorSystem the slots of its request pool. Every bucket is a ring buffer of
+ * (request, sequence) pairs.
+ */
+public class PendingPickups {
+
+    private static final int UP = 0;
+    private static final int DOWN = 1;
+
+    private final Bucket[] buckets;
+    // floors with at least one pending request, per direction
+    private final BitSet[] occupiedFloors = { new BitSet(), new BitSet() };
+    // floors selected for the next removeSelectedIf call, per direction
+    private final BitSet[] selectedFloors = { new BitSet(), new BitSet() };
+    // heap of the selected buckets used by removeSelectedIf and the number of their requests not tested yet
+    private final int[] selectedBuckets;
+    private final int[] untestedRequests;
+    // number of requests of every bucket already visited by forEachInOrder, 0 for removeSelectedIf
+    private final int[] visitedRequests;
+
+    private long nextSequence = 0;
+    private int size = 0;
+
+    /**
+     * @param numberOfFloors - number of floors that the requests can be called from [0, numberOfFloors - 1]
+     */
+    public PendingPickups(int numberOfFloors) {
+        this.buckets = new Bucket[2 * numberOfFloors];
+        this.selectedBuckets = new int[2 * numberOfFloors];
+        this.untestedRequests = new int[2 * numberOfFloors];
+        this.visitedRequests = new int[2 * numberOfFloors];
+    }
+
+    /**
+     * Adds the pickup request at the end of its floor and direction bucket
+     * @param request   - pickup request that could not be assigned to any elevator
+     * @param floor     - floor from which the request was called
+     * @param direction - direction of the request, UP or DOWN
+     */
+    public void add(long request, int floor, Direction direction) {
+        int directionIndex = directionIndex(direction);
+        int bucketIndex = bucketIndex(floor, directionIndex);
+
+        if (buckets[bucketIndex] == null) {
+            buckets[bucketIndex] = new Bucket();
+        }
+
+        buckets[bucketIndex].addLast(request, nextSequence++);
+        occupiedFloors[directionIndex].set(floor);
+        size++;
+    }
+
+    /**
+     * Selects every bucket, used for the elevators that are idle and can handle any request
+     */
+    public void selectAll() {
+        selectedFloors[UP].or(occupiedFloors[UP]);
+        selectedFloors[DOWN].or(occupiedFloors[DOWN]);
+    }
+
+    /**
+     * Selects the buckets of requests with the given direction that were called from the floors lying ahead of the
+     * given floor when moving in that direction
+     *
+     * @param direction - direction of the elevator, UP or DOWN
+     * @param floor     - floor that the elevator is now on
+     */
+    public void selectOnTheWay(Direction direction, int floor) {
+        int directionIndex = directionIndex(direction);
+        BitSet occupied = occupiedFloors[directionIndex];
+        BitSet selected = selectedFloors[directionIndex];
+
+        if (direction.equals(Direction.UP)) {
+            for (int f = occupied.nextSetBit(floor + 1); f >= 0; f = occupied.nextSetBit(f + 1)) {
+                selected.set(f);
+            }
+        } else {
+            for (int f = occupied.previousSetBit(floor - 1); f >= 0; f = occupied.previousSetBit(f - 1)) {
+                selected.set(f);
+            }
+        }
+    }
+
+    /**
+     * Selects the bucket of requests with the given direction called from the given floor
+     *
+     * @param direction - direction of the requests, UP or DOWN
+     * @param floor     - floor from which the requests were called
+     */
+    public void selectFloor(Direction direction, int floor) {
+        int directionIndex = directionIndex(direction);
+        if (occupiedFloors[directionIndex].get(floor)) {
+            selectedFloors[directionIndex].set(floor);
+        }
+    }
+
+    /**
+     * Tests the requests from the selected buckets in the order they were queued up and removes the ones for which
+     * the given predicate returns true. Selection is cleared afterwards.
+     *
+     * @param filter - predicate returning true if the request has been handled and should be removed
+     * @return true if any request was removed
+     */
+    public boolean removeSelectedIf(LongPredicate filter) {
+        int heapSize = 0;
+
+        for (int directionIndex = UP; directionIndex <= DOWN; directionIndex++) {
+            BitSet selected = selectedFloors[directionIndex];
+
+            for (int f = selected.nextSetBit(0); f >= 0; f = selected.nextSetBit(f + 1)) {
+                int bucketIndex = bucketIndex(f, directionIndex);
+                untestedRequests[bucketIndex] = buckets[bucketIndex].size;
+                visitedRequests[bucketIndex] = 0;
+                if (untestedRequests[bucketIndex] > 0) {
+                    heapSize = pushSelectedBucket(bucketIndex, heapSize);
+                }
+            }
+
+            selected.clear();
+        }
+
+        boolean removed = false;
+        while (heapSize > 0) {
+            int bucketIndex = selectedBuckets[0];
+            Bucket bucket = buckets[bucketIndex];
+            long request = bucket.firstRequest();
+            long sequence = bucket.firstSequence();
+            bucket.removeFirst();
+
+            if (filter.test(request)) {
+                removed = true;
+                size--;
+            } else {
+                bucket.addLast(request, sequence);
+            }
+
+            if (--untestedRequests[bucketIndex] > 0) {
+                siftDownSelectedBucket(0, heapSize);
+                continue;
+            }
+
+            selectedBuckets[0] = selectedBuckets[--heapSize];
+            siftDownSelectedBucket(0, heapSize);
+
+            if (bucket.size == 0) {
+                occupiedFloors[bucketIndex & 1].clear(bucketIndex >> 1);
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Visits the pending requests in the order they were queued up, leaving them in the queue, until the visitor
+     * returns false. The visitor must not add or remove any request.
+     *
+     * @param visitor - predicate returning false once no more requests should be visited
+     */
+    public void forEachInOrder(LongPredicate visitor) {
+        int heapSize = 0;
+
+        for (int directionIndex = UP; directionIndex <= DOWN; directionIndex++) {
+            BitSet occupied = occupiedFloors[directionIndex];
+
+            for (int f = occupied.nextSetBit(0); f >= 0; f = occupied.nextSetBit(f + 1)) {
+                int bucketIndex = bucketIndex(f, directionIndex);
+                visitedRequests[bucketIndex] = 0;
+                heapSize = pushSelectedBucket(bucketIndex, heapSize);
+            }
+        }
+
+        while (heapSize > 0) {
+            int bucketIndex = selectedBuckets[0];
+            Bucket bucket = buckets[bucketIndex];
+            if (!visitor.test(bucket.request(visitedRequests[bucketIndex]))) return;
+
+            if (++visitedRequests[bucketIndex] == bucket.size) {
+                selectedBuckets[0] = selectedBuckets[--heapSize];
+            }
+            siftDownSelectedBucket(0, heapSize);
+        }
+    }
+
+    /**
+     * Removes the request queued up the earliest, used to shed the load once the queue is full
+     * @return removed request. Must not be called on the empty queue
+     */
+    public long removeOldest() {
+        int oldestBucketIndex = -1;
+
+        for (int directionIndex = UP; directionIndex <= DOWN; directionIndex++) {
+            BitSet occupied = occupiedFloors[directionIndex];
+
+            for (int f = occupied.nextSetBit(0); f >= 0; f = occupied.nextSetBit(f + 1)) {
+                int bucketIndex = bucketIndex(f, directionIndex);
+                if (oldestBucketIndex == -1
+                        || buckets[bucketIndex].firstSequence() < buckets[oldestBucketIndex].firstSequence()) {
+                    oldestBucketIndex = bucketIndex;
+                }
+            }
+        }
+
+        Bucket bucket = buckets[oldestBucketIndex];
+        long request = bucket.firstRequest();
+        bucket.removeFirst();
+        size--;
+
+        if (bucket.size == 0) {
+            occupiedFloors[oldestBucketIndex & 1].clear(oldestBucketIndex >> 1);
+        }
+        return request;
+    }
+
+    private int pushSelectedBucket(int bucketIndex, int heapSize) {
+        int child = heapSize;
+        long sequence = firstSequence(bucketIndex);
+
+        while (child > 0) {
+            int parent = (child - 1) >> 1;
+            if (firstSequence(selectedBuckets[parent]) <= sequence) break;
+
+            selectedBuckets[child] = selectedBuckets[parent];
+            child = parent;
+        }
+
+        selectedBuckets[child] = bucketIndex;
+        return heapSize + 1;
+    }
+
+    private void siftDownSelectedBucket(int parent, int heapSize) {
+        if (heapSize == 0) return;
+
+        int bucketIndex = selectedBuckets[parent];
+        long sequence = firstSequence(bucketIndex);
+
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= heapSize) break;
+
+            if (child + 1 < heapSize
+                    && firstSequence(selectedBuckets[child + 1]) < firstSequence(selectedBuckets[child])) {
+                child++;
+            }
+            if (sequence <= firstSequence(selectedBuckets[child])) break;
+
+            selectedBuckets[parent] = selectedBuckets[child];
+            parent = child;
+        }
+
+        selectedBuckets[parent] = bucketIndex;
+    }
+
+    // sequence number of the first request of the bucket not tested or visited yet
+    private long firstSequence(int bucketIndex) {
+        return buckets[bucketIndex].sequence(visitedRequests[bucketIndex]);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return pending requests in the order they were queued up
+     */
+    public long[] toArray() {
+        long[][] sequencedRequests = new long[size][];
+        int i = 0;
+
+        for (Bucket bucket : buckets) {
+            if (bucket == null) continue;
+
+            for (int j = 0; j < bucket.size; j++) {
+                sequencedRequests[i++] = new long[] { bucket.sequence(j), bucket.request(j) };
+            }
+        }
+
+        Arrays.sort(sequencedRequests, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] requests = new long[size];
+        for (i = 0; i < size; i++) {
+            requests[i] = sequencedRequests[i][1];
+        }
+        return requests;
+    }
+
+    private int bucketIndex(int floor, int directionIndex) {
+        return floor * 2 + directionIndex;
+    }
+
+    private int directionIndex(Direction direction) {
+        return direction.equals(Direction.UP) ? UP : DOWN;
+    }
+
+    /**
+     * Ring buffer of the (request, sequence) pairs, kept next to each other in one array
+     */
+    private static class Bucket {
+
+        private long[] pairs = new long[2 * 4];
+        private int head = 0;
+        private int size = 0;
+
+        void addLast(long request, long sequence) {
+            if (2 * size == pairs.length) {
+                grow();
+            }
+
+            int tail = (head + 2 * size) & (pairs.length - 1);
+            pairs[tail] = request;
+            pairs[tail + 1] = sequence;
+            size++;
+        }
+
+        long firstRequest() {
+            return pairs[head];
+        }
+
+        long firstSequence() {
+            return pairs[head + 1];
+        }
+
+        void removeFirst() {
+            head = (head + 2) & (pairs.length - 1);
+            size--;
+        }
+
+        long request(int i) {
+            return pairs[(head + 2 * i) & (pairs.length - 1)];
+        }
+
+        long sequence(int i) {
+            return pairs[(head + 2 * i + 1) & (pairs.length - 1)];
+        }
+
+        private void grow() {
+            long[] grown = new long[2 * pairs.length];
+            int firstPart = pairs.length - head;
+
+            System.arraycopy(pairs, head, grown, 0, firstPart);
+            System.arraycopy(pairs, 0, grown, firstPart, head);
+            pairs = grown;
+            head = 0;
+        }
+    }
+}
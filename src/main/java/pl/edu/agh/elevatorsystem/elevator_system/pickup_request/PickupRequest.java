@@ -6,14 +6,27 @@ import java.util.Objects;
 
 /**
  * Representation of the pickup request
+ *
+ * The elevator system stamps the request with the simulation tick on which it was called, assigned to an elevator and
+ * boarded. Requests that were not created by the elevator system keep NO_TICK stamps. The tick on which the request is
+ * delivered is only recorded in the LatencyMetrics, as the delivered request is no longer viewed.
+ *
+ * The elevators and the queues of the elevator system keep the requests packed into longs (see PackedPickupRequest),
+ * PickupRequest objects are only created by the methods taking or returning the requests as a part of the API.
  */
 public class PickupRequest {
 
+    public static final long NO_TICK = -1;
+
     private final int currentFloor;
     private final Direction direction;
     private final int destinationFloor;
     private boolean inElevator;
 
+    private long createdTick = NO_TICK;
+    private long assignedTick = NO_TICK;
+    private long boardedTick = NO_TICK;
+
     public PickupRequest(int currentFloor, Direction direction, int destinationFloor) {
         this(currentFloor, direction, destinationFloor, false);
     }
@@ -62,6 +75,30 @@ public class PickupRequest {
         this.inElevator = inElevator;
     }
 
+    public long getCreatedTick() {
+        return createdTick;
+    }
+
+    public void setCreatedTick(long createdTick) {
+        this.createdTick = createdTick;
+    }
+
+    public long getAssignedTick() {
+        return assignedTick;
+    }
+
+    public void setAssignedTick(long assignedTick) {
+        this.assignedTick = assignedTick;
+    }
+
+    public long getBoardedTick() {
+        return boardedTick;
+    }
+
+    public void setBoardedTick(long boardedTick) {
+        this.boardedTick = boardedTick;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
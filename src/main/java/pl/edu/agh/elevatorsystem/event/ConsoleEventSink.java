@@ -0,0 +1,58 @@
+package pl.edu.agh.elevatorsystem.event;
+
+import java.io.PrintStream;
+
+/**
+ * ElevatorEventSink printing the diagnostics as messages for the CLI user and ignoring the state transitions
+ */
+public class ConsoleEventSink implements ElevatorEventSink {
+
+    // null for System.out, looked up on every message, so it can be redirected
+    private final PrintStream out;
+
+    public ConsoleEventSink() {
+        this(null);
+    }
+
+    /**
+     * @param out - stream that the messages are printed to, null for System.out
+     */
+    public ConsoleEventSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onEvent(ElevatorEventType type, long tick, int elevatorId, int firstArgument, int secondArgument,
+                        int thirdArgument) {
+        if (!type.isDiagnostic()) return;
+
+        PrintStream out = this.out != null ? this.out : System.out;
+        out.println(message(type, firstArgument, secondArgument));
+    }
+
+    /**
+     * @return message describing the diagnostic event
+     */
+    public static String message(ElevatorEventType type, int firstArgument, int secondArgument) {
+        return switch (type) {
+            case PICKUP_REJECTED -> "Pickup request rejected, too many pickup requests are pending";
+            case PICKUP_QUEUE_FULL -> "Pickup request rejected, too many requests are waiting for the next step";
+            case INVALID_PICKUP -> "Invalid pickup request";
+            case INVALID_PICKUP_BATCH -> "Invalid pickup batch";
+            case INVALID_ELEVATOR_ID -> "This elevator system has only " + secondArgument + " elevators installed";
+            case INVALID_UPDATE_FLOOR ->
+                    "Invalid update request: currentFloor and destinationFloor must be in range [0, MAX_FLOOR - 1]";
+            case ELEVATOR_OCCUPIED -> "Can't update the elevator that is currently occupied!";
+            case TOO_MANY_ELEVATORS -> "This system is for " + secondArgument + " elevators maximum. Creating "
+                    + secondArgument + " elevators...\n";
+            case TOO_FEW_ELEVATORS -> "Minimum " + secondArgument + " elevator must be created for this system. "
+                    + "Creating " + secondArgument + " elevator...\n";
+            case TOO_FEW_FLOORS -> "Minimum " + secondArgument + " floors must be served by this system. Creating "
+                    + secondArgument + " floors...\n";
+            case INVALID_STARVATION_THRESHOLD -> "Starvation threshold can not be negative";
+            case INVALID_ADMISSION_CONTROL ->
+                    "Pending pickups capacity must be positive and the admission policy must be given";
+            default -> type.toString();
+        };
+    }
+}
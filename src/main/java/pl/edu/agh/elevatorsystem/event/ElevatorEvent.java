@@ -0,0 +1,75 @@
+package pl.edu.agh.elevatorsystem.event;
+
+import java.util.Objects;
+
+/**
+ * Event passed to the subscribers of the ElevatorEventPublisher, with the same arguments as ElevatorEventSink.onEvent
+ * (see ElevatorEventType for their meaning)
+ */
+public class ElevatorEvent {
+
+    private final ElevatorEventType type;
+    private final long tick;
+    private final int elevatorId;
+    private final int firstArgument;
+    private final int secondArgument;
+    private final int thirdArgument;
+
+    public ElevatorEvent(ElevatorEventType type, long tick, int elevatorId, int firstArgument, int secondArgument,
+                         int thirdArgument) {
+        this.type = type;
+        this.tick = tick;
+        this.elevatorId = elevatorId;
+        this.firstArgument = firstArgument;
+        this.secondArgument = secondArgument;
+        this.thirdArgument = thirdArgument;
+    }
+
+    public ElevatorEventType getType() {
+        return type;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return elevatorId of the elevator that the event concerns or ElevatorEventSink.NO_ELEVATOR
+     */
+    public int getElevatorId() {
+        return elevatorId;
+    }
+
+    public int getFirstArgument() {
+        return firstArgument;
+    }
+
+    public int getSecondArgument() {
+        return secondArgument;
+    }
+
+    public int getThirdArgument() {
+        return thirdArgument;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ElevatorEvent that = (ElevatorEvent) o;
+        return type == that.type && tick == that.tick && elevatorId == that.elevatorId
+                && firstArgument == that.firstArgument && secondArgument == that.secondArgument
+                && thirdArgument == that.thirdArgument;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, tick, elevatorId, firstArgument, secondArgument, thirdArgument);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + tick + " " + elevatorId + " " + firstArgument + " " + secondArgument + " "
+                + thirdArgument;
+    }
+}
@@ -0,0 +1,356 @@
+package pl.edu.agh.elevatorsystem.event;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Event sink publishing the events of the elevator system to any number of Flow subscribers, and passing them to
+ * the delegate sink as well
+ *
+ * Every subscriber has its own bounded lock-free buffer (ElevatorEventQueue) that the reporting threads copy the
+ * primitive arguments of the event to, and a drain task run by the executor, which passes the buffered events to the
+ * subscriber as long as it has requested them. The drain task is submitted only when the subscriber has no task
+ * running, so the events reported in the meantime are delivered together by the running one. Reporting an event
+ * never waits for the subscribers: once the buffer of a slow subscriber is full, the events that do not fit are
+ * handled by the overflowPolicy and counted.
+ *
+ * With the SAMPLE and CONFLATE_PER_ELEVATOR policies the events that do not fit are kept in the overflow slots: one
+ * slot for SAMPLE, one per elevator (and one for the events of no elevator) for CONFLATE_PER_ELEVATOR, each holding
+ * the last event put there. Once a subscriber overflowed, the next events go to the slots until it has received the
+ * buffered events and the kept ones, so the events are passed in the order they were reported.
+ *
+ * The subscribers are only called by the drain tasks and from their own calls of request. When the executor rejects
+ * the drain task, the subscription stops receiving events and the subscriber gets the error from the next drain task
+ * or request, never on the thread reporting the event.
+ */
+public class ElevatorEventPublisher implements Flow.Publisher<ElevatorEvent>, ElevatorEventSink {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+
+    private static final EventSubscription[] NO_SUBSCRIPTIONS = new EventSubscription[0];
+
+    private final ElevatorEventSink delegate;
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final EventOverflowPolicy overflowPolicy;
+    private final int numberOfOverflowSlots;
+
+    // replaced on every subscribe and cancel, so reporting an event iterates over it without allocating
+    private volatile EventSubscription[] subscriptions = NO_SUBSCRIPTIONS;
+    private boolean closed = false;
+
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong overflowedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * @param delegate          - sink that every event is passed to as well, e.g. ElevatorEventSink.CONSOLE
+     * @param executor          - executor delivering the events to the subscribers, must not run the tasks on the
+     *                            submitting thread, as it would make the elevator system wait for the subscribers
+     * @param bufferCapacity    - maximum number of events buffered for every subscriber, rounded up to the power of
+     *                            two [minimum 2]
+     * @param overflowPolicy    - what happens to the events reported while the buffer of a subscriber is full
+     * @param numberOfElevators - number of elevators of the elevator system, the events of the elevators above it
+     *                            are dropped on overflow by CONFLATE_PER_ELEVATOR
+     */
+    public ElevatorEventPublisher(ElevatorEventSink delegate, Executor executor, int bufferCapacity,
+                                  EventOverflowPolicy overflowPolicy, int numberOfElevators) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.bufferCapacity = bufferCapacity;
+        this.overflowPolicy = overflowPolicy;
+        numberOfOverflowSlots = switch (overflowPolicy) {
+            case DROP -> 0;
+            case SAMPLE -> 1;
+            case CONFLATE_PER_ELEVATOR -> Math.max(0, numberOfElevators) + 1;
+        };
+    }
+
+    @Override
+    public void onEvent(ElevatorEventType type, long tick, int elevatorId, int firstArgument, int secondArgument,
+                        int thirdArgument) {
+        delegate.onEvent(type, tick, elevatorId, firstArgument, secondArgument, thirdArgument);
+
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(type, tick, elevatorId, firstArgument, secondArgument, thirdArgument);
+        }
+    }
+
+    /**
+     * Adds the subscriber, which gets the events reported from now on. A subscriber added after close is completed
+     * right away.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ElevatorEvent> subscriber) {
+        Objects.requireNonNull(subscriber);
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+
+        synchronized (this) {
+            if (!closed) {
+                EventSubscription[] current = subscriptions;
+                EventSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = subscription;
+                subscriptions = updated;
+                return;
+            }
+        }
+        subscription.complete();
+    }
+
+    /**
+     * Stops publishing the events, every subscriber gets the events buffered so far and is completed. The events
+     * are still passed to the delegate sink.
+     */
+    public void close() {
+        EventSubscription[] current;
+
+        synchronized (this) {
+            closed = true;
+            current = subscriptions;
+            subscriptions = NO_SUBSCRIPTIONS;
+        }
+        for (EventSubscription subscription : current) {
+            subscription.complete();
+        }
+    }
+
+    private synchronized void remove(EventSubscription subscription) {
+        EventSubscription[] current = subscriptions;
+
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != subscription) continue;
+
+            EventSubscription[] updated = new EventSubscription[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            subscriptions = updated;
+            return;
+        }
+    }
+
+    public ElevatorEventSink getDelegate() {
+        return delegate;
+    }
+
+    public EventOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getNumberOfSubscribers() {
+        return subscriptions.length;
+    }
+
+    /**
+     * @return number of events passed to the subscribers, counted once for every subscriber
+     */
+    public long getDeliveredEvents() {
+        return deliveredEvents.get();
+    }
+
+    /**
+     * @return number of events that did not fit in the buffer of a subscriber
+     */
+    public long getOverflowedEvents() {
+        return overflowedEvents.get();
+    }
+
+    /**
+     * @return number of overflowed events that will never be passed to the subscriber: all of them with DROP, the
+     * ones replaced in the overflow slots with SAMPLE and CONFLATE_PER_ELEVATOR
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ElevatorEventPublisher (" + overflowPolicy + "): subscribers: " + getNumberOfSubscribers()
+                + ", delivered: " + getDeliveredEvents() + ", overflowed: " + getOverflowedEvents()
+                + ", dropped: " + getDroppedEvents();
+    }
+
+    private class EventSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ElevatorEvent> subscriber;
+        private final ElevatorEventQueue queue;
+        private final AtomicReferenceArray<ElevatorEvent> overflowSlots;
+        // set once the subscriber overflowed, until it has received the buffered and the kept events
+        private volatile boolean overflowing = false;
+        // touched only by the drain task, first overflow slot to be checked
+        private int overflowCursor = 0;
+
+        private final AtomicLong demand = new AtomicLong();
+        // number of signals since the drain task started, the task is submitted when it goes up from 0
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private final Runnable drainTask = this::drain;
+
+        private volatile boolean cancelled = false;
+        private volatile boolean completed = false;
+        private volatile boolean invalidRequest = false;
+        // set when the executor rejected the drain task, taken by whoever passes it to the subscriber
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private EventSubscription(Flow.Subscriber<? super ElevatorEvent> subscriber) {
+            this.subscriber = subscriber;
+            queue = new ElevatorEventQueue(bufferCapacity);
+            overflowSlots = new AtomicReferenceArray<>(numberOfOverflowSlots);
+        }
+
+        /**
+         * Buffers the event for the subscriber or handles it by the overflowPolicy, can be called by any thread
+         */
+        private void offer(ElevatorEventType type, long tick, int elevatorId, int firstArgument, int secondArgument,
+                           int thirdArgument) {
+            if (!overflowing && queue.offer(type, tick, elevatorId, firstArgument, secondArgument, thirdArgument)) {
+                signal();
+                return;
+            }
+
+            overflowedEvents.incrementAndGet();
+            int slot = overflowPolicy == EventOverflowPolicy.SAMPLE ? 0 : elevatorId + 1;
+            if (slot >= numberOfOverflowSlots) {
+                droppedEvents.incrementAndGet();
+                return;
+            }
+
+            overflowing = true;
+            ElevatorEvent event = new ElevatorEvent(type, tick, elevatorId, firstArgument, secondArgument,
+                    thirdArgument);
+            if (overflowSlots.getAndSet(slot, event) != null) {
+                droppedEvents.incrementAndGet();
+            }
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = true;
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            signal();
+            deliverFailure();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            remove(this);
+        }
+
+        private void complete() {
+            completed = true;
+            signal();
+        }
+
+        private void signal() {
+            if (pendingSignals.getAndIncrement() != 0) return;
+
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // the next signal submits the drain task again, which passes the failure to the subscriber
+                remove(this);
+                failure.set(e);
+                pendingSignals.set(0);
+            }
+        }
+
+        /**
+         * @return true if the subscriber got the failure and the subscription is cancelled
+         */
+        private boolean deliverFailure() {
+            if (cancelled) return false;
+            Throwable throwable = failure.getAndSet(null);
+            if (throwable == null) return false;
+
+            cancelled = true;
+            subscriber.onError(throwable);
+            return true;
+        }
+
+        /**
+         * Passes the buffered events to the subscriber as long as it has requested them, run by one thread at a time
+         */
+        private void drain() {
+            int signals = 1;
+
+            do {
+                if (deliverFailure() || cancelled) return;
+                if (invalidRequest) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("Number of requested events must be positive"));
+                    return;
+                }
+
+                long requested = demand.get();
+                long emitted = 0;
+
+                while (emitted < requested && !cancelled) {
+                    ElevatorEvent event = next();
+                    if (event == null) break;
+
+                    try {
+                        subscriber.onNext(event);
+                    } catch (Throwable t) {
+                        cancel();
+                        subscriber.onError(t);
+                        return;
+                    }
+                    emitted++;
+                }
+
+                if (emitted > 0) {
+                    deliveredEvents.addAndGet(emitted);
+                    if (requested != Long.MAX_VALUE) {
+                        demand.addAndGet(-emitted);
+                    }
+                }
+
+                if (completed && !cancelled && isEmpty()) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                    return;
+                }
+
+                signals = pendingSignals.addAndGet(-signals);
+            } while (signals != 0);
+        }
+
+        /**
+         * @return the next buffered event, then the next kept one, null if there is none
+         */
+        private ElevatorEvent next() {
+            ElevatorEvent event = queue.poll();
+            if (event != null) return event;
+
+            for (; overflowCursor < numberOfOverflowSlots; overflowCursor++) {
+                if (overflowSlots.get(overflowCursor) != null) {
+                    return overflowSlots.getAndSet(overflowCursor, null);
+                }
+            }
+
+            overflowCursor = 0;
+            overflowing = false;
+            return null;
+        }
+
+        private boolean isEmpty() {
+            if (!queue.isEmpty()) return false;
+
+            for (int slot = 0; slot < numberOfOverflowSlots; slot++) {
+                if (overflowSlots.get(slot) != null) return false;
+            }
+            return true;
+        }
+    }
+}
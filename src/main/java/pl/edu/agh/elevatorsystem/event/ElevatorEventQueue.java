@@ -0,0 +1,80 @@
+package pl.edu.agh.elevatorsystem.event;
+
+import pl.edu.agh.elevatorsystem.util.SequenceRing;
+
+/**
+ * Bounded lock-free queue of events with many producers and a single consumer, kept in the slots of a SequenceRing
+ *
+ * Events are kept as primitive fields, so the threads reporting them do not allocate. The ElevatorEvent object is
+ * created by the consumer when the event is taken from the queue.
+ */
+class ElevatorEventQueue {
+
+    private static final ElevatorEventType[] TYPES = ElevatorEventType.values();
+
+    private final SequenceRing ring;
+    private final byte[] types;
+    private final long[] ticks;
+    private final int[] elevatorIds;
+    private final int[] firstArguments;
+    private final int[] secondArguments;
+    private final int[] thirdArguments;
+
+    /**
+     * @param capacity - maximum number of events waiting in the queue, rounded up to the power of two, see
+     *                 SequenceRing
+     */
+    ElevatorEventQueue(int capacity) {
+        ring = new SequenceRing(capacity);
+        int size = ring.capacity();
+
+        types = new byte[size];
+        ticks = new long[size];
+        elevatorIds = new int[size];
+        firstArguments = new int[size];
+        secondArguments = new int[size];
+        thirdArguments = new int[size];
+    }
+
+    /**
+     * Adds the event at the end of the queue, can be called by any thread
+     * @return true if the event was added, false if the queue is full
+     */
+    boolean offer(ElevatorEventType type, long tick, int elevatorId, int firstArgument, int secondArgument,
+                  int thirdArgument) {
+        int slot = ring.claim();
+        if (slot == SequenceRing.NO_SLOT) return false;
+
+        types[slot] = (byte) type.ordinal();
+        ticks[slot] = tick;
+        elevatorIds[slot] = elevatorId;
+        firstArguments[slot] = firstArgument;
+        secondArguments[slot] = secondArgument;
+        thirdArguments[slot] = thirdArgument;
+        ring.publish(slot);
+        return true;
+    }
+
+    /**
+     * Takes the event from the front of the queue. Must be called by a single thread at a time.
+     * @return the event or null if there is no published event at the front of the queue
+     */
+    ElevatorEvent poll() {
+        int slot = ring.peek();
+        // the slot at the head is claimed by a producer that has not published the event yet
+        if (slot == SequenceRing.NO_SLOT) return null;
+
+        ElevatorEvent event = new ElevatorEvent(TYPES[types[slot]], ticks[slot], elevatorIds[slot],
+                firstArguments[slot], secondArguments[slot], thirdArguments[slot]);
+        ring.release();
+
+        return event;
+    }
+
+    /**
+     * @return true if there is no published event at the front of the queue, must be called by the consumer thread
+     */
+    boolean isEmpty() {
+        return ring.peek() == SequenceRing.NO_SLOT;
+    }
+}
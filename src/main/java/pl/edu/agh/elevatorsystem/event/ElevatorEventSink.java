@@ -0,0 +1,33 @@
+package pl.edu.agh.elevatorsystem.event;
+
+/**
+ * Receives the diagnostics and state transitions of the elevator system
+ *
+ * Events are passed as the type and primitive arguments, so reporting them does not allocate anything and the sink
+ * can copy them e.g. into a preallocated ring buffer. Events are reported synchronously by the thread that caused
+ * them: the simulation thread, the threads of the stepPool moving the elevators in parallel (ARRIVED, BOARDED and
+ * DELIVERED) and, for ConcurrentElevatorSystem, the threads calling pickup (PICKUP_QUEUE_FULL). A sink used with a
+ * stepPool or by the ConcurrentElevatorSystem must be thread-safe.
+ */
+@FunctionalInterface
+public interface ElevatorEventSink {
+
+    int NO_ELEVATOR = -1;
+
+    // ignores every event
+    ElevatorEventSink NONE = (type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) -> { };
+
+    // prints the diagnostics to System.out, default sink of the elevator systems
+    ElevatorEventSink CONSOLE = new ConsoleEventSink();
+
+    /**
+     * @param type           - type of the event, see ElevatorEventType for its arguments
+     * @param tick           - tick of the elevator system that the event happened on
+     * @param elevatorId     - elevatorId of the elevator that the event concerns or NO_ELEVATOR
+     * @param firstArgument  - first argument of the event
+     * @param secondArgument - second argument of the event
+     * @param thirdArgument  - third argument of the event
+     */
+    void onEvent(ElevatorEventType type, long tick, int elevatorId, int firstArgument, int secondArgument,
+                 int thirdArgument);
+}
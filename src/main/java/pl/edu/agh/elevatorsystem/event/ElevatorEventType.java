@@ -0,0 +1,68 @@
+package pl.edu.agh.elevatorsystem.event;
+
+/**
+ * Type of the event passed to the ElevatorEventSink, which also tells how to read the arguments of the event
+ *
+ * Pickup request events: the elevatorId of the elevator handling the request (ElevatorEventSink.NO_ELEVATOR if
+ * there is none) and the currentFloor, direction (1 - up, -1 - down) and destinationFloor of the request. Other
+ * events describe their arguments below, the unused ones are 0.
+ */
+public enum ElevatorEventType {
+    // state transitions
+
+    // pickup request assigned to the elevator
+    PICKUP_ASSIGNED(false),
+    // pickup request added to the pending pickups queue
+    PICKUP_QUEUED(false),
+    // oldest pending pickup request dropped to make room for a new one
+    PICKUP_SHED(false),
+    // elevator stopped on a floor to let people out or in: floor, reported before DELIVERED and BOARDED
+    ARRIVED(false),
+    // person entered the elevator
+    BOARDED(false),
+    // person left the elevator on its destination floor
+    DELIVERED(false),
+    // elevator updated: elevatorId, currentFloor, destinationFloor
+    ELEVATOR_UPDATED(false),
+
+    // diagnostics
+
+    // pickup request dropped, as the pending pickups queue is full
+    PICKUP_REJECTED(true),
+    // pickup request dropped, as the queue of the requests waiting for the next step is full
+    PICKUP_QUEUE_FULL(true),
+    // pickup request not describing a valid request
+    INVALID_PICKUP(true),
+    // pickup batch with arrays of different lengths: currentFloors, directions and destinationFloors lengths
+    INVALID_PICKUP_BATCH(true),
+    // update of an elevator that does not exist: elevatorId, number of elevators installed
+    INVALID_ELEVATOR_ID(true),
+    // update to a floor out of range: elevatorId, currentFloor, destinationFloor
+    INVALID_UPDATE_FLOOR(true),
+    // update of an elevator handling pickup requests: elevatorId, currentFloor, destinationFloor
+    ELEVATOR_OCCUPIED(true),
+    // too many elevators requested: requested number, created number
+    TOO_MANY_ELEVATORS(true),
+    // too few elevators requested: requested number, created number
+    TOO_FEW_ELEVATORS(true),
+    // too few floors requested: requested number, created number
+    TOO_FEW_FLOORS(true),
+    // negative starvation threshold, ignored
+    INVALID_STARVATION_THRESHOLD(true),
+    // non-positive pending pickups capacity or no admission policy, ignored: capacity
+    INVALID_ADMISSION_CONTROL(true);
+
+    private final boolean diagnostic;
+
+    ElevatorEventType(boolean diagnostic) {
+        this.diagnostic = diagnostic;
+    }
+
+    /**
+     * @return true if the event reports a problem with a request or the configuration, false if it is a state
+     * transition of the elevator system
+     */
+    public boolean isDiagnostic() {
+        return diagnostic;
+    }
+}
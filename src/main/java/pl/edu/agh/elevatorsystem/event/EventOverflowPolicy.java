@@ -0,0 +1,14 @@
+package pl.edu.agh.elevatorsystem.event;
+
+/**
+ * What happens to the events reported while the buffer of a subscriber of the ElevatorEventPublisher is full
+ */
+public enum EventOverflowPolicy {
+    // events that do not fit in the buffer are dropped
+    DROP,
+    // the last event that did not fit in the buffer is kept and passed once the subscriber has caught up
+    SAMPLE,
+    // the last event of every elevator that did not fit in the buffer is kept and passed once the subscriber has
+    // caught up, so the subscriber gets the latest state of every elevator
+    CONFLATE_PER_ELEVATOR
+}
@@ -0,0 +1,26 @@
+package pl.edu.agh.elevatorsystem.management;
+
+/**
+ * Read-only state of a single elevator exposed through JMX
+ */
+public interface ElevatorMXBean {
+
+    int getElevatorId();
+
+    int getCurrentFloor();
+
+    /**
+     * @return destination floor of the elevator, -1 if the elevator is idle
+     */
+    int getDestinationFloor();
+
+    /**
+     * @return UP, DOWN or IDLE
+     */
+    String getDirection();
+
+    /**
+     * @return number of pickup requests handled by the elevator, both waiting for it and taken into it
+     */
+    int getNumberOfRequests();
+}
@@ -0,0 +1,47 @@
+package pl.edu.agh.elevatorsystem.management;
+
+import pl.edu.agh.elevatorsystem.elevator.Direction;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+
+/**
+ * Implementation of the ElevatorMXBean reading the state of the elevator published by the elevator system
+ */
+public class ElevatorStats implements ElevatorMXBean {
+
+    private final ElevatorSystemCounters counters;
+    private final int elevatorId;
+
+    /**
+     * @param counters   - counters of the elevator system that the elevator belongs to
+     * @param elevatorId - elevatorId of the elevator to be exposed
+     */
+    public ElevatorStats(ElevatorSystemCounters counters, int elevatorId) {
+        this.counters = counters;
+        this.elevatorId = elevatorId;
+    }
+
+    @Override
+    public int getElevatorId() {
+        return elevatorId;
+    }
+
+    @Override
+    public int getCurrentFloor() {
+        return counters.getCurrentFloor(elevatorId);
+    }
+
+    @Override
+    public int getDestinationFloor() {
+        return counters.getDestinationFloor(elevatorId);
+    }
+
+    @Override
+    public String getDirection() {
+        return Direction.of(counters.getDirection(elevatorId)).name();
+    }
+
+    @Override
+    public int getNumberOfRequests() {
+        return counters.getNumberOfRequests(elevatorId);
+    }
+}
@@ -0,0 +1,63 @@
+package pl.edu.agh.elevatorsystem.management;
+
+import pl.edu.agh.elevatorsystem.elevator_system.IElevatorSystem;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the MBeans of the elevator system in the platform MBeanServer, so they can be browsed with JConsole or
+ * any other JMX client:
+ *
+ *      pl.edu.agh.elevatorsystem:type=ElevatorSystem,system=[name]
+ *      pl.edu.agh.elevatorsystem:type=Elevator,system=[name],elevatorId=[elevatorId]
+ */
+public class ElevatorSystemMBeans {
+
+    public static final String DOMAIN = "pl.edu.agh.elevatorsystem";
+
+    private ElevatorSystemMBeans() {
+    }
+
+    /**
+     * Registers the MBean of the elevator system and of every of its elevators
+     *
+     * @param elevatorSystem - elevator system to be exposed
+     * @param name           - name distinguishing the elevator system from the other registered ones
+     * @throws JMException if the name is not a valid ObjectName value or is already registered
+     */
+    public static void register(IElevatorSystem elevatorSystem, String name) throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ElevatorSystemCounters counters = elevatorSystem.getElevatorSystemCounters();
+
+        mBeanServer.registerMBean(new ElevatorSystemStats(counters), elevatorSystemName(name));
+        for (int elevatorId = 0; elevatorId < counters.getNumberOfElevators(); elevatorId++) {
+            mBeanServer.registerMBean(new ElevatorStats(counters, elevatorId), elevatorName(name, elevatorId));
+        }
+    }
+
+    /**
+     * Unregisters every MBean registered for the elevator system with the given name
+     *
+     * @param name - name that the elevator system was registered with
+     * @throws JMException if the name is not a valid ObjectName value
+     */
+    public static void unregister(String name) throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        for (ObjectName objectName : mBeanServer.queryNames(new ObjectName(DOMAIN + ":system=" + name + ",*"), null)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    public static ObjectName elevatorSystemName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=ElevatorSystem,system=" + name);
+    }
+
+    public static ObjectName elevatorName(String name, int elevatorId) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Elevator,system=" + name + ",elevatorId=" + elevatorId);
+    }
+}
@@ -0,0 +1,69 @@
+package pl.edu.agh.elevatorsystem.management;
+
+/**
+ * Read-only statistics of the elevator system and its dispatcher exposed through JMX
+ */
+public interface ElevatorSystemMXBean {
+
+    /**
+     * @return number of the simulation steps performed so far
+     */
+    long getTick();
+
+    int getNumberOfElevators();
+
+    /**
+     * @return number of pickup requests waiting for any elevator to be able to handle them
+     */
+    long getPendingPickups();
+
+    /**
+     * @return number of pickup requests assigned to the elevators so far
+     */
+    long getAssignments();
+
+    /**
+     * @return number of pickup requests added to the pending pickups queue so far
+     */
+    long getQueuedPickups();
+
+    /**
+     * @return number of pickup requests queued up above the capacity of the pending pickups queue so far
+     */
+    long getThrottledPickups();
+
+    /**
+     * @return number of pending pickup requests dropped to make room for the new ones so far
+     */
+    long getShedPickups();
+
+    /**
+     * @return number of pickup requests dropped as the pending pickups queue was full so far
+     */
+    long getRejectedPickups();
+
+    /**
+     * @return number of pickup requests delivered so far
+     */
+    long getDeliveredPickups();
+
+    /**
+     * @return simulation steps per second since the previous read of this attribute
+     */
+    double getStepsPerSecond();
+
+    /**
+     * @return pickup requests assigned per second since the previous read of this attribute
+     */
+    double getAssignmentsPerSecond();
+
+    /**
+     * @return average number of ticks that the delivered people waited for the elevator
+     */
+    double getAverageWaitTime();
+
+    /**
+     * @return maximum number of ticks that any delivered person waited for the elevator
+     */
+    long getMaxWaitTime();
+}
@@ -0,0 +1,116 @@
+package pl.edu.agh.elevatorsystem.management;
+
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+
+/**
+ * Implementation of the ElevatorSystemMXBean reading the counters published by the elevator system
+ *
+ * Rates are computed from the difference between the current counter and the one seen by the previous read, so
+ * a monitoring tool polling the attribute gets the rate over its polling interval. Only the reading threads
+ * synchronize on the rates, the elevator system never waits for them.
+ */
+public class ElevatorSystemStats implements ElevatorSystemMXBean {
+
+    private final ElevatorSystemCounters counters;
+    private final Rate stepsRate;
+    private final Rate assignmentsRate;
+
+    /**
+     * @param counters - counters of the elevator system to be exposed
+     */
+    public ElevatorSystemStats(ElevatorSystemCounters counters) {
+        this.counters = counters;
+        stepsRate = new Rate(counters.getTick());
+        assignmentsRate = new Rate(counters.getAssignments());
+    }
+
+    @Override
+    public long getTick() {
+        return counters.getTick();
+    }
+
+    @Override
+    public int getNumberOfElevators() {
+        return counters.getNumberOfElevators();
+    }
+
+    @Override
+    public long getPendingPickups() {
+        return counters.getPendingPickups();
+    }
+
+    @Override
+    public long getAssignments() {
+        return counters.getAssignments();
+    }
+
+    @Override
+    public long getQueuedPickups() {
+        return counters.getQueuedPickups();
+    }
+
+    @Override
+    public long getThrottledPickups() {
+        return counters.getThrottledPickups();
+    }
+
+    @Override
+    public long getShedPickups() {
+        return counters.getShedPickups();
+    }
+
+    @Override
+    public long getRejectedPickups() {
+        return counters.getRejectedPickups();
+    }
+
+    @Override
+    public long getDeliveredPickups() {
+        return counters.getDeliveredPickups();
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        return stepsRate.perSecond(counters.getTick());
+    }
+
+    @Override
+    public double getAssignmentsPerSecond() {
+        return assignmentsRate.perSecond(counters.getAssignments());
+    }
+
+    @Override
+    public double getAverageWaitTime() {
+        // delivered requests are counted before their wait time is added, so reading the total first never
+        // counts a wait time without its request
+        long totalWaitTime = counters.getTotalWaitTime();
+        long deliveredPickups = counters.getDeliveredPickups();
+        return deliveredPickups == 0 ? 0 : (double) totalWaitTime / deliveredPickups;
+    }
+
+    @Override
+    public long getMaxWaitTime() {
+        return counters.getMaxWaitTime();
+    }
+
+    private static class Rate {
+
+        private long lastCount;
+        private long lastNanos = System.nanoTime();
+
+        private Rate(long count) {
+            lastCount = count;
+        }
+
+        private synchronized double perSecond(long count) {
+            long nanos = System.nanoTime();
+            long elapsedNanos = nanos - lastNanos;
+            if (elapsedNanos <= 0) return 0;
+
+            double perSecond = (count - lastCount) * 1e9 / elapsedNanos;
+            lastCount = count;
+            lastNanos = nanos;
+            return perSecond;
+        }
+    }
+}
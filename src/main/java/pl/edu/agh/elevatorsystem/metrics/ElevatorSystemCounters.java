@@ -0,0 +1,183 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live state of the elevator system published for the threads monitoring it
+ *
+ * Counters are written only by the simulation thread (and by the threads of the parallel step, each for its own
+ * elevators), so they are updated with lazySet instead of atomic read-modify-write operations, which costs the
+ * same as a plain write. Other threads always read the last published values.
+ */
+public class ElevatorSystemCounters {
+
+    private final int numberOfElevators;
+
+    private final AtomicLong tick = new AtomicLong();
+    private final AtomicLong pendingPickups = new AtomicLong();
+    private final AtomicLong assignments = new AtomicLong();
+    private final AtomicLong queuedPickups = new AtomicLong();
+    private final AtomicLong throttledPickups = new AtomicLong();
+    private final AtomicLong shedPickups = new AtomicLong();
+    private final AtomicLong rejectedPickups = new AtomicLong();
+    private final AtomicLong deliveredPickups = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    private final AtomicIntegerArray currentFloors;
+    private final AtomicIntegerArray destinationFloors;
+    private final AtomicIntegerArray directions;
+    private final AtomicIntegerArray requests;
+
+    /**
+     * @param numberOfElevators - number of elevators in the elevator system
+     */
+    public ElevatorSystemCounters(int numberOfElevators) {
+        this.numberOfElevators = numberOfElevators;
+        currentFloors = new AtomicIntegerArray(numberOfElevators);
+        destinationFloors = new AtomicIntegerArray(numberOfElevators);
+        directions = new AtomicIntegerArray(numberOfElevators);
+        requests = new AtomicIntegerArray(numberOfElevators);
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            destinationFloors.lazySet(elevatorId, -1);
+        }
+    }
+
+    /**
+     * @param tick           - tick that the elevator system has been advanced to
+     * @param pendingPickups - number of pending pickup requests
+     */
+    public void stepped(long tick, int pendingPickups) {
+        this.tick.lazySet(tick);
+        this.pendingPickups.lazySet(pendingPickups);
+    }
+
+    /**
+     * @param pendingPickups - number of pending pickup requests
+     */
+    public void pendingPickupsChanged(int pendingPickups) {
+        this.pendingPickups.lazySet(pendingPickups);
+    }
+
+    /**
+     * Counts the pickup request assigned to an elevator
+     */
+    public void assigned() {
+        assignments.lazySet(assignments.get() + 1);
+    }
+
+    /**
+     * Counts the pickup request added to the pending pickups queue
+     * @param overCapacity - true if the queue was full and the caller has been told to slow down
+     */
+    public void queued(boolean overCapacity) {
+        queuedPickups.lazySet(queuedPickups.get() + 1);
+        if (overCapacity) {
+            throttledPickups.lazySet(throttledPickups.get() + 1);
+        }
+    }
+
+    /**
+     * Counts the pending pickup request dropped to make room for a new one
+     */
+    public void shed() {
+        shedPickups.lazySet(shedPickups.get() + 1);
+    }
+
+    /**
+     * Counts the pickup request dropped as the pending pickups queue was full
+     */
+    public void rejected() {
+        rejectedPickups.lazySet(rejectedPickups.get() + 1);
+    }
+
+    /**
+     * @param waitTime - ticks that the delivered person waited for the elevator
+     */
+    public void delivered(long waitTime) {
+        deliveredPickups.lazySet(deliveredPickups.get() + 1);
+        totalWaitTime.lazySet(totalWaitTime.get() + waitTime);
+        if (waitTime > maxWaitTime.get()) {
+            maxWaitTime.lazySet(waitTime);
+        }
+    }
+
+    /**
+     * Publishes the state of the elevator
+     *
+     * @param elevatorId       - elevatorId of the elevator
+     * @param currentFloor     - floor that the elevator is on
+     * @param destinationFloor - destination floor of the elevator, -1 if the elevator is idle
+     * @param direction        - direction of the elevator (1 - up, -1 - down, 0 - idle)
+     * @param numberOfRequests - number of pickup requests handled by the elevator
+     */
+    public void elevatorChanged(int elevatorId, int currentFloor, int destinationFloor, int direction,
+                                int numberOfRequests) {
+        currentFloors.lazySet(elevatorId, currentFloor);
+        destinationFloors.lazySet(elevatorId, destinationFloor);
+        directions.lazySet(elevatorId, direction);
+        requests.lazySet(elevatorId, numberOfRequests);
+    }
+
+    public int getNumberOfElevators() {
+        return numberOfElevators;
+    }
+
+    public long getTick() {
+        return tick.get();
+    }
+
+    public long getPendingPickups() {
+        return pendingPickups.get();
+    }
+
+    public long getAssignments() {
+        return assignments.get();
+    }
+
+    public long getQueuedPickups() {
+        return queuedPickups.get();
+    }
+
+    public long getThrottledPickups() {
+        return throttledPickups.get();
+    }
+
+    public long getShedPickups() {
+        return shedPickups.get();
+    }
+
+    public long getRejectedPickups() {
+        return rejectedPickups.get();
+    }
+
+    public long getDeliveredPickups() {
+        return deliveredPickups.get();
+    }
+
+    public long getTotalWaitTime() {
+        return totalWaitTime.get();
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    public int getCurrentFloor(int elevatorId) {
+        return currentFloors.get(elevatorId);
+    }
+
+    public int getDestinationFloor(int elevatorId) {
+        return destinationFloors.get(elevatorId);
+    }
+
+    public int getDirection(int elevatorId) {
+        return directions.get(elevatorId);
+    }
+
+    public int getNumberOfRequests(int elevatorId) {
+        return requests.get(elevatorId);
+    }
+}
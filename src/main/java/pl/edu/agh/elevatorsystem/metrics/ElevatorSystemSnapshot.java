@@ -0,0 +1,155 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+
+/**
+ * Consistent copy of the state of the elevator system at the end of a step, filled by
+ * ElevatorSystemSnapshotBuffer.read
+ *
+ * Every reader thread owns its snapshot and reuses it for every read, so reading does not allocate once its arrays are
+ * large enough. The pickup requests of every elevator are kept as primitive records (currentFloor, destinationFloor,
+ * inElevator) in the request arrays, getNumberOfRequests(elevatorId) of them starting at getFirstRequest(elevatorId),
+ * in the order the elevator handles them.
+ */
+public class ElevatorSystemSnapshot {
+
+    private long version;
+    private long tick;
+    private int pendingPickups;
+    private int numberOfElevators;
+
+    private int[] currentFloors = new int[0];
+    private int[] destinationFloors = new int[0];
+    private int[] directions = new int[0];
+    private int[] firstRequests = new int[0];
+    private int[] numberOfRequests = new int[0];
+
+    private int size;
+    private int[] requestCurrentFloors = new int[0];
+    private int[] requestDestinationFloors = new int[0];
+    private boolean[] requestsInElevator = new boolean[0];
+
+    /**
+     * Copies the published state, which can be changed by the simulation thread in the meantime, so the sizes are
+     * bounded by the lengths of the given arrays. The copy is used only once the buffer has validated it.
+     */
+    void copy(long version, long tick, int pendingPickups, int numberOfElevators, int[] currentFloors,
+              int[] destinationFloors, int[] directions, int[] firstRequests, int[] numberOfRequests, int size,
+              int[] requestCurrentFloors, int[] requestDestinationFloors, boolean[] requestsInElevator) {
+        this.version = version;
+        this.tick = tick;
+        this.pendingPickups = pendingPickups;
+        this.numberOfElevators = numberOfElevators;
+
+        if (this.currentFloors.length < numberOfElevators) {
+            this.currentFloors = new int[numberOfElevators];
+            this.destinationFloors = new int[numberOfElevators];
+            this.directions = new int[numberOfElevators];
+            this.firstRequests = new int[numberOfElevators];
+            this.numberOfRequests = new int[numberOfElevators];
+        }
+        System.arraycopy(currentFloors, 0, this.currentFloors, 0, numberOfElevators);
+        System.arraycopy(destinationFloors, 0, this.destinationFloors, 0, numberOfElevators);
+        System.arraycopy(directions, 0, this.directions, 0, numberOfElevators);
+        System.arraycopy(firstRequests, 0, this.firstRequests, 0, numberOfElevators);
+        System.arraycopy(numberOfRequests, 0, this.numberOfRequests, 0, numberOfElevators);
+
+        size = Math.min(size, Math.min(requestCurrentFloors.length,
+                Math.min(requestDestinationFloors.length, requestsInElevator.length)));
+        if (this.requestCurrentFloors.length < size) {
+            int capacity = Math.max(size, this.requestCurrentFloors.length * 2);
+            this.requestCurrentFloors = new int[capacity];
+            this.requestDestinationFloors = new int[capacity];
+            this.requestsInElevator = new boolean[capacity];
+        }
+        System.arraycopy(requestCurrentFloors, 0, this.requestCurrentFloors, 0, size);
+        System.arraycopy(requestDestinationFloors, 0, this.requestDestinationFloors, 0, size);
+        System.arraycopy(requestsInElevator, 0, this.requestsInElevator, 0, size);
+        this.size = size;
+    }
+
+    /**
+     * @return number of the snapshots published before this one, growing with every step
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getPendingPickups() {
+        return pendingPickups;
+    }
+
+    public int getNumberOfElevators() {
+        return numberOfElevators;
+    }
+
+    public int getCurrentFloor(int elevatorId) {
+        return currentFloors[elevatorId];
+    }
+
+    /**
+     * @return destination floor of the elevator or Elevator.IDLE (-1) if it is idle
+     */
+    public int getDestinationFloor(int elevatorId) {
+        return destinationFloors[elevatorId];
+    }
+
+    /**
+     * @return direction of the elevator: 1 - up, -1 - down, 0 - idle
+     */
+    public int getDirection(int elevatorId) {
+        return directions[elevatorId];
+    }
+
+    public int getNumberOfRequests(int elevatorId) {
+        return numberOfRequests[elevatorId];
+    }
+
+    /**
+     * @return index of the first pickup request of the elevator in the request arrays
+     */
+    public int getFirstRequest(int elevatorId) {
+        return firstRequests[elevatorId];
+    }
+
+    public int getRequestCurrentFloor(int request) {
+        return requestCurrentFloors[request];
+    }
+
+    public int getRequestDestinationFloor(int request) {
+        return requestDestinationFloors[request];
+    }
+
+    public boolean isRequestInElevator(int request) {
+        return requestsInElevator[request];
+    }
+
+    /**
+     * @return status of every elevator in the same format as ElevatorStatus, one per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder status = new StringBuilder("ElevatorSystem status at tick ").append(tick).append(':')
+                .append(System.lineSeparator());
+
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            status.append("\tElevator ID: ").append(elevatorId)
+                    .append(" ||| Current floor: ").append(currentFloors[elevatorId])
+                    .append(" ||| Destination floor: ");
+
+            if (destinationFloors[elevatorId] == Elevator.IDLE) {
+                status.append("elevator is currently idle");
+            } else {
+                status.append(destinationFloors[elevatorId]);
+            }
+
+            status.append(System.lineSeparator());
+        }
+
+        return status.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Versioned snapshot of the elevator system state published by the simulation thread at the end of every step and
+ * read by any number of threads
+ *
+ * The buffer works as a seqlock: the simulation thread rewrites it in place under the write lock of a StampedLock, and
+ * the readers copy it under an optimistic read stamp only, retrying if the stamp was invalidated by a write in the
+ * meantime. Readers never take a lock, so the simulation thread never waits for them, and a copy is used only once
+ * the stamp has validated it, so every reader gets the state of one step, never a torn mix of two. Publishing
+ * rewrites the same arrays every step, growing the request arrays only when the elevators have more requests than
+ * ever before, so it does not allocate.
+ *
+ * Publishing: beginPublish, then publishElevator for every elevator followed by publishRequest for each of its
+ * requests, then endPublish.
+ */
+public class ElevatorSystemSnapshotBuffer {
+
+    private final StampedLock lock = new StampedLock();
+    private long writeStamp;
+
+    private final int numberOfElevators;
+    private long version = 0;
+    private long tick = 0;
+    private int pendingPickups = 0;
+
+    private final int[] currentFloors;
+    private final int[] destinationFloors;
+    private final int[] directions;
+    private final int[] firstRequests;
+    private final int[] numberOfRequests;
+
+    private int size = 0;
+    private int[] requestCurrentFloors = new int[16];
+    private int[] requestDestinationFloors = new int[16];
+    private boolean[] requestsInElevator = new boolean[16];
+
+    /**
+     * @param numberOfElevators - number of elevators in the elevator system
+     */
+    public ElevatorSystemSnapshotBuffer(int numberOfElevators) {
+        this.numberOfElevators = numberOfElevators;
+        currentFloors = new int[numberOfElevators];
+        destinationFloors = new int[numberOfElevators];
+        directions = new int[numberOfElevators];
+        firstRequests = new int[numberOfElevators];
+        numberOfRequests = new int[numberOfElevators];
+    }
+
+    /**
+     * Starts publishing the next version, called by the simulation thread only
+     * @param tick           - tick that the elevator system has been advanced to
+     * @param pendingPickups - number of pending pickup requests
+     */
+    public void beginPublish(long tick, int pendingPickups) {
+        writeStamp = lock.writeLock();
+        version++;
+        this.tick = tick;
+        this.pendingPickups = pendingPickups;
+        size = 0;
+    }
+
+    /**
+     * @param elevatorId       - elevatorId of the published elevator, its requests are published right after it
+     * @param currentFloor     - floor that the elevator is on
+     * @param destinationFloor - destination floor of the elevator or Elevator.IDLE (-1)
+     * @param direction        - direction of the elevator: 1 - up, -1 - down, 0 - idle
+     */
+    public void publishElevator(int elevatorId, int currentFloor, int destinationFloor, int direction) {
+        currentFloors[elevatorId] = currentFloor;
+        destinationFloors[elevatorId] = destinationFloor;
+        directions[elevatorId] = direction;
+        firstRequests[elevatorId] = size;
+        numberOfRequests[elevatorId] = 0;
+    }
+
+    /**
+     * @param elevatorId       - elevatorId of the elevator published last
+     * @param currentFloor     - floor from which the request was called
+     * @param destinationFloor - floor that the person would want to be taken to
+     * @param inElevator       - true if the person is in the elevator
+     */
+    public void publishRequest(int elevatorId, int currentFloor, int destinationFloor, boolean inElevator) {
+        if (size == requestCurrentFloors.length) {
+            requestCurrentFloors = Arrays.copyOf(requestCurrentFloors, size * 2);
+            requestDestinationFloors = Arrays.copyOf(requestDestinationFloors, size * 2);
+            requestsInElevator = Arrays.copyOf(requestsInElevator, size * 2);
+        }
+
+        requestCurrentFloors[size] = currentFloor;
+        requestDestinationFloors[size] = destinationFloor;
+        requestsInElevator[size] = inElevator;
+        size++;
+        numberOfRequests[elevatorId]++;
+    }
+
+    /**
+     * Makes the published version visible to the readers
+     */
+    public void endPublish() {
+        lock.unlockWrite(writeStamp);
+    }
+
+    /**
+     * Copies the last published version into the snapshot, can be called by any thread. Retries while the simulation
+     * thread is publishing, which takes as long as copying the state of the elevators.
+     *
+     * @param snapshot - snapshot owned by the calling thread
+     * @return version of the snapshot
+     */
+    public long read(ElevatorSystemSnapshot snapshot) {
+        while (true) {
+            long stamp = lock.tryOptimisticRead();
+
+            if (stamp != 0) {
+                snapshot.copy(version, tick, pendingPickups, numberOfElevators, currentFloors, destinationFloors,
+                        directions, firstRequests, numberOfRequests, size, requestCurrentFloors,
+                        requestDestinationFloors, requestsInElevator);
+                if (lock.validate(stamp)) return snapshot.getVersion();
+            }
+
+            Thread.onSpinWait();
+        }
+    }
+}
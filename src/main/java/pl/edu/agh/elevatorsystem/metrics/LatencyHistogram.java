@@ -0,0 +1,95 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+/**
+ * Histogram of latencies measured in simulation ticks
+ *
+ * Values below SUB_BUCKETS are counted exactly. Every larger power of two range [2^k, 2^(k+1)) is split into
+ * SUB_BUCKETS equal buckets, so a value is reported with at most 1 / SUB_BUCKETS relative error. The buckets are
+ * allocated up front and recording only increments a counter.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    /**
+     * @param latency - latency in ticks, negative values are ignored
+     */
+    public void record(long latency) {
+        if (latency < 0) return;
+
+        counts[bucketIndex(latency)]++;
+        count++;
+        sum += latency;
+        max = Math.max(max, latency);
+    }
+
+    /**
+     * @param percentile - percentile to be read (0, 100]
+     * @return the highest value of the bucket containing the given percentile of the recorded latencies, but not more
+     * than the maximum recorded latency. Returns 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(bucketHighestValue(bucket), max);
+            }
+        }
+
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Adds the latencies recorded by the other histogram to this one
+     * @param other - histogram to be added
+     */
+    public void add(LatencyHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketHighestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
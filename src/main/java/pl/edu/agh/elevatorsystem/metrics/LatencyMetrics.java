@@ -0,0 +1,122 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+/**
+ * Wait times (from the pickup request until boarding) and ride times (from boarding until delivery) of the delivered
+ * pickup requests, in simulation ticks
+ *
+ * Latencies are kept for the whole elevator system, per elevator and per floor from which the request was called.
+ * Histograms of an elevator or a floor are created once anything is recorded for it, so large fleets only pay for
+ * the elevators that delivered anyone.
+ */
+public class LatencyMetrics {
+
+    private static final double[] REPORTED_PERCENTILES = { 50, 90, 99 };
+
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LatencyHistogram rideTimes = new LatencyHistogram();
+    private final LatencyHistogram[] elevatorWaitTimes;
+    private final LatencyHistogram[] elevatorRideTimes;
+    private final LatencyHistogram[] floorWaitTimes;
+    private final LatencyHistogram[] floorRideTimes;
+
+    /**
+     * @param numberOfElevators - number of elevators in the elevator system
+     * @param numberOfFloors    - number of floors served by the elevator system
+     */
+    public LatencyMetrics(int numberOfElevators, int numberOfFloors) {
+        elevatorWaitTimes = new LatencyHistogram[numberOfElevators];
+        elevatorRideTimes = new LatencyHistogram[numberOfElevators];
+        floorWaitTimes = new LatencyHistogram[numberOfFloors];
+        floorRideTimes = new LatencyHistogram[numberOfFloors];
+    }
+
+    /**
+     * Records the latencies of the delivered pickup request
+     *
+     * @param elevatorId    - elevatorId of the elevator that delivered the request
+     * @param floor         - floor from which the request was called
+     * @param createdTick   - tick on which the request was called
+     * @param boardedTick   - tick on which the person entered the elevator
+     * @param deliveredTick - tick on which the person left the elevator
+     */
+    public void recordDelivered(int elevatorId, int floor, long createdTick, long boardedTick, long deliveredTick) {
+        long waitTime = boardedTick - createdTick;
+        long rideTime = deliveredTick - boardedTick;
+
+        waitTimes.record(waitTime);
+        rideTimes.record(rideTime);
+        getElevatorWaitTimes(elevatorId).record(waitTime);
+        getElevatorRideTimes(elevatorId).record(rideTime);
+        getFloorWaitTimes(floor).record(waitTime);
+        getFloorRideTimes(floor).record(rideTime);
+    }
+
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    public LatencyHistogram getRideTimes() {
+        return rideTimes;
+    }
+
+    public LatencyHistogram getElevatorWaitTimes(int elevatorId) {
+        return histogram(elevatorWaitTimes, elevatorId);
+    }
+
+    public LatencyHistogram getElevatorRideTimes(int elevatorId) {
+        return histogram(elevatorRideTimes, elevatorId);
+    }
+
+    public LatencyHistogram getFloorWaitTimes(int floor) {
+        return histogram(floorWaitTimes, floor);
+    }
+
+    public LatencyHistogram getFloorRideTimes(int floor) {
+        return histogram(floorRideTimes, floor);
+    }
+
+    private static LatencyHistogram histogram(LatencyHistogram[] histograms, int index) {
+        if (histograms[index] == null) {
+            histograms[index] = new LatencyHistogram();
+        }
+        return histograms[index];
+    }
+
+    /**
+     * @return p50, p90, p99 and max of the wait and ride times for the whole elevator system, every elevator and
+     * every floor that delivered anyone, one histogram per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder metrics = new StringBuilder("Latency metrics [ticks]:").append(System.lineSeparator());
+
+        appendHistogram(metrics, "\tWait time", waitTimes);
+        appendHistogram(metrics, "\tRide time", rideTimes);
+
+        for (int elevatorId = 0; elevatorId < elevatorWaitTimes.length; elevatorId++) {
+            if (elevatorWaitTimes[elevatorId] == null) continue;
+
+            appendHistogram(metrics, "\tElevator ID: " + elevatorId + " ||| Wait time", elevatorWaitTimes[elevatorId]);
+            appendHistogram(metrics, "\tElevator ID: " + elevatorId + " ||| Ride time", elevatorRideTimes[elevatorId]);
+        }
+
+        for (int floor = 0; floor < floorWaitTimes.length; floor++) {
+            if (floorWaitTimes[floor] == null) continue;
+
+            appendHistogram(metrics, "\tFloor: " + floor + " ||| Wait time", floorWaitTimes[floor]);
+            appendHistogram(metrics, "\tFloor: " + floor + " ||| Ride time", floorRideTimes[floor]);
+        }
+
+        return metrics.toString();
+    }
+
+    private static void appendHistogram(StringBuilder metrics, String name, LatencyHistogram histogram) {
+        metrics.append(name).append(" ||| Count: ").append(histogram.getCount());
+
+        for (double percentile : REPORTED_PERCENTILES) {
+            metrics.append(" ||| p").append((int) percentile).append(": ").append(histogram.getPercentile(percentile));
+        }
+
+        metrics.append(" ||| Max: ").append(histogram.getMax()).append(System.lineSeparator());
+    }
+}
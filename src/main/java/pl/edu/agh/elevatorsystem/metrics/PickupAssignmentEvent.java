@@ -0,0 +1,82 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering the choice of the elevator for one pickup request
+ *
+ * Events are created only while the Flight Recorder is recording them, the same way as the StepPhaseEvents.
+ */
+@Name("pl.edu.agh.elevatorsystem.PickupAssignment")
+@Label("Pickup Assignment")
+@Category("Elevator System")
+@Description("Choice of the elevator handling the pickup request")
+@StackTrace(false)
+public class PickupAssignmentEvent extends Event {
+
+    public static final int NO_ELEVATOR = -1;
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(PickupAssignmentEvent.class);
+
+    /**
+     * @return new event that has been begun or null if the Flight Recorder is not recording these events
+     */
+    public static PickupAssignmentEvent beginIfEnabled() {
+        if (!EVENT_TYPE.isEnabled()) return null;
+
+        PickupAssignmentEvent event = new PickupAssignmentEvent();
+        event.begin();
+        return event;
+    }
+
+    @Label("Tick")
+    private long tick;
+
+    @Label("Current Floor")
+    private int currentFloor;
+
+    @Label("Destination Floor")
+    private int destinationFloor;
+
+    @Label("Candidates")
+    @Description("Number of elevators that could handle the request")
+    private int candidates;
+
+    @Label("Elevator ID")
+    @Description("Chosen elevator, -1 if the request is pending")
+    private int elevatorId;
+
+    @Label("Distance")
+    @Description("Number of floors between the chosen elevator and the floor from which the request was called")
+    private int distance;
+
+    /**
+     * Ends the event and commits it with the given fields if it is being recorded
+     *
+     * @param tick             - tick on which the request was assigned
+     * @param currentFloor     - floor from which the request was called
+     * @param destinationFloor - floor that the person would want to be taken to
+     * @param candidates       - number of elevators that could handle the request
+     * @param elevatorId       - elevatorId of the chosen elevator or NO_ELEVATOR
+     * @param distance         - distance between the chosen elevator and the request, 0 if there is no elevator
+     */
+    public void commit(long tick, int currentFloor, int destinationFloor, int candidates, int elevatorId,
+                       int distance) {
+        end();
+        if (shouldCommit()) {
+            this.tick = tick;
+            this.currentFloor = currentFloor;
+            this.destinationFloor = destinationFloor;
+            this.candidates = candidates;
+            this.elevatorId = elevatorId;
+            this.distance = distance;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+/**
+ * Phases of the elevator system simulation step
+ */
+public enum StepPhase {
+    // moving the elevators, taking and leaving the people on the reached floors
+    MOVE_ELEVATORS,
+    // recomputing the directions and destination floors of the moved elevators
+    UPDATE_ELEVATORS,
+    // assigning the pending pickup requests to the elevators that changed their state
+    ASSIGN_PENDING_PICKUPS
+}
@@ -0,0 +1,68 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on counters of the time spent in every phase of the simulation step
+ *
+ * Phases of the parallel step are timed per range of elevators on the threads moving them, so the counters are
+ * LongAdders, which do not make the threads wait for each other.
+ */
+public class StepPhaseCounters {
+
+    private static final StepPhase[] PHASES = StepPhase.values();
+
+    private final LongAdder[] nanos = new LongAdder[PHASES.length];
+    private final LongAdder[] calls = new LongAdder[PHASES.length];
+
+    public StepPhaseCounters() {
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            nanos[phase] = new LongAdder();
+            calls[phase] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param phase         - phase that was performed
+     * @param elapsedNanos  - time it took in nanoseconds
+     */
+    public void add(StepPhase phase, long elapsedNanos) {
+        nanos[phase.ordinal()].add(elapsedNanos);
+        calls[phase.ordinal()].increment();
+    }
+
+    /**
+     * @return total time spent in the given phase in nanoseconds
+     */
+    public long getNanos(StepPhase phase) {
+        return nanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return number of times the given phase was performed, once per range of elevators in the parallel step
+     */
+    public long getCalls(StepPhase phase) {
+        return calls[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return total and average time of every phase, one phase per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder counters = new StringBuilder("Step phases [us]:").append(System.lineSeparator());
+
+        for (StepPhase phase : PHASES) {
+            long phaseNanos = getNanos(phase);
+            long phaseCalls = getCalls(phase);
+
+            counters.append("\t").append(phase)
+                    .append(" ||| Calls: ").append(phaseCalls)
+                    .append(" ||| Total: ").append(phaseNanos / 1000)
+                    .append(" ||| Average: ").append(phaseCalls == 0 ? 0 : phaseNanos / phaseCalls / 1000.0)
+                    .append(System.lineSeparator());
+        }
+
+        return counters.toString();
+    }
+}
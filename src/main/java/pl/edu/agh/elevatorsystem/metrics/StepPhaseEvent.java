@@ -0,0 +1,89 @@
+package pl.edu.agh.elevatorsystem.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event covering one phase of the simulation step for a range of elevators
+ *
+ * Events are created and begun before every phase only while the Flight Recorder is recording them. The JIT does not
+ * remove the unused events from methods as large as the simulation step, so creating them unconditionally would
+ * allocate on every step.
+ */
+@Name("pl.edu.agh.elevatorsystem.StepPhase")
+@Label("Step Phase")
+@Category("Elevator System")
+@Description("Phase of the elevator system simulation step")
+@StackTrace(false)
+public class StepPhaseEvent extends Event {
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(StepPhaseEvent.class);
+
+    /**
+     * @return new event that has been begun or null if the Flight Recorder is not recording these events
+     */
+    public static StepPhaseEvent beginIfEnabled() {
+        if (!EVENT_TYPE.isEnabled()) return null;
+
+        StepPhaseEvent event = new StepPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Tick")
+    private long tick;
+
+    @Label("First Elevator ID")
+    @Description("Lowest elevatorId of the elevators handled in the phase")
+    private int fromElevatorId;
+
+    @Label("Elevators")
+    private int elevators;
+
+    /**
+     * Ends the event and commits it with the given fields if it is being recorded
+     *
+     * @param phase          - phase that the event covered
+     * @param tick           - tick of the step
+     * @param fromElevatorId - first elevatorId of the range of elevators handled in the phase
+     * @param toElevatorId   - elevatorId after the last one of the range
+     */
+    public void commit(StepPhase phase, long tick, int fromElevatorId, int toElevatorId) {
+        end();
+        if (shouldCommit()) {
+            this.phase = phase.name();
+            this.tick = tick;
+            this.fromElevatorId = fromElevatorId;
+            this.elevators = toElevatorId - fromElevatorId;
+            commit();
+        }
+    }
+
+    /**
+     * Ends the event and commits it with the given fields if it is being recorded
+     *
+     * @param phase       - phase that the event covered
+     * @param tick        - tick of the step
+     * @param elevatorIds - elevatorIds of the elevators handled in the phase are elevatorIds[from, to)
+     * @param from        - index of the first elevatorId handled in the phase
+     * @param to          - index after the last elevatorId handled in the phase
+     */
+    public void commit(StepPhase phase, long tick, int[] elevatorIds, int from, int to) {
+        end();
+        if (shouldCommit()) {
+            this.phase = phase.name();
+            this.tick = tick;
+            this.fromElevatorId = from < to ? elevatorIds[from] : 0;
+            this.elevators = to - from;
+            commit();
+        }
+    }
+}
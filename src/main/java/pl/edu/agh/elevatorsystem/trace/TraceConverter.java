@@ -0,0 +1,101 @@
+package pl.edu.agh.elevatorsystem.trace;
+
+import pl.edu.agh.elevatorsystem.batch.CommandParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static pl.edu.agh.elevatorsystem.trace.TraceFormat.*;
+
+/**
+ * Converts the traces written in the text command syntax of the ElevatorSystemApp into the binary trace format
+ *
+ * Every pickup and update command becomes one record stamped with the number of steps performed before it. Steps
+ * only advance the tick, the ones after the last command are kept as a single STEP record. The lines are parsed by
+ * the CommandParser, the same as in the batch mode. Other commands do not change the elevator system and are skipped
+ * (a trace does not nest the converted or replayed ones), invalid lines are reported and skipped.
+ */
+public final class TraceConverter {
+
+    private TraceConverter() { }
+
+    // records buffered before being written to the file
+    private static final int BUFFERED_RECORDS = 4096;
+
+    /**
+     * @param textTrace   - file with one command per line, as typed into the ElevatorSystemApp
+     * @param binaryTrace - file that the binary trace is written to, replaced if it exists
+     * @param out         - stream that the numbers of the invalid lines are printed to
+     * @return number of records written
+     * @throws IOException if any of the files could not be read or written
+     */
+    public static long convert(Path textTrace, Path binaryTrace, PrintStream out) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(textTrace);
+             FileChannel channel = FileChannel.open(binaryTrace, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_SIZE).order(BYTE_ORDER);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+
+            CommandParser parser = new CommandParser();
+            long tick = 0;
+            long recordTick = 0;
+            long records = 0;
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+                int command = parser.parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+
+                switch (command) {
+                    case CommandParser.STEP -> tick++;
+                    case CommandParser.PICKUP, CommandParser.UPDATE -> {
+                        writeRecord(channel, buffer, tick, command, parser.getArgument(0), parser.getArgument(1),
+                                parser.getArgument(2));
+                        recordTick = tick;
+                        records++;
+                    }
+                    case CommandParser.INVALID -> out.println("Invalid input in line " + lineNumber);
+                    default -> { }
+                }
+            }
+
+            if (tick > recordTick) {
+                writeRecord(channel, buffer, tick, STEP, 0, 0, 0);
+                records++;
+            }
+
+            flush(channel, buffer);
+            buffer.putLong(records).flip();
+            channel.write(buffer, RECORD_COUNT_OFFSET);
+
+            return records;
+        }
+    }
+
+    private static void writeRecord(FileChannel channel, ByteBuffer buffer, long tick, int opcode,
+                                    int firstArgument, int secondArgument, int thirdArgument) throws IOException {
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush(channel, buffer);
+        }
+
+        buffer.putLong(tick).putInt(opcode).putInt(firstArgument).putInt(secondArgument).putInt(thirdArgument);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,44 @@
+package pl.edu.agh.elevatorsystem.trace;
+
+import java.nio.ByteOrder;
+
+/**
+ * Binary traffic trace format
+ *
+ * The file starts with a header (magic number, format version, number of records) followed by fixed-width records:
+ *
+ *      tick (long) | opcode (int) | first argument (int) | second argument (int) | third argument (int)
+ *
+ * All values are little-endian. The ticks count from the start of the trace. Before a record is replayed the elevator
+ * system is advanced to the record's tick after the tick on which the replay started, so the steps between the
+ * commands are not stored as separate records. Arguments of the commands are the same as
+ * in the text command syntax:
+ *
+ *      PICKUP  - currentFloor, direction, destinationFloor
+ *      UPDATE  - elevatorId, currentFloor, destinationFloor
+ *      STEP    - no arguments, only advances the elevator system to the record's tick
+ */
+public final class TraceFormat {
+
+    private TraceFormat() { }
+
+    public static final int MAGIC = 0x52544C45; // "ELTR"
+    public static final int VERSION = 1;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int HEADER_SIZE = 16;
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int RECORD_COUNT_OFFSET = 8;
+
+    public static final int RECORD_SIZE = 24;
+    public static final int TICK_OFFSET = 0;
+    public static final int OPCODE_OFFSET = 8;
+    public static final int FIRST_ARGUMENT_OFFSET = 12;
+    public static final int SECOND_ARGUMENT_OFFSET = 16;
+    public static final int THIRD_ARGUMENT_OFFSET = 20;
+
+    public static final int PICKUP = 1;
+    public static final int UPDATE = 2;
+    public static final int STEP = 3;
+}
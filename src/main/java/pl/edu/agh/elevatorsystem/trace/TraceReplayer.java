@@ -0,0 +1,104 @@
+package pl.edu.agh.elevatorsystem.trace;
+
+import pl.edu.agh.elevatorsystem.elevator_system.IElevatorSystem;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static pl.edu.agh.elevatorsystem.trace.TraceFormat.*;
+
+/**
+ * Replays the binary traces on the elevator system
+ *
+ * The trace is memory-mapped in chunks and the records are read straight from the mapped buffers, so replaying does
+ * not allocate anything per record. The ticks of the records count from the start of the trace, so the elevator
+ * system is advanced with stepUntil to the record's tick after the tick on which the replay started, which lets the
+ * implementations skip the steps in which nothing happens.
+ */
+public final class TraceReplayer {
+
+    private TraceReplayer() { }
+
+    // records mapped at once, a single mapping cannot be larger than 2 GB
+    private static final long CHUNK_RECORDS = 1 << 22;
+
+    /**
+     * @param binaryTrace    - file with the binary trace
+     * @param elevatorSystem - elevator system that the trace is replayed on
+     * @return number of records replayed
+     * @throws IOException if the file could not be read or is not a valid binary trace, the records before an invalid
+     *                     one having been replayed
+     */
+    public static long replay(Path binaryTrace, IElevatorSystem elevatorSystem) throws IOException {
+        try (FileChannel channel = FileChannel.open(binaryTrace, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not an elevator system trace: " + binaryTrace);
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(BYTE_ORDER);
+
+            if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not an elevator system trace: " + binaryTrace);
+            }
+            if (header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported trace version " + header.getInt(VERSION_OFFSET));
+            }
+
+            long records = header.getLong(RECORD_COUNT_OFFSET);
+            if (records < 0 || records > (size - HEADER_SIZE) / RECORD_SIZE) {
+                throw new IOException("Truncated trace: " + binaryTrace);
+            }
+
+            long startTick = elevatorSystem.getTick();
+            long position = HEADER_SIZE;
+            for (long replayed = 0; replayed < records; ) {
+                long chunkRecords = Math.min(records - replayed, CHUNK_RECORDS);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        chunkRecords * RECORD_SIZE);
+                chunk.order(BYTE_ORDER);
+
+                for (int offset = 0; offset < chunk.limit(); offset += RECORD_SIZE) {
+                    if (!replayRecord(chunk, offset, startTick, elevatorSystem)) {
+                        throw new IOException("Invalid trace record " + (replayed + offset / RECORD_SIZE) + ": "
+                                + binaryTrace);
+                    }
+                }
+
+                position += chunkRecords * RECORD_SIZE;
+                replayed += chunkRecords;
+            }
+
+            return records;
+        }
+    }
+
+    /**
+     * @return false if the record has an unknown opcode, in which case the elevator system is left as it was
+     */
+    private static boolean replayRecord(MappedByteBuffer chunk, int offset, long startTick,
+                                        IElevatorSystem elevatorSystem) {
+        int opcode = chunk.getInt(offset + OPCODE_OFFSET);
+        if (opcode != PICKUP && opcode != UPDATE && opcode != STEP) return false;
+
+        long tick = startTick + chunk.getLong(offset + TICK_OFFSET);
+        if (tick > elevatorSystem.getTick()) {
+            elevatorSystem.stepUntil(tick);
+        }
+
+        int firstArgument = chunk.getInt(offset + FIRST_ARGUMENT_OFFSET);
+        int secondArgument = chunk.getInt(offset + SECOND_ARGUMENT_OFFSET);
+        int thirdArgument = chunk.getInt(offset + THIRD_ARGUMENT_OFFSET);
+
+        switch (opcode) {
+            case PICKUP -> elevatorSystem.pickup(firstArgument, secondArgument, thirdArgument);
+            case UPDATE -> elevatorSystem.update(firstArgument, secondArgument, thirdArgument);
+            default -> { }
+        }
+        return true;
+    }
+}
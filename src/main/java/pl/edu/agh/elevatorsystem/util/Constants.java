@@ -9,5 +9,6 @@ public final class Constants {
 
     public static final int MIN_ELEVATORS = 1;
     public static final int MAX_ELEVATORS = 16;
+    public static final int MIN_FLOORS = 2;
     public static final int MAX_FLOORS = 256;
 }
@@ -0,0 +1,99 @@
+package pl.edu.agh.elevatorsystem.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of slot indices with many producers and a single consumer, the owner keeps the payload of
+ * every slot in its own arrays indexed by the slot
+ *
+ * Every slot of the ring has a sequence number telling whose turn it is to use it. A producer claims the slot at the
+ * tail by moving the tail forward with compare-and-set, writes the payload and then publishes it by setting the
+ * slot's sequence, so the consumer never reads a payload that is still being written. The consumer frees the slot
+ * for the producer that comes one lap later. Producers only wait for each other while moving the tail and a full
+ * ring rejects the claim instead of blocking.
+ */
+public class SequenceRing {
+
+    public static final int NO_SLOT = -1;
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+    // touched only by the consumer
+    private long head = 0;
+
+    /**
+     * @param capacity - maximum number of claimed slots, rounded up to the power of two [minimum 2, a single slot
+     *                 can not tell a published payload from the free slot of the next lap]
+     */
+    public SequenceRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Claims the slot at the tail of the ring, can be called by any thread. The payload written to the slot has to
+     * be published with publish(slot).
+     *
+     * @return index of the claimed slot or NO_SLOT if the ring is full
+     */
+    public int claim() {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) return slot;
+            } else if (difference < 0) {
+                // the consumer has not freed the slot since the previous lap
+                return NO_SLOT;
+            }
+        }
+    }
+
+    /**
+     * @param slot - slot claimed by the calling thread, whose payload has been written
+     */
+    public void publish(int slot) {
+        // the sequence of a claimed slot is the position it was claimed at, only the claiming thread changes it
+        sequences.set(slot, sequences.get(slot) + 1);
+    }
+
+    /**
+     * Must be called by the consumer thread, the payload of the returned slot is valid until release()
+     *
+     * @return index of the slot at the head of the ring or NO_SLOT if its payload has not been published
+     */
+    public int peek() {
+        int slot = (int) (head & mask);
+        return sequences.get(slot) == head + 1 ? slot : NO_SLOT;
+    }
+
+    /**
+     * Frees the published slot at the head of the ring for the next lap, must be called by the consumer thread
+     */
+    public void release() {
+        sequences.lazySet((int) (head & mask), head + mask + 1);
+        head++;
+    }
+
+    /**
+     * @return number of claimed slots, some of them possibly not published yet. Must be called by the consumer thread
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
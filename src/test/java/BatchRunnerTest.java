@@ -0,0 +1,164 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.ElevatorSystemApp;
+import pl.edu.agh.elevatorsystem.batch.BatchResult;
+import pl.edu.agh.elevatorsystem.batch.BatchRunner;
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.PickupResult;
+import pl.edu.agh.elevatorsystem.elevator_system.UpdateResult;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void batchGivesSameResultsAsTextCommandsTest() throws IOException {
+        Random random = new Random(21);
+        List<String> commands = new ArrayList<>();
+
+        // more than the batch buffer, so the lines are split between the reads
+        for (int command = 0; command < 150000; command++) {
+            int commandType = random.nextInt(10);
+
+            if (commandType < 3) {
+                int currentFloor = random.nextInt(50);
+                int destinationFloor = random.nextInt(50);
+                commands.add("pickup " + currentFloor + " " + Integer.signum(destinationFloor - currentFloor)
+                        + " " + destinationFloor);
+            } else if (commandType == 3) {
+                commands.add("update " + random.nextInt(5) + " " + random.nextInt(50) + " " + random.nextInt(50));
+            } else {
+                commands.add("step");
+            }
+        }
+
+        MyElevatorSystem textSystem = new MyElevatorSystem(5);
+        for (String command : commands) {
+            switch (command.split(" ")[0]) {
+                case "pickup" -> ElevatorSystemApp.pickupElevatorIfInputValid(command, textSystem);
+                case "update" -> ElevatorSystemApp.updateElevatorIfInputValid(command, textSystem);
+                default -> textSystem.step();
+            }
+        }
+
+        MyElevatorSystem batchSystem = new MyElevatorSystem(5);
+        BatchResult result = BatchRunner.run(channel(String.join("\n", commands)), batchSystem,
+                new ByteArrayOutputStream());
+
+        assertEquals(commands.size(), result.getLines());
+        assertEquals(textSystem.getTick(), batchSystem.getTick());
+        assertEquals(textSystem.getPendingPickups(), batchSystem.getPendingPickups());
+        for (int elevatorId = 0; elevatorId < 5; elevatorId++) {
+            Elevator elevator = textSystem.getElevatorById(elevatorId);
+            Elevator batchElevator = batchSystem.getElevatorById(elevatorId);
+
+            assertEquals(elevator.getElevatorStatus().getCurrentFloor(),
+                    batchElevator.getElevatorStatus().getCurrentFloor());
+            assertEquals(elevator.getElevatorStatus().getDestinationFloor(),
+                    batchElevator.getElevatorStatus().getDestinationFloor());
+            assertEquals(elevator.getDirection(), batchElevator.getDirection());
+            assertEquals(elevator.getPickupRequests(), batchElevator.getPickupRequests());
+        }
+    }
+
+    @Test
+    public void invalidLinesAreReportedAndOutputIsWrittenOnceTest() throws IOException {
+        String commands = """
+                # morning traffic
+                PICKUP 0 1 5
+                  pickup\t3  -1 0\r
+                pickup 2 1
+                step
+
+                update 0 x 3
+                pickup 4 0 6
+                status
+                jump
+                quit
+                step
+                """;
+
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(2);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int[] writes = new int[1];
+
+        BatchResult result = BatchRunner.run(channel(commands), elevatorSystem, new OutputStream() {
+            @Override
+            public void write(int b) {
+                writes[0]++;
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes[0]++;
+                output.write(b, off, len);
+            }
+        });
+
+        assertEquals(1, writes[0]);
+        assertEquals(BatchResult.EXIT_INVALID_INPUT, result.getExitCode());
+        assertArrayEquals(new long[]{4, 7, 8, 10}, result.getReportedInvalidLines());
+        assertEquals(11, result.getLines());
+        assertEquals(6, result.getCommands());
+        assertEquals(2, result.getPickups(PickupResult.ASSIGNED));
+        assertEquals(1, result.getPickups(PickupResult.INVALID));
+        assertTrue(result.isQuit());
+        assertEquals(1, elevatorSystem.getTick());
+
+        String printed = output.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("Invalid input in 4 lines: 4 7 8 10"));
+        assertTrue(printed.indexOf("Elevator") < printed.indexOf("Executed 6 commands"));
+    }
+
+    @Test
+    public void diagnosticsAreBufferedWithoutRedirectingSystemOutTest() throws IOException {
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(2);
+        List<ElevatorEventType> events = new ArrayList<>();
+        ElevatorEventSink eventSink = (type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) ->
+                events.add(type);
+        elevatorSystem.setEventSink(eventSink);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        PrintStream systemOut = System.out;
+        BatchResult result;
+
+        System.setOut(new PrintStream(console, true, StandardCharsets.UTF_8));
+        try {
+            result = BatchRunner.run(channel("update 7 0 3\npickup 0 1 2\nstatus\n"), elevatorSystem, output);
+        } finally {
+            System.setOut(systemOut);
+        }
+
+        String printed = output.toString(StandardCharsets.UTF_8);
+        assertEquals(0, console.size());
+        // the update of a missing elevator is an invalid line, the same as an invalid pickup
+        assertEquals(BatchResult.EXIT_INVALID_INPUT, result.getExitCode());
+        assertArrayEquals(new long[]{1}, result.getReportedInvalidLines());
+        assertEquals(1, result.getUpdates(UpdateResult.INVALID_ELEVATOR_ID));
+        assertTrue(printed.contains("This elevator system has only 2 elevators installed"));
+        assertTrue(printed.contains("ElevatorSystem status:"));
+        // the events are still passed to the sink of the elevator system, which is restored after the run
+        assertEquals(List.of(ElevatorEventType.INVALID_ELEVATOR_ID, ElevatorEventType.PICKUP_ASSIGNED,
+                ElevatorEventType.BOARDED), events);
+        assertSame(eventSink, elevatorSystem.getEventSink());
+    }
+
+    private static ReadableByteChannel channel(String commands) {
+        return Channels.newChannel(new ByteArrayInputStream(commands.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
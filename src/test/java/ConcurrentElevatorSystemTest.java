@@ -0,0 +1,201 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.ConcurrentElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.ConcurrentPickupQueue;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentElevatorSystemTest {
+
+    @Test
+    public void pickupsAreHandedOverOnStepTest() {
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(2);
+        ConcurrentElevatorSystem concurrentSystem = new ConcurrentElevatorSystem(elevatorSystem, 16);
+
+        concurrentSystem.pickup(3, 1, 5);
+        concurrentSystem.pickup(4, -1, 0);
+
+        assertTrue(elevatorSystem.getElevatorById(0).getPickupRequests().isEmpty());
+        assertTrue(elevatorSystem.getElevatorById(1).getPickupRequests().isEmpty());
+
+        concurrentSystem.step();
+
+        assertEquals(1, concurrentSystem.getTick());
+        assertEquals(1, elevatorSystem.getElevatorById(0).getElevatorStatus().getCurrentFloor());
+        assertEquals(1, elevatorSystem.getElevatorById(1).getElevatorStatus().getCurrentFloor());
+        assertEquals(3, elevatorSystem.getElevatorById(0).getElevatorStatus().getDestinationFloor());
+        assertEquals(4, elevatorSystem.getElevatorById(1).getElevatorStatus().getDestinationFloor());
+    }
+
+    @Test
+    public void pickupsAreRejectedWhenQueueIsFullTest() {
+        ConcurrentPickupQueue pickupQueue = new ConcurrentPickupQueue(3);
+        List<Integer> drainedFloors = new ArrayList<>();
+        ConcurrentPickupQueue.PickupConsumer consumer =
+                (currentFloor, direction, destinationFloor) -> drainedFloors.add(currentFloor);
+
+        assertEquals(4, pickupQueue.capacity());
+        for (int floor = 0; floor < 4; floor++) {
+            assertTrue(pickupQueue.offer(floor, 1, floor + 1));
+        }
+        assertFalse(pickupQueue.offer(4, 1, 5));
+
+        assertEquals(3, pickupQueue.drain(consumer, 3));
+        assertTrue(pickupQueue.offer(5, 1, 6));
+        assertEquals(2, pickupQueue.drain(consumer, 10));
+
+        assertEquals(List.of(0, 1, 2, 3, 5), drainedFloors);
+        assertEquals(0, pickupQueue.size());
+
+        ConcurrentElevatorSystem concurrentSystem = new ConcurrentElevatorSystem(new MyElevatorSystem(1), 1);
+        // rounded up to 2 requests
+        assertTrue(concurrentSystem.offerPickup(0, 1, 1));
+        assertTrue(concurrentSystem.offerPickup(1, 1, 2));
+        assertFalse(concurrentSystem.offerPickup(2, 1, 3));
+    }
+
+    @Test
+    public void pickupsFromManyThreadsAreAllHandledTest() throws InterruptedException {
+        int producers = 4;
+        int pickupsPerProducer = 2000;
+
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(16);
+        ConcurrentElevatorSystem concurrentSystem =
+                new ConcurrentElevatorSystem(elevatorSystem, producers * pickupsPerProducer);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int producer = 0; producer < producers; producer++) {
+            Random random = new Random(producer);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                // requests travelling far enough not to be fulfilled during the first step
+                for (int pickup = 0; pickup < pickupsPerProducer; pickup++) {
+                    concurrentSystem.pickup(2 + random.nextInt(50), 1, 100 + random.nextInt(100));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        concurrentSystem.step();
+
+        int handledPickups = elevatorSystem.getPendingPickups().size();
+        for (int elevatorId = 0; elevatorId < 16; elevatorId++) {
+            Elevator elevator = elevatorSystem.getElevatorById(elevatorId);
+            handledPickups += elevator.getPickupRequests().size();
+        }
+
+        assertEquals(producers * pickupsPerProducer, handledPickups);
+    }
+
+    @Test
+    public void snapshotsReadByManyThreadsAreConsistentTest() throws InterruptedException {
+        int readers = 3;
+        int steps = 3000;
+
+        ForkJoinPool stepPool = new ForkJoinPool(2);
+        ConcurrentElevatorSystem concurrentSystem =
+                new ConcurrentElevatorSystem(new MyElevatorSystem(16, stepPool), 64);
+        Map<Long, String> publishedSnapshots = new ConcurrentHashMap<>();
+        List<List<String>> readSnapshots = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch stepped = new CountDownLatch(1);
+
+        for (int reader = 0; reader < readers; reader++) {
+            List<String> snapshots = new ArrayList<>();
+            readSnapshots.add(snapshots);
+            Thread thread = new Thread(() -> {
+                ElevatorSystemSnapshot snapshot = new ElevatorSystemSnapshot();
+                long lastVersion = -1;
+
+                while (stepped.getCount() > 0) {
+                    long version = concurrentSystem.readSnapshot(snapshot);
+                    if (version != lastVersion) {
+                        snapshots.add(version + " " + describe(snapshot));
+                        lastVersion = version;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        Random random = new Random(2022);
+        ElevatorSystemSnapshot snapshot = new ElevatorSystemSnapshot();
+        for (int step = 0; step < steps; step++) {
+            for (int pickup = random.nextInt(4); pickup > 0; pickup--) {
+                int currentFloor = random.nextInt(60);
+                int destinationFloor = random.nextInt(60);
+                concurrentSystem.pickup(currentFloor, Integer.signum(destinationFloor - currentFloor),
+                        destinationFloor);
+            }
+            concurrentSystem.step();
+
+            long version = concurrentSystem.readSnapshot(snapshot);
+            publishedSnapshots.put(version, version + " " + describe(snapshot));
+        }
+        stepped.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        stepPool.shutdown();
+
+        for (List<String> snapshots : readSnapshots) {
+            assertFalse(snapshots.isEmpty());
+            long lastVersion = 0;
+
+            for (String readSnapshot : snapshots) {
+                long version = Long.parseLong(readSnapshot.substring(0, readSnapshot.indexOf(' ')));
+                assertTrue(version > lastVersion);
+                lastVersion = version;
+
+                // the snapshot published by the constructor is not recorded
+                if (version > 1) {
+                    assertEquals(publishedSnapshots.get(version), readSnapshot);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return every elevator and its requests, so a snapshot torn between two steps gives a different description
+     */
+    private static String describe(ElevatorSystemSnapshot snapshot) {
+        StringBuilder description = new StringBuilder(snapshot.toString())
+                .append(snapshot.getPendingPickups()).append(System.lineSeparator());
+
+        for (int elevatorId = 0; elevatorId < snapshot.getNumberOfElevators(); elevatorId++) {
+            int firstRequest = snapshot.getFirstRequest(elevatorId);
+            for (int request = firstRequest; request < firstRequest + snapshot.getNumberOfRequests(elevatorId);
+                 request++) {
+                description.append(elevatorId).append(": ").append(snapshot.getRequestCurrentFloor(request))
+                        .append(" -> ").append(snapshot.getRequestDestinationFloor(request))
+                        .append(snapshot.isRequestInElevator(request) ? " in elevator" : "")
+                        .append(System.lineSeparator());
+            }
+        }
+
+        return description.toString();
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ElevatorCandidateScan;
+import pl.edu.agh.elevatorsystem.elevator_system.candidate_scan.ScalarElevatorCandidateScan;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElevatorCandidateScanTest {
+
+    private static final int[] STATES = {
+            ElevatorCandidateScan.IDLE, ElevatorCandidateScan.UP, ElevatorCandidateScan.DOWN,
+            ElevatorCandidateScan.UNAVAILABLE
+    };
+
+    @Test
+    public void closestElevatorIsFoundOutOfTheCandidatesTest() {
+        ElevatorCandidateScan scan = ElevatorCandidateScan.create();
+        int[] floors = { 9, 2, 8, 6, 4, 6 };
+        int[] states = {
+                ElevatorCandidateScan.DOWN, ElevatorCandidateScan.UP, ElevatorCandidateScan.UNAVAILABLE,
+                ElevatorCandidateScan.IDLE, ElevatorCandidateScan.UP, ElevatorCandidateScan.IDLE
+        };
+
+        // elevators 3, 4 and 5 are as close to the 5th floor, ties go to the lowest elevatorId
+        assertEquals(3, scan.findClosestElevator(floors, states, floors.length, 5, ElevatorCandidateScan.UP));
+        assertEquals(4, scan.getCandidates());
+
+        assertEquals(3, scan.findClosestElevator(floors, states, floors.length, 5, ElevatorCandidateScan.DOWN));
+        assertEquals(3, scan.getCandidates());
+
+        assertEquals(1, scan.findClosestElevator(floors, states, 3, 5, ElevatorCandidateScan.UP));
+        assertEquals(1, scan.getCandidates());
+
+        // elevator 0 is already on the 9th floor and elevator 2 is heading to an opposite direction request
+        assertEquals(ElevatorCandidateScan.NO_ELEVATOR,
+                scan.findClosestElevator(floors, states, 3, 9, ElevatorCandidateScan.DOWN));
+        assertEquals(0, scan.getCandidates());
+    }
+
+    @Test
+    public void givesSameResultsAsScalarScanTest() {
+        ElevatorCandidateScan scan = ElevatorCandidateScan.create();
+        ElevatorCandidateScan scalarScan = new ScalarElevatorCandidateScan();
+        Random random = new Random(16);
+
+        for (int numberOfElevators = 1; numberOfElevators <= 100; numberOfElevators++) {
+            int[] floors = new int[numberOfElevators];
+            int[] states = new int[numberOfElevators];
+
+            for (int fleet = 0; fleet < 20; fleet++) {
+                // few floors, so the elevators are often as close to the request floor
+                for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                    floors[elevatorId] = random.nextInt(10);
+                    states[elevatorId] = STATES[random.nextInt(STATES.length)];
+                }
+
+                for (int request = 0; request < 20; request++) {
+                    int pickupFloor = random.nextInt(10);
+                    int pickupDirection = random.nextBoolean() ? ElevatorCandidateScan.UP : ElevatorCandidateScan.DOWN;
+
+                    assertEquals(scalarScan.findClosestElevator(floors, states, numberOfElevators, pickupFloor,
+                            pickupDirection), scan.findClosestElevator(floors, states, numberOfElevators, pickupFloor,
+                            pickupDirection));
+                    assertEquals(scalarScan.getCandidates(), scan.getCandidates());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.event.ElevatorEvent;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventPublisher;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventSink;
+import pl.edu.agh.elevatorsystem.event.ElevatorEventType;
+import pl.edu.agh.elevatorsystem.event.EventOverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElevatorEventPublisherTest {
+
+    /**
+     * Subscriber collecting the events, requesting them only when asked to
+     */
+    private static class CollectingSubscriber implements Flow.Subscriber<ElevatorEvent> {
+        private final List<String> events = new ArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ElevatorEvent event) {
+            events.add(event.toString());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void eventsAreDeliveredOnDemandTest() {
+        List<Runnable> tasks = new ArrayList<>();
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(1);
+        ElevatorEventPublisher eventPublisher = elevatorSystem.publishEvents(tasks::add, 16, EventOverflowPolicy.DROP);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        eventPublisher.subscribe(subscriber);
+
+        assertSame(ElevatorEventSink.CONSOLE, eventPublisher.getDelegate());
+        assertEquals(1, eventPublisher.getNumberOfSubscribers());
+
+        subscriber.subscription.request(2);
+        elevatorSystem.pickup(0, 1, 2);
+        elevatorSystem.pickup(3, -1, 1);
+        runAll(tasks);
+        assertEquals(List.of("PICKUP_ASSIGNED 0 0 0 1 2", "BOARDED 0 0 0 1 2"), subscriber.events);
+
+        elevatorSystem.step();
+        elevatorSystem.step();
+        subscriber.subscription.request(10);
+        runAll(tasks);
+        assertEquals(List.of(
+                "PICKUP_ASSIGNED 0 0 0 1 2",
+                "BOARDED 0 0 0 1 2",
+                "PICKUP_QUEUED 0 -1 3 -1 1",
+                "ARRIVED 2 0 2 0 0",
+                "DELIVERED 2 0 0 1 2",
+                "PICKUP_ASSIGNED 2 0 3 -1 1"), subscriber.events);
+        assertEquals(6, eventPublisher.getDeliveredEvents());
+        assertEquals(0, eventPublisher.getOverflowedEvents());
+
+        eventPublisher.close();
+        runAll(tasks);
+        assertEquals(0, subscriber.completed.getCount());
+        assertEquals(0, eventPublisher.getNumberOfSubscribers());
+
+        CollectingSubscriber invalidSubscriber = new CollectingSubscriber();
+        new ElevatorEventPublisher(ElevatorEventSink.NONE, tasks::add, 16, EventOverflowPolicy.DROP, 1)
+                .subscribe(invalidSubscriber);
+        invalidSubscriber.subscription.request(0);
+        runAll(tasks);
+        assertTrue(invalidSubscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void overflowedEventsAreHandledByPolicyTest() {
+        List<List<String>> expectedEvents = List.of(
+                List.of("BOARDED 1 1 0 0 0", "BOARDED 2 0 0 0 0"),
+                List.of("BOARDED 1 1 0 0 0", "BOARDED 2 0 0 0 0", "BOARDED 6 0 0 0 0"),
+                // the last event of elevator 0, then of elevator 1
+                List.of("BOARDED 1 1 0 0 0", "BOARDED 2 0 0 0 0", "BOARDED 6 0 0 0 0", "BOARDED 5 1 0 0 0"));
+        List<Long> expectedDropped = List.of(4L, 3L, 2L);
+
+        for (EventOverflowPolicy overflowPolicy : EventOverflowPolicy.values()) {
+            List<Runnable> tasks = new ArrayList<>();
+            ElevatorEventPublisher eventPublisher =
+                    new ElevatorEventPublisher(ElevatorEventSink.NONE, tasks::add, 2, overflowPolicy, 2);
+            CollectingSubscriber subscriber = new CollectingSubscriber();
+            eventPublisher.subscribe(subscriber);
+
+            // the subscriber has not requested anything yet, so only 2 events fit
+            for (int tick = 1; tick <= 6; tick++) {
+                eventPublisher.onEvent(ElevatorEventType.BOARDED, tick, tick % 2, 0, 0, 0);
+            }
+            runAll(tasks);
+            assertTrue(subscriber.events.isEmpty());
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            runAll(tasks);
+
+            assertEquals(expectedEvents.get(overflowPolicy.ordinal()), subscriber.events);
+            assertEquals(4, eventPublisher.getOverflowedEvents());
+            assertEquals((long) expectedDropped.get(overflowPolicy.ordinal()), eventPublisher.getDroppedEvents());
+            assertEquals(6, eventPublisher.getDeliveredEvents() + eventPublisher.getDroppedEvents());
+
+            // caught up, so the next event is buffered again
+            eventPublisher.onEvent(ElevatorEventType.BOARDED, 7, 0, 0, 0, 0);
+            runAll(tasks);
+            assertEquals("BOARDED 7 0 0 0 0", subscriber.events.get(subscriber.events.size() - 1));
+        }
+    }
+
+    @Test
+    public void bufferHoldsAtLeastTwoEventsTest() {
+        List<Runnable> tasks = new ArrayList<>();
+        ElevatorEventPublisher eventPublisher =
+                new ElevatorEventPublisher(ElevatorEventSink.NONE, tasks::add, 1, EventOverflowPolicy.DROP, 1);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        eventPublisher.subscribe(subscriber);
+
+        // a single slot could not tell the first event from the free slot of the next lap
+        for (int tick = 1; tick <= 3; tick++) {
+            eventPublisher.onEvent(ElevatorEventType.BOARDED, tick, 0, 0, 0, 0);
+        }
+        subscriber.subscription.request(Long.MAX_VALUE);
+        runAll(tasks);
+
+        assertEquals(List.of("BOARDED 1 0 0 0 0", "BOARDED 2 0 0 0 0"), subscriber.events);
+        assertEquals(1, eventPublisher.getOverflowedEvents());
+    }
+
+    @Test
+    public void rejectedDrainFailsSubscriberOutsideReportingThreadTest() {
+        List<Runnable> tasks = new ArrayList<>();
+        boolean[] rejecting = new boolean[1];
+        ElevatorEventPublisher eventPublisher = new ElevatorEventPublisher(ElevatorEventSink.NONE, task -> {
+            if (rejecting[0]) throw new RejectedExecutionException();
+            tasks.add(task);
+        }, 16, EventOverflowPolicy.DROP, 1);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        eventPublisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        runAll(tasks);
+
+        // the reporting thread only stops publishing to the subscriber
+        rejecting[0] = true;
+        eventPublisher.onEvent(ElevatorEventType.BOARDED, 1, 0, 0, 0, 0);
+        assertNull(subscriber.error);
+        assertEquals(0, eventPublisher.getNumberOfSubscribers());
+
+        // the subscriber gets the failure from its own request, the drain task submitted again has nothing to pass
+        rejecting[0] = false;
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        runAll(tasks);
+        assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test
+    public void slowSubscriberDoesNotBlockStepTest() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ForkJoinPool stepPool = new ForkJoinPool(2);
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(16, stepPool);
+        AtomicLong reportedEvents = new AtomicLong();
+        elevatorSystem.setEventSink((type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) ->
+                reportedEvents.incrementAndGet());
+        ElevatorEventPublisher eventPublisher =
+                elevatorSystem.publishEvents(executor, 64, EventOverflowPolicy.CONFLATE_PER_ELEVATOR);
+
+        CountDownLatch stepped = new CountDownLatch(1);
+        CollectingSubscriber subscriber = new CollectingSubscriber() {
+            @Override
+            public void onNext(ElevatorEvent event) {
+                try {
+                    stepped.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onNext(event);
+            }
+        };
+        eventPublisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Random random = new Random(2022);
+        for (int step = 0; step < 2000; step++) {
+            int currentFloor = random.nextInt(60);
+            int destinationFloor = random.nextInt(60);
+            elevatorSystem.pickup(currentFloor, Integer.signum(destinationFloor - currentFloor), destinationFloor);
+            elevatorSystem.step();
+        }
+        stepped.countDown();
+        eventPublisher.close();
+
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        stepPool.shutdown();
+
+        assertTrue(eventPublisher.getOverflowedEvents() > 0);
+        assertEquals(subscriber.events.size(), eventPublisher.getDeliveredEvents());
+        assertEquals(reportedEvents.get(), eventPublisher.getDeliveredEvents() + eventPublisher.getDroppedEvents());
+        assertNull(subscriber.error);
+    }
+}
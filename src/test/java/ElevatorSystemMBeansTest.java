@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator_system.FleetElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.IElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.management.ElevatorSystemMBeans;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ElevatorSystemMBeansTest {
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    public void attributesFollowTheElevatorSystemTest() throws JMException {
+        Map<String, IElevatorSystem> elevatorSystems = Map.of(
+                "MyElevatorSystem", new MyElevatorSystem(1),
+                "FleetElevatorSystem", new FleetElevatorSystem(1, 10)
+        );
+
+        for (Map.Entry<String, IElevatorSystem> entry : elevatorSystems.entrySet()) {
+            String name = entry.getKey();
+            IElevatorSystem elevatorSystem = entry.getValue();
+            ElevatorSystemMBeans.register(elevatorSystem, name);
+
+            try {
+                ObjectName elevatorSystemName = ElevatorSystemMBeans.elevatorSystemName(name);
+                ObjectName elevatorName = ElevatorSystemMBeans.elevatorName(name, 0);
+
+                elevatorSystem.pickup(2, 1, 5);
+                // the only elevator is going up, so the request waits until it is idle again
+                elevatorSystem.pickup(3, -1, 0);
+
+                assertEquals(1L, mBeanServer.getAttribute(elevatorSystemName, "PendingPickups"));
+                assertEquals(1L, mBeanServer.getAttribute(elevatorSystemName, "Assignments"));
+                assertEquals("UP", mBeanServer.getAttribute(elevatorName, "Direction"));
+
+                elevatorSystem.step();
+                elevatorSystem.step();
+
+                assertEquals(2L, mBeanServer.getAttribute(elevatorSystemName, "Tick"));
+                assertEquals(2, mBeanServer.getAttribute(elevatorName, "CurrentFloor"));
+                assertEquals(5, mBeanServer.getAttribute(elevatorName, "DestinationFloor"));
+                assertEquals(1, mBeanServer.getAttribute(elevatorName, "NumberOfRequests"));
+                assertEquals(0L, mBeanServer.getAttribute(elevatorSystemName, "DeliveredPickups"));
+
+                for (int steps = 0; steps < 3; steps++) {
+                    elevatorSystem.step();
+                }
+
+                assertEquals(5L, mBeanServer.getAttribute(elevatorSystemName, "Tick"));
+                assertEquals(0L, mBeanServer.getAttribute(elevatorSystemName, "PendingPickups"));
+                assertEquals(2L, mBeanServer.getAttribute(elevatorSystemName, "Assignments"));
+                assertEquals(1L, mBeanServer.getAttribute(elevatorSystemName, "DeliveredPickups"));
+                assertEquals(2.0, mBeanServer.getAttribute(elevatorSystemName, "AverageWaitTime"));
+                assertEquals(2L, mBeanServer.getAttribute(elevatorSystemName, "MaxWaitTime"));
+
+                assertEquals(5, mBeanServer.getAttribute(elevatorName, "CurrentFloor"));
+                assertEquals(3, mBeanServer.getAttribute(elevatorName, "DestinationFloor"));
+                assertEquals("DOWN", mBeanServer.getAttribute(elevatorName, "Direction"));
+                assertEquals(1, mBeanServer.getAttribute(elevatorName, "NumberOfRequests"));
+            } finally {
+                ElevatorSystemMBeans.unregister(name);
+            }
+
+            assertTrue(mBeanServer.queryNames(
+                    new ObjectName(ElevatorSystemMBeans.DOMAIN + ":system=" + name + ",*"), null).isEmpty());
+        }
+    }
+
+    @Test
+    public void ratesAreMeasuredBetweenReadsTest() throws JMException {
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(4);
+        ElevatorSystemMBeans.register(elevatorSystem, "RatesTest");
+
+        try {
+            ObjectName elevatorSystemName = ElevatorSystemMBeans.elevatorSystemName("RatesTest");
+            mBeanServer.getAttribute(elevatorSystemName, "StepsPerSecond");
+
+            for (int steps = 0; steps < 100; steps++) {
+                elevatorSystem.pickup(0, 1, 9);
+                elevatorSystem.step();
+            }
+
+            assertTrue((double) mBeanServer.getAttribute(elevatorSystemName, "StepsPerSecond") > 0);
+            assertTrue((double) mBeanServer.getAttribute(elevatorSystemName, "AssignmentsPerSecond") > 0);
+            assertEquals(4, mBeanServer.getAttribute(elevatorSystemName, "NumberOfElevators"));
+        } finally {
+            ElevatorSystemMBeans.unregister("RatesTest");
+        }
+    }
+}
@@ -68,6 +68,64 @@ public class ElevatorTest {
         assertTrue(elevator.getPickupRequests().contains(new PickupRequest(5, Direction.DOWN, 1, true)));
     }
 
+    @Test
+    public void stopsAreTrackedAsRequestsAreBoardedAndDeliveredTest() {
+        elevator.handlePickupRequest(new PickupRequest(2, Direction.UP, 200), PickupRequest.NO_TICK);
+        elevator.handlePickupRequest(new PickupRequest(70, Direction.UP, 71), PickupRequest.NO_TICK);
+        elevator.handlePickupRequest(new PickupRequest(0, Direction.UP, 130), PickupRequest.NO_TICK);
+
+        assertTrue(elevator.hasRequestsInDirection(Direction.UP));
+        assertFalse(elevator.hasRequestsInDirection(Direction.DOWN));
+        // destination 200 is not a stop until the person waiting on the 2nd floor enters the elevator
+        assertEquals(130, elevator.getFarthestStopInDirection(Direction.UP));
+        assertEquals(Elevator.IDLE, elevator.getFarthestStopInDirection(Direction.DOWN));
+        assertEquals(3, elevator.getNumberOfStops());
+
+        elevator.setDirection(Direction.UP);
+        for (int steps = 0; steps < 200; steps++) {
+            elevator.makeStep();
+            if (elevator.getElevatorStatus().getCurrentFloor() == 2) {
+                assertEquals(200, elevator.getFarthestStopInDirection(Direction.UP));
+                assertEquals(3, elevator.getNumberOfStops());
+            }
+            if (elevator.getElevatorStatus().getCurrentFloor() == 130) {
+                assertEquals(200, elevator.getFarthestStopInDirection(Direction.UP));
+                assertEquals(1, elevator.getPickupRequests().size());
+                assertEquals(1, elevator.getNumberOfStops());
+            }
+        }
+
+        assertTrue(elevator.getPickupRequests().isEmpty());
+        assertFalse(elevator.hasRequestsInDirection(Direction.UP));
+        assertEquals(Elevator.IDLE, elevator.getFarthestStopInDirection(Direction.UP));
+        assertEquals(0, elevator.getNumberOfStops());
+    }
+
+    @Test
+    public void pickupRequestsAreStampedWithAssignedAndBoardedTicksTest() {
+        PickupRequest pickupRequest = new PickupRequest(0, Direction.UP, 3);
+        pickupRequest.setCreatedTick(5);
+        elevator.handlePickupRequest(pickupRequest, 7);
+        elevator.handlePickupRequest(new PickupRequest(2, Direction.UP, 4), 8);
+
+        // the request called from the floor of the elevator is boarded on the tick it is assigned on
+        List<PickupRequest> pickupRequests = elevator.getPickupRequests();
+        assertEquals(5, pickupRequests.get(0).getCreatedTick());
+        assertEquals(7, pickupRequests.get(0).getAssignedTick());
+        assertEquals(7, pickupRequests.get(0).getBoardedTick());
+        assertEquals(PickupRequest.NO_TICK, pickupRequests.get(1).getCreatedTick());
+        assertEquals(8, pickupRequests.get(1).getAssignedTick());
+        assertEquals(PickupRequest.NO_TICK, pickupRequests.get(1).getBoardedTick());
+
+        elevator.setDirection(Direction.UP);
+        elevator.makeStep(9);
+        elevator.makeStep(10);
+
+        pickupRequests = elevator.getPickupRequests();
+        assertEquals(8, pickupRequests.get(1).getAssignedTick());
+        assertEquals(10, pickupRequests.get(1).getBoardedTick());
+    }
+
     private void validateElevatorStatus(Elevator elevator, int currentFloor, int destinationFloor, Direction direction) {
         assertEquals(currentFloor, elevator.getElevatorStatus().getCurrentFloor());
         assertEquals(destinationFloor, elevator.getElevatorStatus().getDestinationFloor());
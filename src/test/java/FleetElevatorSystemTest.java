@@ -0,0 +1,312 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator.Direction;
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.AdmissionPolicy;
+import pl.edu.agh.elevatorsystem.elevator_system.ElevatorStatusDelta;
+import pl.edu.agh.elevatorsystem.elevator_system.FleetElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
+import pl.edu.agh.elevatorsystem.metrics.LatencyMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.agh.elevatorsystem.util.Constants.MAX_ELEVATORS;
+import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
+
+public class FleetElevatorSystemTest {
+
+    @Test
+    public void pickupRequestsFrom2ndTo3rdFloorThenFrom2rdTo1stFloorTest() {
+        FleetElevatorSystem fleet = new FleetElevatorSystem(1, 10);
+        fleet.pickup(2, 1, 3);
+        fleet.pickup(2, -1, 1);
+
+        assertEquals(1, fleet.getNumberOfRequests(0));
+        assertEquals(1, fleet.getPendingPickups().size());
+        validateElevatorStatus(fleet, 0, 0, 2, Direction.UP);
+
+        for (int steps = 0; steps < 2; steps++) {
+            fleet.step();
+        }
+
+        validateElevatorStatus(fleet, 0, 2, 3, Direction.UP);
+
+        fleet.step();
+
+        validateElevatorStatus(fleet, 0, 3, 2, Direction.DOWN);
+        assertTrue(fleet.getPendingPickups().isEmpty());
+
+        for (int steps = 0; steps < 2; steps++) {
+            fleet.step();
+        }
+
+        validateElevatorStatus(fleet, 0, 1, Elevator.IDLE, Direction.IDLE);
+        assertEquals(0, fleet.getNumberOfRequests(0));
+    }
+
+    @Test
+    public void fleetLargerThanMyElevatorSystemLimitTest() {
+        FleetElevatorSystem fleet = new FleetElevatorSystem(5000, 1000);
+        assertEquals(5000, fleet.getNumberOfElevators());
+
+        fleet.update(4999, 0, 999);
+        fleet.pickup(998, -1, 0);
+        fleet.pickup(500, 1, 700);
+
+        // elevator 4999 is as close to the 500th floor as the idle ones, ties go to the lowest elevatorId
+        validateElevatorStatus(fleet, 0, 0, 998, Direction.UP);
+        validateElevatorStatus(fleet, 1, 0, 500, Direction.UP);
+        validateElevatorStatus(fleet, 4999, 0, 999, Direction.UP);
+
+        for (int steps = 0; steps < 998; steps++) {
+            fleet.step();
+        }
+
+        validateElevatorStatus(fleet, 0, 998, 0, Direction.DOWN);
+        validateElevatorStatus(fleet, 1, 700, Elevator.IDLE, Direction.IDLE);
+        validateElevatorStatus(fleet, 4999, 998, 999, Direction.UP);
+    }
+
+    @Test
+    public void closestElevatorIsFoundAboveAndBelowTheRequestFloorTest() {
+        FleetElevatorSystem fleet = new FleetElevatorSystem(4, 100);
+        fleet.update(0, 20, 20);
+        fleet.update(1, 40, 60);
+        fleet.update(2, 70, 30);
+        fleet.update(3, 60, 60);
+
+        // elevator 1 going up from below and idle elevator 3 from above are as close, ties go to the lowest elevatorId
+        fleet.pickup(50, 1, 52);
+        assertEquals(2, fleet.getNumberOfRequests(1));
+
+        fleet.pickup(50, -1, 45);
+        assertEquals(1, fleet.getNumberOfRequests(3));
+
+        fleet.pickup(30, -1, 10);
+        assertEquals(1, fleet.getNumberOfRequests(0));
+
+        fleet.step();
+        fleet.step();
+
+        // elevator 1 has the 41st floor behind it now, the other elevators are going down or heading to a down request
+        fleet.pickup(41, 1, 90);
+        assertEquals(1, fleet.getPendingPickups().size());
+        validateElevatorStatus(fleet, 1, 42, 60, Direction.UP);
+    }
+
+    @Test
+    public void scannedFleetChoosesSameElevatorsAsIndexedFleetTest() {
+        int numberOfElevators = 64;
+        int floors = 40;
+        FleetElevatorSystem scannedFleet = new FleetElevatorSystem(numberOfElevators, 10_000);
+        FleetElevatorSystem indexedFleet =
+                new FleetElevatorSystem(FleetElevatorSystem.MAX_SCAN_ELEVATORS + numberOfElevators, 10_000);
+        Random random = new Random(256);
+
+        // the other elevators of the indexed fleet go up above the floors of the requests, out of their way
+        for (int elevatorId = numberOfElevators; elevatorId < indexedFleet.getNumberOfElevators(); elevatorId++) {
+            indexedFleet.update(elevatorId, floors, 9999);
+        }
+        for (int step = 0; step < floors; step++) {
+            scannedFleet.step();
+            indexedFleet.step();
+        }
+
+        for (int command = 0; command < 5000; command++) {
+            if (random.nextInt(3) < 2) {
+                int currentFloor = random.nextInt(floors);
+                int destinationFloor = random.nextInt(floors);
+                int direction = Integer.signum(destinationFloor - currentFloor);
+
+                assertEquals(indexedFleet.pickup(currentFloor, direction, destinationFloor),
+                        scannedFleet.pickup(currentFloor, direction, destinationFloor));
+            } else {
+                scannedFleet.step();
+                indexedFleet.step();
+            }
+        }
+
+        assertEquals(indexedFleet.getPendingPickups(), scannedFleet.getPendingPickups());
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            validateElevatorStatus(scannedFleet, elevatorId, indexedFleet.getCurrentFloor(elevatorId),
+                    indexedFleet.getDestinationFloor(elevatorId), indexedFleet.getDirection(elevatorId));
+            assertEquals(indexedFleet.getNumberOfRequests(elevatorId), scannedFleet.getNumberOfRequests(elevatorId));
+        }
+    }
+
+    @Test
+    public void invalidRequestsAreRejectedTest() {
+        FleetElevatorSystem fleet = new FleetElevatorSystem(2, 10);
+
+        fleet.pickup(10, -1, 2);
+        fleet.pickup(3, 1, 1);
+        fleet.update(2, 0, 5);
+        fleet.update(0, 0, 10);
+
+        validateElevatorStatus(fleet, 0, 0, Elevator.IDLE, Direction.IDLE);
+        validateElevatorStatus(fleet, 1, 0, Elevator.IDLE, Direction.IDLE);
+        assertTrue(fleet.getPendingPickups().isEmpty());
+    }
+
+    @Test
+    public void behavesLikeMyElevatorSystemTest() {
+        Random random = new Random(2022);
+
+        for (int numberOfElevators = 1; numberOfElevators <= MAX_ELEVATORS; numberOfElevators += 5) {
+            MyElevatorSystem elevatorSystem = new MyElevatorSystem(numberOfElevators);
+            FleetElevatorSystem fleet = new FleetElevatorSystem(numberOfElevators, MAX_FLOORS);
+            int floors = 5 + random.nextInt(40);
+
+            runSameRandomCommands(elevatorSystem, fleet, numberOfElevators, floors, random);
+
+            assertEquals(elevatorSystem.getElevatorSystemCounters().getQueuedPickups(),
+                    fleet.getElevatorSystemCounters().getQueuedPickups());
+        }
+    }
+
+    @Test
+    public void admissionControlBehavesLikeMyElevatorSystemTest() {
+        Random random = new Random(2022);
+
+        for (AdmissionPolicy admissionPolicy : AdmissionPolicy.values()) {
+            MyElevatorSystem elevatorSystem = new MyElevatorSystem(2);
+            FleetElevatorSystem fleet = new FleetElevatorSystem(2, MAX_FLOORS);
+            elevatorSystem.setAdmissionControl(20, admissionPolicy);
+            fleet.setAdmissionControl(20, admissionPolicy);
+
+            runSameRandomCommands(elevatorSystem, fleet, 2, 40, random);
+
+            ElevatorSystemCounters counters = elevatorSystem.getElevatorSystemCounters();
+            ElevatorSystemCounters fleetCounters = fleet.getElevatorSystemCounters();
+            assertEquals(counters.getQueuedPickups(), fleetCounters.getQueuedPickups());
+            assertEquals(counters.getThrottledPickups(), fleetCounters.getThrottledPickups());
+            assertEquals(counters.getShedPickups(), fleetCounters.getShedPickups());
+            assertEquals(counters.getRejectedPickups(), fleetCounters.getRejectedPickups());
+            // the queue has been full, so the policy has been applied
+            assertTrue(counters.getThrottledPickups() + counters.getShedPickups() + counters.getRejectedPickups() > 0);
+        }
+    }
+
+    @Test
+    public void parallelStepGivesSameResultsAsSequentialStepTest() {
+        ForkJoinPool stepPool = new ForkJoinPool(4);
+        int numberOfElevators = 3000;
+        int numberOfFloors = 200;
+
+        FleetElevatorSystem sequentialFleet = new FleetElevatorSystem(numberOfElevators, numberOfFloors);
+        FleetElevatorSystem parallelFleet = new FleetElevatorSystem(numberOfElevators, numberOfFloors, stepPool);
+        Random random = new Random(7);
+
+        for (int step = 0; step < 500; step++) {
+            for (int pickup = 0; pickup < 50; pickup++) {
+                int currentFloor = random.nextInt(numberOfFloors);
+                int destinationFloor = random.nextInt(numberOfFloors);
+                int direction = Integer.signum(destinationFloor - currentFloor);
+
+                sequentialFleet.pickup(currentFloor, direction, destinationFloor);
+                parallelFleet.pickup(currentFloor, direction, destinationFloor);
+            }
+
+            sequentialFleet.step();
+            parallelFleet.step();
+        }
+
+        assertEquals(sequentialFleet.getPendingPickups(), parallelFleet.getPendingPickups());
+        for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+            validateElevatorStatus(parallelFleet, elevatorId, sequentialFleet.getCurrentFloor(elevatorId),
+                    sequentialFleet.getDestinationFloor(elevatorId), sequentialFleet.getDirection(elevatorId));
+            assertEquals(sequentialFleet.getNumberOfRequests(elevatorId), parallelFleet.getNumberOfRequests(elevatorId));
+        }
+
+        stepPool.shutdown();
+    }
+
+    /**
+     * Sends the same random commands to both elevator systems, checking after every command that they are in the same
+     * state and have reported the same events
+     */
+    private void runSameRandomCommands(MyElevatorSystem elevatorSystem, FleetElevatorSystem fleet,
+                                       int numberOfElevators, int floors, Random random) {
+        ElevatorStatusDelta delta = new ElevatorStatusDelta();
+        ElevatorStatusDelta fleetDelta = new ElevatorStatusDelta();
+        ElevatorSystemSnapshot snapshot = new ElevatorSystemSnapshot();
+        ElevatorSystemSnapshot fleetSnapshot = new ElevatorSystemSnapshot();
+        List<String> events = new ArrayList<>();
+        List<String> fleetEvents = new ArrayList<>();
+        elevatorSystem.setEventSink((type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) ->
+                events.add(type + " " + tick + " " + elevatorId + " " + firstArgument + " " + secondArgument
+                        + " " + thirdArgument));
+        fleet.setEventSink((type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) ->
+                fleetEvents.add(type + " " + tick + " " + elevatorId + " " + firstArgument + " " + secondArgument
+                        + " " + thirdArgument));
+
+        for (int command = 0; command < 5000; command++) {
+            int commandType = random.nextInt(10);
+
+            if (commandType < 5) {
+                int currentFloor = random.nextInt(floors);
+                int destinationFloor = random.nextInt(floors);
+                int direction = Integer.signum(destinationFloor - currentFloor);
+
+                assertEquals(elevatorSystem.pickup(currentFloor, direction, destinationFloor),
+                        fleet.pickup(currentFloor, direction, destinationFloor));
+            } else if (commandType == 5) {
+                int elevatorId = random.nextInt(numberOfElevators);
+                int currentFloor = random.nextInt(floors);
+                int destinationFloor = random.nextInt(floors);
+
+                assertEquals(elevatorSystem.update(elevatorId, currentFloor, destinationFloor),
+                        fleet.update(elevatorId, currentFloor, destinationFloor));
+            } else {
+                elevatorSystem.step();
+                fleet.step();
+            }
+
+            elevatorSystem.statusDelta(delta.getVersion(), delta);
+            fleet.statusDelta(fleetDelta.getVersion(), fleetDelta);
+            assertEquals(delta.toString(), fleetDelta.toString());
+            assertEquals(elevatorSystem.readSnapshot(snapshot), fleet.readSnapshot(fleetSnapshot));
+            assertEquals(snapshot.toString(), fleetSnapshot.toString());
+            assertEquals(events, fleetEvents);
+            events.clear();
+            fleetEvents.clear();
+
+            assertEquals(elevatorSystem.getPendingPickups(), fleet.getPendingPickups());
+            for (int elevatorId = 0; elevatorId < numberOfElevators; elevatorId++) {
+                Elevator elevator = elevatorSystem.getElevatorById(elevatorId);
+
+                validateElevatorStatus(fleet, elevatorId, elevator.getElevatorStatus().getCurrentFloor(),
+                        elevator.getElevatorStatus().getDestinationFloor(), elevator.getDirection());
+                assertEquals(elevator.getPickupRequests().size(), fleet.getNumberOfRequests(elevatorId));
+                assertEquals(snapshot.getNumberOfRequests(elevatorId),
+                        fleetSnapshot.getNumberOfRequests(elevatorId));
+            }
+        }
+
+        validateLatencyMetrics(fleet.getLatencyMetrics(), elevatorSystem.getLatencyMetrics());
+    }
+
+    private void validateLatencyMetrics(LatencyMetrics latencyMetrics, LatencyMetrics expectedLatencyMetrics) {
+        for (int percentile : new int[]{50, 90, 99, 100}) {
+            assertEquals(expectedLatencyMetrics.getWaitTimes().getPercentile(percentile),
+                    latencyMetrics.getWaitTimes().getPercentile(percentile));
+            assertEquals(expectedLatencyMetrics.getRideTimes().getPercentile(percentile),
+                    latencyMetrics.getRideTimes().getPercentile(percentile));
+        }
+        assertEquals(expectedLatencyMetrics.getWaitTimes().getCount(), latencyMetrics.getWaitTimes().getCount());
+        assertEquals(expectedLatencyMetrics.getWaitTimes().getMean(), latencyMetrics.getWaitTimes().getMean());
+        assertEquals(expectedLatencyMetrics.getRideTimes().getMean(), latencyMetrics.getRideTimes().getMean());
+    }
+
+    private void validateElevatorStatus(FleetElevatorSystem fleet, int elevatorId, int currentFloor,
+                                        int destinationFloor, Direction direction) {
+        assertEquals(currentFloor, fleet.getCurrentFloor(elevatorId));
+        assertEquals(destinationFloor, fleet.getDestinationFloor(elevatorId));
+        assertEquals(direction, fleet.getDirection(elevatorId));
+    }
+}
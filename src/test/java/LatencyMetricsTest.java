@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.metrics.LatencyHistogram;
+import pl.edu.agh.elevatorsystem.metrics.LatencyMetrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyMetricsTest {
+
+    @Test
+    public void histogramPercentilesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (int latency = 1; latency <= 100; latency++) {
+            histogram.record(latency);
+        }
+        histogram.record(-1);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean());
+        // exact below 8, then within 1/8 of the value
+        assertEquals(5, histogram.getPercentile(5));
+        assertEquals(51, histogram.getPercentile(50));
+        assertEquals(95, histogram.getPercentile(90));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void waitAndRideTimesAreRecordedOnDeliveryTest() {
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(2);
+        elevatorSystem.update(1, 9, 9);
+
+        elevatorSystem.pickup(2, 1, 5);
+        elevatorSystem.step();
+        elevatorSystem.pickup(7, -1, 6);
+
+        for (int steps = 0; steps < 4; steps++) {
+            elevatorSystem.step();
+        }
+
+        LatencyMetrics latencyMetrics = elevatorSystem.getLatencyMetrics();
+        // elevator 0 boards the first request on the 2nd tick and delivers it on the 5th, elevator 1 boards the second
+        // request on the 3rd tick and delivers it on the 4th
+        assertEquals(2, latencyMetrics.getWaitTimes().getCount());
+        assertEquals(2, latencyMetrics.getElevatorWaitTimes(0).getMax());
+        assertEquals(3, latencyMetrics.getElevatorRideTimes(0).getMax());
+        assertEquals(2, latencyMetrics.getElevatorWaitTimes(1).getMax());
+        assertEquals(1, latencyMetrics.getElevatorRideTimes(1).getMax());
+        assertEquals(1, latencyMetrics.getFloorWaitTimes(2).getCount());
+        assertEquals(1, latencyMetrics.getFloorRideTimes(7).getMax());
+        assertEquals(0, latencyMetrics.getFloorWaitTimes(9).getCount());
+        assertEquals(3, latencyMetrics.getRideTimes().getPercentile(100));
+    }
+}
@@ -1,12 +1,24 @@
 import org.junit.jupiter.api.Test;
 import pl.edu.agh.elevatorsystem.elevator.Direction;
 import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.AdmissionPolicy;
+import pl.edu.agh.elevatorsystem.elevator_system.ElevatorStatusDelta;
 import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.PickupResult;
+import pl.edu.agh.elevatorsystem.elevator_system.UpdateResult;
+import pl.edu.agh.elevatorsystem.elevator_system.dispatch.EtaDispatchStrategy;
 import pl.edu.agh.elevatorsystem.elevator_system.pickup_request.PickupRequest;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemCounters;
+import pl.edu.agh.elevatorsystem.metrics.ElevatorSystemSnapshot;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.agh.elevatorsystem.util.Constants.MAX_FLOORS;
 
 public class MyElevatorSystemTest {
 
@@ -142,6 +154,7 @@ public class MyElevatorSystemTest {
             systemWith1Elevator.step();
         }
 
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom2To3InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -172,6 +185,7 @@ public class MyElevatorSystemTest {
             systemWith1Elevator.step();
         }
 
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom3To1InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -201,7 +215,7 @@ public class MyElevatorSystemTest {
             systemWith1Elevator.step();
         }
 
-        PickupRequest pickupRequest = pickupRequests.get(0);
+        PickupRequest pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom2To3InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -211,7 +225,7 @@ public class MyElevatorSystemTest {
 
         validateElevatorStatus(elevator, 3, 2, Direction.DOWN);
 
-        pickupRequest = pickupRequests.get(0);
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom2To1, pickupRequest);
         assertFalse(pickupRequest.isInElevator());
 
@@ -219,6 +233,7 @@ public class MyElevatorSystemTest {
 
         systemWith1Elevator.step();
 
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom2To1InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -247,7 +262,7 @@ public class MyElevatorSystemTest {
             systemWith1Elevator.step();
         }
 
-        PickupRequest pickupRequest = pickupRequests.get(0);
+        PickupRequest pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom2To3InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -257,7 +272,7 @@ public class MyElevatorSystemTest {
 
         validateElevatorStatus(elevator, 3, 1, Direction.DOWN);
 
-        pickupRequest = pickupRequests.get(0);
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(1, elevator.getPickupRequests().size());
         assertEquals(pickupRequestFrom3To1InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
@@ -286,11 +301,11 @@ public class MyElevatorSystemTest {
 
         systemWith1Elevator.step();
 
-        PickupRequest pickupRequest = pickupRequests.get(0);
+        PickupRequest pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom1To5InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
-        pickupRequest = pickupRequests.get(1);
+        pickupRequest = elevator.getPickupRequests().get(1);
         assertEquals(pickupRequestFrom2To3, pickupRequest);
         assertFalse(pickupRequest.isInElevator());
 
@@ -298,6 +313,7 @@ public class MyElevatorSystemTest {
 
         systemWith1Elevator.step();
 
+        pickupRequest = elevator.getPickupRequests().get(1);
         assertEquals(pickupRequestFrom2To3InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -339,6 +355,7 @@ public class MyElevatorSystemTest {
 
         validateElevatorStatus(elevator, 3, 1, Direction.DOWN);
 
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom3To1InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -348,9 +365,9 @@ public class MyElevatorSystemTest {
 
         validateElevatorStatus(elevator, 1, 4, Direction.UP);
 
-        assertEquals(1, pickupRequests.size());
+        assertEquals(1, elevator.getPickupRequests().size());
 
-        pickupRequest = pickupRequests.get(0);
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom4To5, pickupRequest);
         assertFalse(pickupRequest.isInElevator());
 
@@ -360,6 +377,7 @@ public class MyElevatorSystemTest {
 
         validateElevatorStatus(elevator, 4, 5, Direction.UP);
 
+        pickupRequest = elevator.getPickupRequests().get(0);
         assertEquals(pickupRequestFrom4To5InElevator, pickupRequest);
         assertTrue(pickupRequest.isInElevator());
 
@@ -370,6 +388,544 @@ public class MyElevatorSystemTest {
         assertTrue(elevator.getPickupRequests().isEmpty());
     }
 
+    @Test
+    public void pendingPickupsAssignedOnceElevatorBecomesIdleTest() {
+        Elevator elevator = systemWith1Elevator.getElevatorById(0);
+
+        systemWith1Elevator.update(0, 0, 5);
+        systemWith1Elevator.pickup(3, -1, 1);
+        systemWith1Elevator.pickup(2, 1, 4);
+        systemWith1Elevator.pickup(1, -1, 0);
+
+        // only the request on the elevator's way is assigned, the rest waits for the elevator to become idle
+        assertEquals(2, systemWith1Elevator.getPendingPickups().size());
+        assertEquals(new PickupRequest(3, Direction.DOWN, 1), systemWith1Elevator.getPendingPickups().get(0));
+        assertEquals(new PickupRequest(1, Direction.DOWN, 0), systemWith1Elevator.getPendingPickups().get(1));
+        validateElevatorStatus(elevator, 0, 5, Direction.UP);
+
+        for (int steps = 0; steps < 4; steps++) {
+            systemWith1Elevator.step();
+        }
+
+        assertEquals(2, systemWith1Elevator.getPendingPickups().size());
+        validateElevatorStatus(elevator, 4, 5, Direction.UP);
+
+        systemWith1Elevator.step();
+
+        assertTrue(systemWith1Elevator.getPendingPickups().isEmpty());
+        assertEquals(2, elevator.getPickupRequests().size());
+        validateElevatorStatus(elevator, 5, 1, Direction.DOWN);
+
+        for (int steps = 0; steps < 5; steps++) {
+            systemWith1Elevator.step();
+        }
+
+        validateElevatorStatus(elevator, 0, Elevator.IDLE, Direction.IDLE);
+        assertTrue(elevator.getPickupRequests().isEmpty());
+    }
+
+    @Test
+    public void elevatorReservedForStarvingPickupRequestTest() {
+        Elevator elevator = systemWith1Elevator.getElevatorById(0);
+        systemWith1Elevator.setStarvationThreshold(4);
+
+        systemWith1Elevator.pickup(0, 1, 2);
+        systemWith1Elevator.pickup(5, -1, 0);
+
+        // every step brings a request on the elevator's way, so without the reservation it would keep going up
+        for (int steps = 0; steps < 6; steps++) {
+            int currentFloor = elevator.getElevatorStatus().getCurrentFloor();
+            systemWith1Elevator.pickup(currentFloor + 1, 1, currentFloor + 3);
+            systemWith1Elevator.step();
+        }
+
+        // reserved after the 4th step, the elevator stopped taking new requests and turned around once idle
+        validateElevatorStatus(elevator, 6, 5, Direction.DOWN);
+        assertEquals(List.of(new PickupRequest(5, Direction.DOWN, 0)), elevator.getPickupRequests());
+        assertEquals(List.of(new PickupRequest(5, Direction.UP, 7), new PickupRequest(6, Direction.UP, 8)),
+                systemWith1Elevator.getPendingPickups());
+    }
+
+    @Test
+    public void pickupRequestsOfTheSameHallCallJoinOneElevatorTest() {
+        Elevator elevator0 = systemWith3Elevators.getElevatorById(0);
+        Elevator elevator1 = systemWith3Elevators.getElevatorById(1);
+
+        systemWith3Elevators.pickup(10, 1, 12);
+        systemWith3Elevators.update(1, 9, 9);
+
+        // elevator 1 is closer now, but elevator 0 is already going to pick up the people waiting to go up
+        systemWith3Elevators.pickup(10, 1, 15);
+        systemWith3Elevators.pickup(10, -1, 3);
+
+        assertEquals(2, elevator0.getPickupRequests().size());
+        assertEquals(List.of(new PickupRequest(10, Direction.DOWN, 3)), elevator1.getPickupRequests());
+
+        for (int steps = 0; steps < 10; steps++) {
+            systemWith3Elevators.step();
+        }
+
+        validateElevatorStatus(elevator0, 10, 15, Direction.UP);
+        assertEquals(List.of(new PickupRequest(10, Direction.UP, 12, true),
+                new PickupRequest(10, Direction.UP, 15, true)), elevator0.getPickupRequests());
+
+        // the hall call has been answered, so the next request from the 10th floor looks for the best elevator again
+        systemWith3Elevators.pickup(10, 1, 11);
+        assertEquals(2, elevator0.getPickupRequests().size());
+    }
+
+    @Test
+    public void etaDispatchStrategyPrefersFreeElevatorTest() {
+        MyElevatorSystem etaSystem = new MyElevatorSystem(2, null, new EtaDispatchStrategy(3));
+
+        for (MyElevatorSystem elevatorSystem : List.of(systemWith3Elevators, etaSystem)) {
+            elevatorSystem.update(0, 4, 12);
+            elevatorSystem.update(1, 0, 0);
+            // 2 floors + 1 stop against 6 floors, both strategies choose elevator 0
+            elevatorSystem.pickup(6, 1, 8);
+            assertEquals(2, elevatorSystem.getElevatorById(0).getPickupRequests().size());
+        }
+
+        // elevator 0 is 3 floors away, but with 2 stops it is expected to arrive after elevator 1, 7 floors away
+        systemWith3Elevators.pickup(7, 1, 9);
+        etaSystem.pickup(7, 1, 9);
+
+        assertEquals(3, systemWith3Elevators.getElevatorById(0).getPickupRequests().size());
+        assertEquals(List.of(new PickupRequest(7, Direction.UP, 9)),
+                etaSystem.getElevatorById(1).getPickupRequests());
+
+        assertThrows(IllegalArgumentException.class, () -> new EtaDispatchStrategy(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EtaDispatchStrategy(EtaDispatchStrategy.MAX_TICKS_PER_STOP + 1));
+    }
+
+    @Test
+    public void statusDeltaReturnsOnlyChangedElevatorsTest() {
+        ElevatorStatusDelta delta = new ElevatorStatusDelta();
+
+        systemWith3Elevators.statusDelta(ElevatorStatusDelta.FULL_SNAPSHOT, delta);
+        assertEquals(3, delta.size());
+        long firstVersion = delta.getVersion();
+
+        systemWith3Elevators.statusDelta(firstVersion, delta);
+        assertEquals(0, delta.size());
+        assertEquals(firstVersion, delta.getVersion());
+
+        systemWith3Elevators.pickup(3, 1, 5);
+        systemWith3Elevators.statusDelta(firstVersion, delta);
+        assertEquals(1, delta.size());
+        assertEquals(0, delta.getElevatorId(0));
+        assertEquals(0, delta.getCurrentFloor(0));
+        assertEquals(3, delta.getDestinationFloor(0));
+        assertEquals(1, delta.getDirection(0));
+        long secondVersion = delta.getVersion();
+        assertTrue(secondVersion > firstVersion);
+
+        systemWith3Elevators.update(2, 4, 4);
+        systemWith3Elevators.step();
+        systemWith3Elevators.statusDelta(secondVersion, delta);
+        assertEquals(2, delta.size());
+        assertEquals(1, delta.getCurrentFloor(0));
+        assertEquals(2, delta.getElevatorId(1));
+        assertEquals(4, delta.getCurrentFloor(1));
+        assertEquals(Elevator.IDLE, delta.getDestinationFloor(1));
+        assertEquals(systemWith3Elevators.getElevatorById(0).getElevatorStatus() + System.lineSeparator()
+                + systemWith3Elevators.getElevatorById(2).getElevatorStatus() + System.lineSeparator(),
+                delta.toString());
+        assertEquals(0, systemWith3Elevators.statusDelta(delta.getVersion()).size());
+
+        // elevator 1 has not changed since the first version
+        systemWith3Elevators.statusDelta(firstVersion, delta);
+        assertEquals(2, delta.size());
+        systemWith3Elevators.statusDelta(ElevatorStatusDelta.FULL_SNAPSHOT, delta);
+        assertEquals(3, delta.size());
+    }
+
+    @Test
+    public void snapshotHoldsStateAtEndOfLastStepTest() {
+        ElevatorSystemSnapshot snapshot = new ElevatorSystemSnapshot();
+
+        long firstVersion = systemWith3Elevators.readSnapshot(snapshot);
+        assertEquals(0, snapshot.getTick());
+        assertEquals(3, snapshot.getNumberOfElevators());
+        assertEquals(Elevator.IDLE, snapshot.getDestinationFloor(2));
+
+        systemWith3Elevators.pickup(3, 1, 5);
+        systemWith3Elevators.pickup(2, -1, 0);
+        // published once the step is finished
+        assertEquals(firstVersion, systemWith3Elevators.readSnapshot(snapshot));
+        assertEquals(0, snapshot.getNumberOfRequests(0));
+
+        systemWith3Elevators.step();
+        systemWith3Elevators.step();
+        systemWith3Elevators.step();
+        assertEquals(firstVersion + 3, systemWith3Elevators.readSnapshot(snapshot));
+        assertEquals(3, snapshot.getTick());
+        assertEquals(systemWith3Elevators.getPendingPickups().size(), snapshot.getPendingPickups());
+
+        for (int elevatorId = 0; elevatorId < 3; elevatorId++) {
+            Elevator elevator = systemWith3Elevators.getElevatorById(elevatorId);
+            assertEquals(elevator.getElevatorStatus().getCurrentFloor(), snapshot.getCurrentFloor(elevatorId));
+            assertEquals(elevator.getElevatorStatus().getDestinationFloor(), snapshot.getDestinationFloor(elevatorId));
+            assertEquals(elevator.getDirection().intValue(), snapshot.getDirection(elevatorId));
+
+            List<PickupRequest> pickupRequests = elevator.getPickupRequests();
+            assertEquals(pickupRequests.size(), snapshot.getNumberOfRequests(elevatorId));
+            for (int i = 0; i < pickupRequests.size(); i++) {
+                int request = snapshot.getFirstRequest(elevatorId) + i;
+                assertEquals(pickupRequests.get(i).getCurrentFloor(), snapshot.getRequestCurrentFloor(request));
+                assertEquals(pickupRequests.get(i).getDestinationFloor(),
+                        snapshot.getRequestDestinationFloor(request));
+                assertEquals(pickupRequests.get(i).isInElevator(), snapshot.isRequestInElevator(request));
+            }
+        }
+        assertTrue(snapshot.isRequestInElevator(snapshot.getFirstRequest(1)));
+    }
+
+    @Test
+    public void resultCodesAndEventsReportedToEventSinkTest() {
+        List<String> events = new ArrayList<>();
+        systemWith1Elevator.setEventSink((type, tick, elevatorId, firstArgument, secondArgument, thirdArgument) ->
+                events.add(type + " " + tick + " " + elevatorId + " " + firstArgument + " " + secondArgument + " "
+                        + thirdArgument));
+
+        assertEquals(UpdateResult.INVALID_ELEVATOR_ID, systemWith1Elevator.update(1, 0, 0));
+        assertEquals(PickupResult.INVALID, systemWith1Elevator.pickup(2, 1, 1));
+        assertEquals(PickupResult.ASSIGNED, systemWith1Elevator.pickup(0, 1, 2));
+        assertEquals(PickupResult.QUEUED, systemWith1Elevator.pickup(3, -1, 1));
+        assertEquals(UpdateResult.OCCUPIED, systemWith1Elevator.update(0, 1, 1));
+        systemWith1Elevator.step();
+        systemWith1Elevator.step();
+
+        assertEquals(List.of(
+                "INVALID_ELEVATOR_ID 0 -1 1 1 0",
+                "INVALID_PICKUP 0 -1 2 1 1",
+                "PICKUP_ASSIGNED 0 0 0 1 2",
+                "BOARDED 0 0 0 1 2",
+                "PICKUP_QUEUED 0 -1 3 -1 1",
+                "ELEVATOR_OCCUPIED 0 0 0 1 1",
+                "ARRIVED 2 0 2 0 0",
+                "DELIVERED 2 0 0 1 2",
+                "PICKUP_ASSIGNED 2 0 3 -1 1"), events);
+    }
+
+    @Test
+    public void pendingPickupsAdmittedUpToCapacityTest() {
+        ElevatorSystemCounters counters = systemWith1Elevator.getElevatorSystemCounters();
+        systemWith1Elevator.update(0, 0, 5);
+        systemWith1Elevator.setAdmissionControl(2, AdmissionPolicy.REJECT);
+
+        assertEquals(PickupResult.ASSIGNED, systemWith1Elevator.pickup(3, 1, 4));
+        assertEquals(PickupResult.QUEUED, systemWith1Elevator.pickup(2, -1, 1));
+        assertEquals(PickupResult.QUEUED, systemWith1Elevator.pickup(3, -1, 1));
+        assertEquals(PickupResult.REJECTED, systemWith1Elevator.pickup(4, -1, 1));
+        assertEquals(PickupResult.INVALID, systemWith1Elevator.pickup(4, -1, 6));
+
+        systemWith1Elevator.setAdmissionControl(2, AdmissionPolicy.SHED_OLDEST);
+        assertEquals(PickupResult.QUEUED_OLDEST_SHED, systemWith1Elevator.pickup(4, -1, 1));
+        assertEquals(List.of(new PickupRequest(3, Direction.DOWN, 1), new PickupRequest(4, Direction.DOWN, 1)),
+                systemWith1Elevator.getPendingPickups());
+
+        systemWith1Elevator.setAdmissionControl(2, AdmissionPolicy.BACKPRESSURE);
+        assertEquals(PickupResult.QUEUED_OVER_CAPACITY, systemWith1Elevator.pickup(5, -1, 1));
+        assertEquals(3, systemWith1Elevator.getPendingPickups().size());
+
+        assertEquals(4, counters.getQueuedPickups());
+        assertEquals(1, counters.getThrottledPickups());
+        assertEquals(1, counters.getShedPickups());
+        assertEquals(1, counters.getRejectedPickups());
+    }
+
+    @Test
+    public void outOfRangePickupIsNotQueuedUpTest() {
+        systemWith1Elevator.update(0, 0, 5);
+        systemWith1Elevator.pickup(300, -1, 1);
+        systemWith1Elevator.pickup(-2, 1, 1);
+
+        assertTrue(systemWith1Elevator.getPendingPickups().isEmpty());
+        assertEquals(1, systemWith1Elevator.getElevatorById(0).getPickupRequests().size());
+    }
+
+    @Test
+    public void parallelStepGivesSameResultsAsSequentialStepTest() {
+        ForkJoinPool stepPool = new ForkJoinPool(4);
+        MyElevatorSystem parallelSystem = new MyElevatorSystem(16, stepPool);
+        MyElevatorSystem sequentialSystem = new MyElevatorSystem(16);
+        Random random = new Random(16);
+
+        for (int step = 0; step < 1000; step++) {
+            int currentFloor = random.nextInt(30);
+            int destinationFloor = random.nextInt(30);
+            int direction = Integer.signum(destinationFloor - currentFloor);
+
+            parallelSystem.pickup(currentFloor, direction, destinationFloor);
+            sequentialSystem.pickup(currentFloor, direction, destinationFloor);
+            parallelSystem.step();
+            sequentialSystem.step();
+
+            assertEquals(sequentialSystem.getPendingPickups(), parallelSystem.getPendingPickups());
+            for (int elevatorId = 0; elevatorId < 16; elevatorId++) {
+                Elevator elevator = sequentialSystem.getElevatorById(elevatorId);
+                validateElevatorStatus(parallelSystem.getElevatorById(elevatorId),
+                        elevator.getElevatorStatus().getCurrentFloor(),
+                        elevator.getElevatorStatus().getDestinationFloor(), elevator.getDirection());
+            }
+        }
+
+        stepPool.shutdown();
+    }
+
+    @Test
+    public void stepUntilGivesSameResultsAsStepsTest() {
+        MyElevatorSystem steppedSystem = new MyElevatorSystem(5);
+        MyElevatorSystem fastForwardedSystem = new MyElevatorSystem(5);
+        Random random = new Random(6);
+
+        for (int command = 0; command < 2000; command++) {
+            int currentFloor = random.nextInt(MAX_FLOORS);
+            int destinationFloor = random.nextInt(MAX_FLOORS);
+            int direction = Integer.signum(destinationFloor - currentFloor);
+
+            steppedSystem.pickup(currentFloor, direction, destinationFloor);
+            fastForwardedSystem.pickup(currentFloor, direction, destinationFloor);
+
+            long targetTick = steppedSystem.getTick() + random.nextInt(random.nextBoolean() ? 3 : 300);
+            if (random.nextBoolean()) {
+                fastForwardedSystem.stepUntil(targetTick);
+            } else {
+                // the next event can lie past the target, the stepped system catches up with it below
+                while (fastForwardedSystem.getTick() < targetTick) {
+                    long tick = fastForwardedSystem.getTick();
+                    if (fastForwardedSystem.advanceToNextEvent() == tick) break;
+                }
+                targetTick = Math.max(targetTick, fastForwardedSystem.getTick());
+                fastForwardedSystem.stepUntil(targetTick);
+            }
+
+            while (steppedSystem.getTick() < targetTick) {
+                steppedSystem.step();
+            }
+
+            assertEquals(steppedSystem.getTick(), fastForwardedSystem.getTick());
+            assertEquals(steppedSystem.getPendingPickups(), fastForwardedSystem.getPendingPickups());
+            for (int elevatorId = 0; elevatorId < 5; elevatorId++) {
+                Elevator elevator = steppedSystem.getElevatorById(elevatorId);
+                validateElevatorStatus(fastForwardedSystem.getElevatorById(elevatorId),
+                        elevator.getElevatorStatus().getCurrentFloor(),
+                        elevator.getElevatorStatus().getDestinationFloor(), elevator.getDirection());
+                assertEquals(elevator.getPickupRequests(),
+                        fastForwardedSystem.getElevatorById(elevatorId).getPickupRequests());
+            }
+        }
+
+        assertEquals(steppedSystem.getLatencyMetrics().toString(), fastForwardedSystem.getLatencyMetrics().toString());
+    }
+
+    @Test
+    public void advanceToNextEventStopsOnPickupTest() {
+        Elevator elevator = systemWith1Elevator.getElevatorById(0);
+        systemWith1Elevator.pickup(200, -1, 100);
+
+        assertEquals(200, systemWith1Elevator.advanceToNextEvent());
+        validateElevatorStatus(elevator, 200, 100, Direction.DOWN);
+
+        assertEquals(300, systemWith1Elevator.advanceToNextEvent());
+        validateElevatorStatus(elevator, 100, Elevator.IDLE, Direction.IDLE);
+
+        // nothing more can happen without new requests
+        assertEquals(300, systemWith1Elevator.advanceToNextEvent());
+    }
+    @Test
+    public void pickupBatchAssignsBatchWithLowestTotalDistanceTest() {
+        MyElevatorSystem batchSystem = new MyElevatorSystem(2);
+        MyElevatorSystem sequentialSystem = new MyElevatorSystem(2);
+        batchSystem.update(0, 5, 5);
+        sequentialSystem.update(0, 5, 5);
+
+        batchSystem.pickupBatch(new int[]{3, 6}, new int[]{-1, 1}, new int[]{0, 9});
+        sequentialSystem.pickup(3, -1, 0);
+        sequentialSystem.pickup(6, 1, 9);
+
+        // one by one the first request takes the elevator that is right next to the second one
+        validateElevatorStatus(sequentialSystem.getElevatorById(0), 5, 3, Direction.DOWN);
+        validateElevatorStatus(sequentialSystem.getElevatorById(1), 0, 6, Direction.UP);
+
+        validateElevatorStatus(batchSystem.getElevatorById(0), 5, 6, Direction.UP);
+        validateElevatorStatus(batchSystem.getElevatorById(1), 0, 3, Direction.UP);
+    }
+
+    @Test
+    public void pickupBatchSendsIdleElevatorForRequestsOnItsWayTest() {
+        MyElevatorSystem batchSystem = new MyElevatorSystem(3);
+        batchSystem.update(1, 4, 4);
+        batchSystem.update(2, 12, 12);
+
+        batchSystem.pickupBatch(new int[]{5, 7, 3}, new int[]{1, 1, -1}, new int[]{9, 10, 0});
+
+        // elevator 1 takes both UP requests on its way, elevator 2 is not sent down for the 7th floor
+        validateElevatorStatus(batchSystem.getElevatorById(0), 0, 3, Direction.UP);
+        validateElevatorStatus(batchSystem.getElevatorById(1), 4, 7, Direction.UP);
+        assertEquals(2, batchSystem.getElevatorById(1).getPickupRequests().size());
+        validateElevatorStatus(batchSystem.getElevatorById(2), 12, Elevator.IDLE, Direction.IDLE);
+    }
+
+    @Test
+    public void pickupBatchLowersMeanWaitTimeTest() {
+        MyElevatorSystem batchSystem = new MyElevatorSystem(8);
+        MyElevatorSystem sequentialSystem = new MyElevatorSystem(8);
+        Random random = new Random(2022);
+        int[] currentFloors = new int[8];
+        int[] directions = new int[8];
+        int[] destinationFloors = new int[8];
+
+        // bursts of 8 requests every 10 ticks
+        for (int tick = 0; tick < 50_000; tick++) {
+            if (tick % 10 == 0) {
+                for (int i = 0; i < 8; i++) {
+                    currentFloors[i] = random.nextInt(30);
+                    destinationFloors[i] = (currentFloors[i] + 1 + random.nextInt(29)) % 30;
+                    directions[i] = Integer.signum(destinationFloors[i] - currentFloors[i]);
+                    sequentialSystem.pickup(currentFloors[i], directions[i], destinationFloors[i]);
+                }
+                batchSystem.pickupBatch(currentFloors, directions, destinationFloors);
+            }
+            batchSystem.step();
+            sequentialSystem.step();
+        }
+
+        double batchMeanWait = batchSystem.getLatencyMetrics().getWaitTimes().getMean();
+        double sequentialMeanWait = sequentialSystem.getLatencyMetrics().getWaitTimes().getMean();
+        assertTrue(batchMeanWait < 0.9 * sequentialMeanWait, batchMeanWait + " vs " + sequentialMeanWait);
+    }
+
+    @Test
+    public void pickupBatchAssignsPendingPickupsTest() {
+        Elevator elevator = systemWith1Elevator.getElevatorById(0);
+
+        systemWith1Elevator.update(0, 0, 5);
+        systemWith1Elevator.pickup(3, -1, 1);
+        systemWith1Elevator.pickupBatch(new int[]{2, 4, 1, 300}, new int[]{1, -1, 1, -1}, new int[]{4, 0, 0, 0});
+
+        // the request from the 1st floor to the ground floor is invalid and the one from the 300th is out of range
+        assertEquals(List.of(new PickupRequest(3, Direction.DOWN, 1), new PickupRequest(4, Direction.DOWN, 0)),
+                systemWith1Elevator.getPendingPickups());
+        assertEquals(2, elevator.getPickupRequests().size());
+        validateElevatorStatus(elevator, 0, 5, Direction.UP);
+
+        for (int steps = 0; steps < 5; steps++) {
+            systemWith1Elevator.step();
+        }
+
+        assertTrue(systemWith1Elevator.getPendingPickups().isEmpty());
+        validateElevatorStatus(elevator, 5, 3, Direction.DOWN);
+
+        systemWith1Elevator.pickupBatch(new int[]{6, 2}, new int[]{-1, -1}, new int[]{0, 1});
+
+        assertEquals(List.of(new PickupRequest(6, Direction.DOWN, 0)), systemWith1Elevator.getPendingPickups());
+        assertEquals(3, elevator.getPickupRequests().size());
+
+        systemWith1Elevator.pickupBatch(new int[]{1}, new int[]{1}, new int[0]);
+        assertEquals(3, elevator.getPickupRequests().size());
+    }
+
+    @Test
+    public void warmedUpStepAndPickupDoNotAllocateTest() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(16);
+
+        // fills the pools, the pending buckets and the histograms of every elevator and floor used by the traffic
+        runRepeatedTraffic(elevatorSystem, 20_000);
+
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        runRepeatedTraffic(elevatorSystem, 20_000);
+        allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        assertEquals(0, allocatedBytes);
+    }
+
+    @Test
+    public void warmedUpStepUntilDoesNotAllocateTest() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(16);
+
+        runRepeatedTrafficUntil(elevatorSystem, 20_000);
+
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        runRepeatedTrafficUntil(elevatorSystem, 20_000);
+        allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        assertEquals(0, allocatedBytes);
+    }
+
+    @Test
+    public void warmedUpPickupBatchDoesNotAllocateTest() {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(16);
+        int[] currentFloors = new int[4];
+        int[] directions = new int[4];
+        int[] destinationFloors = new int[4];
+
+        // the batch is sent on every 8th step only, so it takes longer until its methods are compiled for good
+        runRepeatedBatchTraffic(elevatorSystem, 80_000, currentFloors, directions, destinationFloors);
+
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        runRepeatedBatchTraffic(elevatorSystem, 20_000, currentFloors, directions, destinationFloors);
+        allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        assertEquals(0, allocatedBytes);
+    }
+
+    /**
+     * Sends the pickup requests of runRepeatedTraffic in batches of 4 on every 8th step
+     */
+    private void runRepeatedBatchTraffic(MyElevatorSystem elevatorSystem, int steps, int[] currentFloors,
+                                         int[] directions, int[] destinationFloors) {
+        for (int step = 0; step < steps; step++) {
+            if (step % 8 == 0) {
+                for (int i = 0; i < 4; i++) {
+                    int request = (step / 2 + i) % 64;
+                    currentFloors[i] = request * 37 % 50;
+                    destinationFloors[i] = (request * 11 + 7) % 50 == currentFloors[i] ? 50 : (request * 11 + 7) % 50;
+                    directions[i] = destinationFloors[i] - currentFloors[i];
+                }
+                elevatorSystem.pickupBatch(currentFloors, directions, destinationFloors);
+            }
+            elevatorSystem.step();
+        }
+    }
+
+    /**
+     * Sends the pickup requests of runRepeatedTraffic, advancing the elevator system with stepUntil by 2 to 20 ticks
+     * between them
+     */
+    private void runRepeatedTrafficUntil(MyElevatorSystem elevatorSystem, int requests) {
+        for (int i = 0; i < requests; i++) {
+            int request = i % 64;
+            int currentFloor = request * 37 % 50;
+            int destinationFloor = (request * 11 + 7) % 50 == currentFloor ? 50 : (request * 11 + 7) % 50;
+            elevatorSystem.pickup(currentFloor, destinationFloor - currentFloor, destinationFloor);
+            elevatorSystem.stepUntil(elevatorSystem.getTick() + 2 + i % 19);
+        }
+    }
+
+    /**
+     * Calls one of 64 pickup requests on every other step, which the elevators keep up with, so the number of
+     * requests being handled at once stops growing
+     */
+    private void runRepeatedTraffic(MyElevatorSystem elevatorSystem, int steps) {
+        for (int step = 0; step < steps; step++) {
+            if (step % 2 == 0) {
+                int request = step / 2 % 64;
+                int currentFloor = request * 37 % 50;
+                int destinationFloor = (request * 11 + 7) % 50 == currentFloor ? 50 : (request * 11 + 7) % 50;
+                elevatorSystem.pickup(currentFloor, destinationFloor - currentFloor, destinationFloor);
+            }
+            elevatorSystem.step();
+        }
+    }
 
     private void validateElevatorStatus(Elevator elevator, int currentFloor, int destinationFloor, Direction direction) {
         assertEquals(currentFloor, elevator.getElevatorStatus().getCurrentFloor());
@@ -0,0 +1,77 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.elevator_system.FleetElevatorSystem;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.metrics.StepPhase;
+import pl.edu.agh.elevatorsystem.metrics.StepPhaseCounters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StepPhaseCountersTest {
+
+    @Test
+    public void phasesAreCountedOnEveryStepTest() {
+        MyElevatorSystem elevatorSystem = new MyElevatorSystem(3);
+        FleetElevatorSystem fleet = new FleetElevatorSystem(3, 10);
+
+        for (int steps = 0; steps < 5; steps++) {
+            elevatorSystem.pickup(0, 1, 9);
+            fleet.pickup(0, 1, 9);
+            elevatorSystem.step();
+            fleet.step();
+        }
+
+        for (StepPhaseCounters stepPhaseCounters
+                : List.of(elevatorSystem.getStepPhaseCounters(), fleet.getStepPhaseCounters())) {
+            assertEquals(5, stepPhaseCounters.getCalls(StepPhase.MOVE_ELEVATORS));
+            assertEquals(5, stepPhaseCounters.getCalls(StepPhase.UPDATE_ELEVATORS));
+            assertTrue(stepPhaseCounters.getNanos(StepPhase.MOVE_ELEVATORS) > 0);
+        }
+
+        // the requests from the ground floor are pending once every elevator has left it
+        assertEquals(2, elevatorSystem.getStepPhaseCounters().getCalls(StepPhase.ASSIGN_PENDING_PICKUPS));
+    }
+
+    @Test
+    public void flightRecorderEventsAreRecordedTest() throws IOException {
+        Path recordingFile = Files.createTempFile("elevator-system", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("pl.edu.agh.elevatorsystem.StepPhase");
+            recording.enable("pl.edu.agh.elevatorsystem.PickupAssignment");
+            recording.start();
+
+            MyElevatorSystem elevatorSystem = new MyElevatorSystem(1);
+            elevatorSystem.pickup(2, 1, 5);
+            elevatorSystem.pickup(3, -1, 0);
+            elevatorSystem.step();
+
+            recording.stop();
+            recording.dump(recordingFile);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+            List<RecordedEvent> assignments = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("pl.edu.agh.elevatorsystem.PickupAssignment"))
+                    .toList();
+
+            assertEquals(2, assignments.size());
+            assertEquals(0, assignments.get(0).getInt("elevatorId"));
+            assertEquals(1, assignments.get(0).getInt("candidates"));
+            assertEquals(2, assignments.get(0).getInt("distance"));
+            assertEquals(-1, assignments.get(1).getInt("elevatorId"));
+            assertEquals(0, assignments.get(1).getInt("candidates"));
+
+            assertTrue(events.stream().anyMatch(event -> event.hasField("phase")
+                    && "MOVE_ELEVATORS".equals(event.getString("phase")) && event.getLong("tick") == 1));
+        } finally {
+            Files.delete(recordingFile);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import org.junit.jupiter.api.Test;
+import pl.edu.agh.elevatorsystem.ElevatorSystemApp;
+import pl.edu.agh.elevatorsystem.elevator.Elevator;
+import pl.edu.agh.elevatorsystem.elevator_system.MyElevatorSystem;
+import pl.edu.agh.elevatorsystem.trace.TraceConverter;
+import pl.edu.agh.elevatorsystem.trace.TraceReplayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.edu.agh.elevatorsystem.trace.TraceFormat.*;
+
+public class TraceTest {
+
+    @Test
+    public void convertedTraceIsWrittenAsFixedWidthRecordsTest() throws IOException {
+        Path directory = Files.createTempDirectory("trace");
+        Path textTrace = directory.resolve("trace.txt");
+        Path binaryTrace = directory.resolve("trace.bin");
+
+        try {
+            Files.write(textTrace, List.of("pickup 2 1 5", "step", "status", "step", "update 1 0 3", "pickup 2 1",
+                    "metrics", "convert a.txt a.bin", "replay a.bin", "step", "step", "jump", "step"));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            assertEquals(3, TraceConverter.convert(textTrace, binaryTrace,
+                    new PrintStream(output, true, StandardCharsets.UTF_8)));
+            assertEquals("Invalid input in line 6\nInvalid input in line 12\n",
+                    output.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+
+            ByteBuffer trace = ByteBuffer.wrap(Files.readAllBytes(binaryTrace)).order(BYTE_ORDER);
+            assertEquals(HEADER_SIZE + 3 * RECORD_SIZE, trace.limit());
+            assertEquals(MAGIC, trace.getInt(MAGIC_OFFSET));
+            assertEquals(VERSION, trace.getInt(VERSION_OFFSET));
+            assertEquals(3, trace.getLong(RECORD_COUNT_OFFSET));
+
+            validateRecord(trace, 0, 0, PICKUP, 2, 1, 5);
+            validateRecord(trace, 1, 2, UPDATE, 1, 0, 3);
+            validateRecord(trace, 2, 5, STEP, 0, 0, 0);
+        } finally {
+            Files.deleteIfExists(textTrace);
+            Files.deleteIfExists(binaryTrace);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void replayGivesSameResultsAsTextCommandsTest() throws IOException {
+        Path directory = Files.createTempDirectory("trace");
+        Path textTrace = directory.resolve("trace.txt");
+        Path binaryTrace = directory.resolve("trace.bin");
+
+        try {
+            Random random = new Random(8);
+            List<String> commands = new ArrayList<>();
+
+            for (int command = 0; command < 20000; command++) {
+                int commandType = random.nextInt(10);
+
+                if (commandType < 3) {
+                    int currentFloor = random.nextInt(50);
+                    int destinationFloor = random.nextInt(50);
+                    commands.add("pickup " + currentFloor + " " + Integer.signum(destinationFloor - currentFloor)
+                            + " " + destinationFloor);
+                } else if (commandType == 3) {
+                    commands.add("update " + random.nextInt(5) + " " + random.nextInt(50) + " " + random.nextInt(50));
+                } else {
+                    commands.add("step");
+                }
+            }
+            Files.write(textTrace, commands);
+
+            MyElevatorSystem textSystem = new MyElevatorSystem(5);
+            for (String command : commands) {
+                switch (command.split(" ")[0]) {
+                    case "pickup" -> ElevatorSystemApp.pickupElevatorIfInputValid(command, textSystem);
+                    case "update" -> ElevatorSystemApp.updateElevatorIfInputValid(command, textSystem);
+                    default -> textSystem.step();
+                }
+            }
+
+            MyElevatorSystem replayedSystem = new MyElevatorSystem(5);
+            TraceConverter.convert(textTrace, binaryTrace, new PrintStream(OutputStream.nullOutputStream()));
+            TraceReplayer.replay(binaryTrace, replayedSystem);
+
+            assertEquals(textSystem.getTick(), replayedSystem.getTick());
+            assertEquals(textSystem.getPendingPickups(), replayedSystem.getPendingPickups());
+            for (int elevatorId = 0; elevatorId < 5; elevatorId++) {
+                Elevator elevator = textSystem.getElevatorById(elevatorId);
+                Elevator replayedElevator = replayedSystem.getElevatorById(elevatorId);
+
+                assertEquals(elevator.getElevatorStatus().getCurrentFloor(),
+                        replayedElevator.getElevatorStatus().getCurrentFloor());
+                assertEquals(elevator.getElevatorStatus().getDestinationFloor(),
+                        replayedElevator.getElevatorStatus().getDestinationFloor());
+                assertEquals(elevator.getDirection(), replayedElevator.getDirection());
+                assertEquals(elevator.getPickupRequests(), replayedElevator.getPickupRequests());
+            }
+        } finally {
+            Files.deleteIfExists(textTrace);
+            Files.deleteIfExists(binaryTrace);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void replayStartsFromCurrentTickTest() throws IOException {
+        Path directory = Files.createTempDirectory("trace");
+        Path textTrace = directory.resolve("trace.txt");
+        Path binaryTrace = directory.resolve("trace.bin");
+
+        try {
+            List<String> commands = List.of("pickup 2 1 5", "step", "step", "pickup 0 1 3", "step");
+            Files.write(textTrace, commands);
+            TraceConverter.convert(textTrace, binaryTrace, new PrintStream(OutputStream.nullOutputStream()));
+
+            MyElevatorSystem textSystem = new MyElevatorSystem(1);
+            MyElevatorSystem replayedSystem = new MyElevatorSystem(1);
+            for (int step = 0; step < 10; step++) {
+                textSystem.step();
+                replayedSystem.step();
+            }
+
+            for (String command : commands) {
+                if (command.startsWith("pickup")) {
+                    ElevatorSystemApp.pickupElevatorIfInputValid(command, textSystem);
+                } else {
+                    textSystem.step();
+                }
+            }
+            TraceReplayer.replay(binaryTrace, replayedSystem);
+
+            assertEquals(13, replayedSystem.getTick());
+            assertEquals(textSystem.getPendingPickups(), replayedSystem.getPendingPickups());
+            assertEquals(textSystem.getElevatorById(0).getElevatorStatus().getCurrentFloor(),
+                    replayedSystem.getElevatorById(0).getElevatorStatus().getCurrentFloor());
+            assertEquals(textSystem.getElevatorById(0).getPickupRequests(),
+                    replayedSystem.getElevatorById(0).getPickupRequests());
+        } finally {
+            Files.deleteIfExists(textTrace);
+            Files.deleteIfExists(binaryTrace);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void replayRejectsInvalidTraceTest() throws IOException {
+        Path textTrace = Files.createTempFile("trace", ".txt");
+
+        try {
+            Files.write(textTrace, List.of("pickup 2 1 5", "step"));
+            assertThrows(IOException.class, () -> TraceReplayer.replay(textTrace, new MyElevatorSystem(1)));
+
+            // the second record has an unknown opcode, so the replay stops before it
+            ByteBuffer trace = ByteBuffer.allocate(HEADER_SIZE + 3 * RECORD_SIZE).order(BYTE_ORDER);
+            trace.putInt(MAGIC_OFFSET, MAGIC).putInt(VERSION_OFFSET, VERSION).putLong(RECORD_COUNT_OFFSET, 3);
+            trace.putLong(HEADER_SIZE + TICK_OFFSET, 0).putInt(HEADER_SIZE + OPCODE_OFFSET, PICKUP)
+                    .putInt(HEADER_SIZE + FIRST_ARGUMENT_OFFSET, 2).putInt(HEADER_SIZE + SECOND_ARGUMENT_OFFSET, 1)
+                    .putInt(HEADER_SIZE + THIRD_ARGUMENT_OFFSET, 5);
+            trace.putLong(HEADER_SIZE + RECORD_SIZE + TICK_OFFSET, 3)
+                    .putInt(HEADER_SIZE + RECORD_SIZE + OPCODE_OFFSET, 7);
+            trace.putLong(HEADER_SIZE + 2 * RECORD_SIZE + TICK_OFFSET, 4)
+                    .putInt(HEADER_SIZE + 2 * RECORD_SIZE + OPCODE_OFFSET, STEP);
+            Files.write(textTrace, trace.array());
+
+            MyElevatorSystem elevatorSystem = new MyElevatorSystem(1);
+            IOException exception = assertThrows(IOException.class,
+                    () -> TraceReplayer.replay(textTrace, elevatorSystem));
+            assertTrue(exception.getMessage().startsWith("Invalid trace record 1"));
+            assertEquals(0, elevatorSystem.getTick());
+            assertEquals(1, elevatorSystem.getElevatorById(0).getPickupRequests().size());
+        } finally {
+            Files.delete(textTrace);
+        }
+    }
+
+    private void validateRecord(ByteBuffer trace, int record, long tick, int opcode,
+                                int firstArgument, int secondArgument, int thirdArgument) {
+        int offset = HEADER_SIZE + record * RECORD_SIZE;
+
+        assertEquals(tick, trace.getLong(offset + TICK_OFFSET));
+        assertEquals(opcode, trace.getInt(offset + OPCODE_OFFSET));
+        assertEquals(firstArgument, trace.getInt(offset + FIRST_ARGUMENT_OFFSET));
+        assertEquals(secondArgument, trace.getInt(offset + SECOND_ARGUMENT_OFFSET));
+        assertEquals(thirdArgument, trace.getInt(offset + THIRD_ARGUMENT_OFFSET));
+    }
+}
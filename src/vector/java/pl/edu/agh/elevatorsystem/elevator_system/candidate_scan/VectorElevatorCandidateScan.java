@@ -0,0 +1,80 @@
+package pl.edu.agh.elevatorsystem.elevator_system.candidate_scan;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ElevatorCandidateScan checking as many elevators at once as fit in the preferred vector of ints
+ *
+ * Every chunk of elevators gets a mask of the elevators that can handle the request, and the shortest distance of
+ * the chunk is the minimum of its distances with the other elevators' distances replaced by Integer.MAX_VALUE. The
+ * first elevator of the chunk with that distance replaces the closest elevator only if it is strictly closer, so ties
+ * still go to the lowest elevatorId. Elevators after the last full chunk are checked one by one.
+ *
+ * Comparison operators are constants of the UP and DOWN branch, as the Vector API only compiles the operations with
+ * constant operators into vector instructions. Requires the jdk.incubator.vector module, see
+ * ElevatorCandidateScan.create()
+ */
+public class VectorElevatorCandidateScan implements ElevatorCandidateScan {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private int candidates = 0;
+
+    @Override
+    public int findClosestElevator(int[] floors, int[] states, int numberOfElevators, int pickupFloor,
+                                   int pickupDirection) {
+        int closestElevator = NO_ELEVATOR;
+        int shortestDistance = Integer.MAX_VALUE;
+        candidates = 0;
+
+        int fullChunks = SPECIES.loopBound(numberOfElevators);
+        int elevatorId = 0;
+
+        for (; elevatorId < fullChunks; elevatorId += SPECIES.length()) {
+            IntVector floor = IntVector.fromArray(SPECIES, floors, elevatorId);
+            IntVector state = IntVector.fromArray(SPECIES, states, elevatorId);
+
+            VectorMask<Integer> floorAhead = pickupDirection == UP
+                    ? floor.compare(VectorOperators.LT, pickupFloor)
+                    : floor.compare(VectorOperators.GT, pickupFloor);
+            VectorMask<Integer> eligible = state.eq(IDLE).or(state.eq(pickupDirection).and(floorAhead));
+            if (!eligible.anyTrue()) continue;
+
+            candidates += eligible.trueCount();
+
+            IntVector distance = floor.sub(pickupFloor).abs().blend(Integer.MAX_VALUE, eligible.not());
+            int chunkDistance = distance.reduceLanes(VectorOperators.MIN);
+
+            if (chunkDistance < shortestDistance) {
+                shortestDistance = chunkDistance;
+                closestElevator = elevatorId + distance.eq(chunkDistance).firstTrue();
+            }
+        }
+
+        for (; elevatorId < numberOfElevators; elevatorId++) {
+            int state = states[elevatorId];
+            int floor = floors[elevatorId];
+
+            boolean floorAhead = pickupDirection == UP ? floor < pickupFloor : floor > pickupFloor;
+            if (state != IDLE && (state != pickupDirection || !floorAhead)) continue;
+
+            candidates++;
+            int distance = Math.abs(floor - pickupFloor);
+
+            if (distance < shortestDistance) {
+                shortestDistance = distance;
+                closestElevator = elevatorId;
+            }
+        }
+
+        return closestElevator;
+    }
+
+    @Override
+    public int getCandidates() {
+        return candidates;
+    }
+}